@@ -0,0 +1,147 @@
+package boardgame.benchmarks;
+
+import boardgame.data.Data;
+import boardgame.data.DataHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ConcurrentWriteBenchmark} class measures the throughput of
+ * appending finished games to the statistics with 1, 8 and 64 writers
+ * at once, every writer holding a {@link DataHandler} of its own, as the
+ * processes sharing a statistics file do. The appends are serialized by
+ * the lock file, so the benchmarks show the cost of the contention on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ConcurrentWriteBenchmark {
+
+    /**
+     * The name of the statistics file, which selects its format.
+     */
+    @Param({"log.json", "store.segments"})
+    private String name;
+
+    /**
+     * The directory of the statistics.
+     */
+    private Path directory;
+
+    /**
+     * The statistics file.
+     */
+    private Path file;
+
+    /**
+     * Creates the directory of the statistics.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @Setup
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("statistics");
+        file = directory.resolve(name);
+    }
+
+    /**
+     * Deletes the directory of the statistics.
+     *
+     * @throws IOException if the directory cannot be read
+     */
+    @TearDown
+    public void deleteDirectory() throws IOException {
+        try (var files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * A writer of the statistics.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+
+        /**
+         * The handler of the writer.
+         */
+        private DataHandler handler;
+
+        /**
+         * Creates the handler of the writer.
+         *
+         * @param benchmark the benchmark holding the statistics file
+         */
+        @Setup
+        public void createHandler(final ConcurrentWriteBenchmark benchmark) {
+            handler = new DataHandler(benchmark.file.toString());
+        }
+
+        /**
+         * Appends the record of a finished game.
+         *
+         * @throws IOException if the statistics cannot be written
+         */
+        void append() throws IOException {
+            handler.appendData(List.of(new Data("Red", 12, "20:16")), false);
+        }
+    }
+
+    /**
+     * Appends a record with a single writer.
+     *
+     * @param writer the writer of the thread
+     * @throws IOException if the statistics cannot be written
+     */
+    @Benchmark
+    @Threads(1)
+    public void appendAlone(final Writer writer) throws IOException {
+        writer.append();
+    }
+
+    /**
+     * Appends a record with 8 writers at once.
+     *
+     * @param writer the writer of the thread
+     * @throws IOException if the statistics cannot be written
+     */
+    @Benchmark
+    @Threads(8)
+    public void appendByEight(final Writer writer) throws IOException {
+        writer.append();
+    }
+
+    /**
+     * Appends a record with 64 writers at once.
+     *
+     * @param writer the writer of the thread
+     * @throws IOException if the statistics cannot be written
+     */
+    @Benchmark
+    @Threads(64)
+    public void appendBySixtyFour(final Writer writer) throws IOException {
+        writer.append();
+    }
+}
@@ -0,0 +1,117 @@
+package boardgame.benchmarks;
+
+import boardgame.data.Data;
+import boardgame.data.DataHandler;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code DataHandlerBenchmark} class measures reading the game
+ * statistics and appending a finished game to them, with statistics
+ * files of one thousand to one million records.
+ * The file is rewritten before every iteration, so the appends of an
+ * iteration do not change the measured size noticeably.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DataHandlerBenchmark {
+
+    /**
+     * The number of records in the statistics file.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int records;
+
+    /**
+     * The statistics file.
+     */
+    private Path file;
+
+    /**
+     * The handler of the statistics file.
+     */
+    private DataHandler handler;
+
+    /**
+     * Creates the statistics file.
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = Files.createTempFile("statistics", ".json");
+        handler = new DataHandler(file.toString());
+    }
+
+    /**
+     * Fills the statistics file with the measured number of records,
+     * in the format written by {@link DataHandler}.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Setup(Level.Iteration)
+    public void fillFile() throws IOException {
+        var dataList = new ArrayList<Data>(records);
+        for (var i = 0; i < records; i++) {
+            dataList.add(new Data(i % 2 == 0 ? "Red" : "Blue",
+                    10 + i % 20, "20:16"));
+        }
+        try (Writer writer = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create()
+                    .toJson(dataList, writer);
+        }
+    }
+
+    /**
+     * Deletes the statistics file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Reads every record of the statistics.
+     *
+     * @return the number of records read
+     */
+    @Benchmark
+    public int read() {
+        return handler.readData().size();
+    }
+
+    /**
+     * Appends the record of a finished game to the statistics.
+     */
+    @Benchmark
+    public void append() {
+        handler.extendData("Red", 12, "20:16");
+    }
+}
@@ -0,0 +1,206 @@
+package boardgame.benchmarks;
+
+import boardgame.model.BoardGameModel;
+import boardgame.model.BoardState;
+import boardgame.model.GameOutcome;
+import boardgame.model.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ModelBenchmark} class measures the move rules of the game:
+ * move validation, placing and turning circles, end of game detection
+ * and random playouts. The position measured is reached from the
+ * starting layout by a fixed sequence of random moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * The number of random moves leading to the measured position.
+     */
+    private static final int OPENING_MOVES = 10;
+
+    /**
+     * The seed of the random moves.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The model in the measured position.
+     */
+    private BoardGameModel model;
+
+    /**
+     * The state of the model.
+     */
+    private BoardState state;
+
+    /**
+     * Every square of the board.
+     */
+    private Position[] squares;
+
+    /**
+     * The legal moves in the measured position.
+     */
+    private int[] moves;
+
+    /**
+     * The number of legal moves in the measured position.
+     */
+    private int moveCount;
+
+    /**
+     * The state used by the playouts.
+     */
+    private BoardState playout;
+
+    /**
+     * The move buffer of the playouts.
+     */
+    private int[] playoutMoves;
+
+    /**
+     * The random generator of the playouts.
+     */
+    private SplittableRandom random;
+
+    /**
+     * Sets up the measured position.
+     */
+    @Setup
+    public void setUp() {
+        model = new BoardGameModel();
+        model.setUpBoard();
+        state = model.getState();
+        random = new SplittableRandom(SEED);
+        moves = new int[state.getRules().getMaxMoves()];
+        for (var i = 0; i < OPENING_MOVES && state.hasLegalMove(); i++) {
+            var count = state.generateMoves(moves);
+            model.makeMove(moves[random.nextInt(count)]);
+        }
+        moveCount = state.generateMoves(moves);
+
+        var size = state.getRules().getSize();
+        squares = new Position[size * size];
+        for (var i = 0; i < squares.length; i++) {
+            squares[i] = new Position(i / size, i % size);
+        }
+        playout = BoardState.create(state.getRules());
+        playoutMoves = new int[state.getRules().getMaxMoves()];
+    }
+
+    /**
+     * Validates every pair of squares as a jump with
+     * {@link BoardGameModel#canMove(Position, Position)}.
+     *
+     * @return the number of valid jumps
+     */
+    @Benchmark
+    public int canMoveAllPairs() {
+        var valid = 0;
+        for (var from : squares) {
+            for (var to : squares) {
+                if (model.canMove(from, to)) {
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Generates the legal moves of the position.
+     *
+     * @return the number of legal moves
+     */
+    @Benchmark
+    public int generateMoves() {
+        return state.generateMoves(moves);
+    }
+
+    /**
+     * Makes and takes back every legal move of the position,
+     * placing or moving a circle and turning the neighbours.
+     *
+     * @return the number of circles turned
+     */
+    @Benchmark
+    public int makeUnmakeAllMoves() {
+        var red = state.countHead();
+        var turned = 0;
+        for (var i = 0; i < moveCount; i++) {
+            state.make(moves[i]);
+            turned += Math.abs(state.countHead() - red);
+            state.unmake();
+        }
+        return turned;
+    }
+
+    /**
+     * Plays and takes back a placement through the observable model.
+     *
+     * @return the number of red circles after the placement
+     */
+    @Benchmark
+    public int modelPlaceAndUndo() {
+        model.makeMove(moves[0]);
+        var red = model.countRedCircles();
+        model.undo();
+        return red;
+    }
+
+    /**
+     * Checks the end of the game with {@link GameOutcome#isOver}.
+     *
+     * @return true if the game is over
+     */
+    @Benchmark
+    public boolean isOver() {
+        return GameOutcome.isOver(state);
+    }
+
+    /**
+     * Checks the end of the game with the checks of the controller.
+     *
+     * @return true if the player to move can still move
+     */
+    @Benchmark
+    public boolean hasMovableCircleOrSpace() {
+        return model.hasMovableCircle()
+                || model.hasSpaceForCircle(model.isPlayerRedTurn());
+    }
+
+    /**
+     * Plays a game with uniformly random moves from the starting layout.
+     *
+     * @return the final score difference for the player to move
+     */
+    @Benchmark
+    public int randomPlayout() {
+        playout.setUp();
+        var count = playout.generateMoves(playoutMoves);
+        while (count > 0) {
+            playout.make(playoutMoves[random.nextInt(count)]);
+            count = playout.generateMoves(playoutMoves);
+        }
+        return GameOutcome.scoreForSideToMove(playout);
+    }
+}
@@ -0,0 +1,105 @@
+package boardgame.benchmarks;
+
+import boardgame.data.BinaryStatistics;
+import boardgame.data.StatisticsColumn;
+import boardgame.data.StatisticsColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.IntSummaryStatistics;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code QueryBenchmark} class measures filtering, aggregating and
+ * grouping columnar statistics of up to ten million random games.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class QueryBenchmark {
+
+    /**
+     * The number of games.
+     */
+    @Param({"100000", "1000000", "10000000"})
+    private int games;
+
+    /**
+     * The queried columns.
+     */
+    private StatisticsColumns columns;
+
+    /**
+     * Fills the columns with random games on the standard board.
+     */
+    @Setup
+    public void fillColumns() {
+        var random = new Random(24);
+        var blueWins = new long[(games + 63) / 64];
+        var moves = new int[games];
+        var red = new int[games];
+        var blue = new int[games];
+        for (var i = 0; i < games; i++) {
+            moves[i] = 5 + random.nextInt(30);
+            red[i] = random.nextInt(36);
+            blue[i] = 35 - red[i];
+            if (blue[i] > red[i]) {
+                blueWins[i >>> 6] |= 1L << i;
+            }
+        }
+        columns = new StatisticsColumns(blueWins, moves, red, blue);
+    }
+
+    /**
+     * Counts the blue wins with fewer than 15 moves and a margin above 5.
+     *
+     * @return the number of such games
+     */
+    @Benchmark
+    public long filterAndCount() {
+        return columns.select()
+                .where(StatisticsColumn.WINNER,
+                        w -> w == BinaryStatistics.BLUE)
+                .where(StatisticsColumn.MOVES, m -> m < 15)
+                .where(StatisticsColumn.WIN_MARGIN, m -> m > 5)
+                .count();
+    }
+
+    /**
+     * Aggregates the move counters of the red wins.
+     *
+     * @return the statistics of the move counters
+     */
+    @Benchmark
+    public IntSummaryStatistics filterAndAggregate() {
+        return columns.select()
+                .where(StatisticsColumn.WINNER,
+                        w -> w == BinaryStatistics.RED)
+                .aggregate(StatisticsColumn.MOVES);
+    }
+
+    /**
+     * Aggregates the margins of every game by move counter.
+     *
+     * @return the statistics of the margins by move counter
+     */
+    @Benchmark
+    public SortedMap<Integer, IntSummaryStatistics> groupByMoves() {
+        return columns.select()
+                .groupBy(StatisticsColumn.MOVES, StatisticsColumn.MARGIN);
+    }
+}
@@ -0,0 +1,132 @@
+package boardgame.benchmarks;
+
+import boardgame.engine.Perft;
+import boardgame.model.BoardState;
+import boardgame.model.GameOutcome;
+import boardgame.model.RuleSet;
+import boardgame.model.WideGameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ScalingBenchmark} class measures how the move rules scale
+ * with the size of the board. Boards of at most
+ * {@value RuleSet#MAX_COMPACT_SIZE} rows are played on single
+ * {@code long} masks and larger ones on multi-word bitsets, as chosen by
+ * {@link BoardState#create(RuleSet)}; the {@code wide} benchmarks play
+ * every size on multi-word bitsets, so the cost of the words can be
+ * compared with the single masks on the small boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+
+    /**
+     * The seed of the random moves.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The number of rows and columns of the board.
+     */
+    @Param({"4", "6", "8", "10", "12", "16"})
+    private int size;
+
+    /**
+     * The state chosen for the board size.
+     */
+    private BoardState state;
+
+    /**
+     * The multi-word state of the same board.
+     */
+    private BoardState wide;
+
+    /**
+     * The move buffer.
+     */
+    private int[] moves;
+
+    /**
+     * The random generator of the playouts.
+     */
+    private SplittableRandom random;
+
+    /**
+     * Sets up the states of the board size.
+     */
+    @Setup
+    public void setUp() {
+        var rules = RuleSet.ofSize(size);
+        state = BoardState.create(rules);
+        state.setUp();
+        wide = new WideGameState(rules);
+        wide.setUp();
+        moves = new int[rules.getMaxMoves()];
+        random = new SplittableRandom(SEED);
+    }
+
+    /**
+     * Counts the leaves of the game tree two plies from the start.
+     *
+     * @return the number of leaves
+     */
+    @Benchmark
+    public long perftTwo() {
+        return Perft.perft(state, 2);
+    }
+
+    /**
+     * Plays a game with uniformly random moves from the starting layout.
+     *
+     * @return the final score difference for the player to move
+     */
+    @Benchmark
+    public int randomPlayout() {
+        return playout(state);
+    }
+
+    /**
+     * Plays a game with uniformly random moves from the starting layout
+     * on multi-word bitsets.
+     *
+     * @return the final score difference for the player to move
+     */
+    @Benchmark
+    public int wideRandomPlayout() {
+        return playout(wide);
+    }
+
+    /**
+     * Plays a random game on a state, then sets it up again.
+     *
+     * @param playout the state to play on
+     * @return the final score difference for the player to move
+     */
+    private int playout(final BoardState playout) {
+        var count = playout.generateMoves(moves);
+        while (count > 0) {
+            playout.make(moves[random.nextInt(count)]);
+            count = playout.generateMoves(moves);
+        }
+        var score = GameOutcome.scoreForSideToMove(playout);
+        playout.setUp();
+        return score;
+    }
+}
@@ -0,0 +1,84 @@
+package boardgame.benchmarks;
+
+import boardgame.model.BoardGameModel;
+import boardgame.model.Position;
+import boardgame.util.BoardGameMoveSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code SelectorBenchmark} class measures the selection of a jump
+ * with {@link BoardGameMoveSelector#select(Position)} as the controller
+ * does it on two clicks, followed by a reset of the selector.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectorBenchmark {
+
+    /**
+     * The circle the jump starts from.
+     */
+    private static final Position FROM = new Position(0, 0);
+
+    /**
+     * The target of the jump.
+     */
+    private static final Position TO = new Position(2, 2);
+
+    /**
+     * The selector in the starting layout.
+     */
+    private BoardGameMoveSelector selector;
+
+    /**
+     * Sets up the selector on a new game.
+     */
+    @Setup
+    public void setUp() {
+        var model = new BoardGameModel();
+        model.setUpBoard();
+        selector = new BoardGameMoveSelector(model);
+    }
+
+    /**
+     * Selects the origin and the target of a jump.
+     *
+     * @return true if the jump is ready to be made
+     */
+    @Benchmark
+    public boolean selectJump() {
+        selector.select(FROM);
+        selector.select(TO);
+        var ready = selector.isReadyToMove();
+        selector.reset();
+        return ready;
+    }
+
+    /**
+     * Selects a circle and then an invalid target.
+     *
+     * @return true if the selection was rejected
+     */
+    @Benchmark
+    public boolean selectInvalidTarget() {
+        selector.select(FROM);
+        selector.select(FROM);
+        var invalid = selector.isInvalidSelection();
+        selector.reset();
+        return invalid;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * The {@code boardgame.benchmarks} package contains the JMH benchmarks
+ * of the board game. They measure the move rules of the model,
+ * the move selector and the statistics storage, and are built and run
+ * only with the {@code benchmarks} Maven profile.
+ */
+package boardgame.benchmarks;
@@ -1,25 +1,48 @@
 package boardgame.Controllers;
 
-import boardgame.data.DataHandler;
+import boardgame.data.StatisticsWriter;
+import boardgame.engine.ComputerPlayer;
 import boardgame.model.BoardGameModel;
+import boardgame.model.GameOutcome;
+import boardgame.model.Move;
 import boardgame.model.Position;
+import boardgame.model.RuleSet;
 import boardgame.model.Square;
 import boardgame.util.BoardGameMoveSelector;
 import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.fxml.FXML;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Rectangle;
+import javafx.stage.Window;
 import org.tinylog.Logger;
 
 
 public class BoardGameController {
 
+    /**
+     * The width and height of the squares of the board in pixels,
+     * shared by the rows and columns of the generated grid.
+     */
+    private static final double BOARD_PIXELS = 600;
+
+    /**
+     * The smallest width and height of a square in pixels.
+     */
+    private static final double MIN_CELL_PIXELS = 10;
+
     /**
      * The game board represented as a GridPane. It contains
      * the visual representation of the game squares.
@@ -28,6 +51,7 @@ public class BoardGameController {
     private GridPane board;
     /**
      * The model that manages the game state and logic.
+     * It is replaced when the rules are set.
      */
     private BoardGameModel model = new BoardGameModel();
     /**
@@ -42,7 +66,7 @@ public class BoardGameController {
     /**
      * The file path for the statistics file.
      */
-    private String filePath = "Statistic.json";
+    private String filePath = "Statistic.segments";
 
     /**
      * The move selector for the board game.
@@ -56,6 +80,23 @@ public class BoardGameController {
      */
     private UIController uiController = new UIController();
 
+    /**
+     * The computer opponent, or null if two humans play.
+     */
+    private ComputerPlayer computer;
+
+    /**
+     * Indicates whether the computer is searching its move.
+     */
+    private boolean computerThinking = false;
+
+    /**
+     * Indicates whether the board is in a window being shown.
+     * It turns false when the scene of the window is replaced
+     * or the window is closed.
+     */
+    private ObservableValue<Boolean> shown;
+
     /**
      * Indicates whether there is a winner in the game.
      * @param isWinner true if the game ended and there is a winner
@@ -82,99 +123,78 @@ public class BoardGameController {
 
     /**
      * This method initializes the game board and
-     * sets up the initial state of the game.
-     * It creates squares and adds them
-     * to the board grid based on the board size.
-     * It also sets specific squares with initial values
-     * (HEAD, TAIL, BLANK) using the model.
+     * sets up the initial state of the game with the standard rules.
      * This method is called during the initialization phase of the game.
      */
     @FXML
     private void initialize() {
-        for (var i = 0; i < board.getRowCount(); i++) {
-            for (var j = 0; j < board.getColumnCount(); j++) {
-                var square = createSquare(i, j);
-                board.add(square, j, i);
+        setRules(RuleSet.standard());
+        board.setOnKeyPressed(this::handleKeyPress);
+        shown = board.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false);
+        shown.addListener((observable, wasShown, isShown) -> {
+            if (wasShown && !isShown) {
+                shutdownComputer();
             }
-        }
+        });
+    }
 
-        model.setSquare(new Position(0, 0), Square.HEAD);
-        model.setSquare(new Position(BoardGameModel.BOARD_SIZE - 1,
-                BoardGameModel.BOARD_SIZE - 1), Square.HEAD);
-        model.setSquare(new Position(0,
-                BoardGameModel.BOARD_SIZE - 1), Square.TAIL);
-        model.setSquare(new Position(BoardGameModel.BOARD_SIZE - 1,
-                0), Square.TAIL);
-        model.setSquare(new Position(BoardGameModel.BOARD_SIZE - (2 + 1),
-                BoardGameModel.BOARD_SIZE - (2 + 1)), Square.BLANK);
+    /**
+     * Starts a new game of the specified rules.
+     * The rows, columns and squares of the board grid are generated
+     * from the size of the board, and the squares are set up with
+     * the initial values (HEAD, TAIL, BLANK) defined by the rules.
+     * A computer opponent has to be set after the rules.
+     *
+     * @param rules the rules of the new game
+     */
+    public void setRules(final RuleSet rules) {
+        model = new BoardGameModel(rules);
+        selector = new BoardGameMoveSelector(model);
+        model.setUpBoard();
+
+        var size = rules.getSize();
+        var cell = BOARD_PIXELS / size;
+        board.getChildren().clear();
+        board.getColumnConstraints().clear();
+        board.getRowConstraints().clear();
+        for (var i = 0; i < size; i++) {
+            var column = new ColumnConstraints(MIN_CELL_PIXELS, cell,
+                    Double.MAX_VALUE);
+            column.setHgrow(Priority.SOMETIMES);
+            board.getColumnConstraints().add(column);
+            var row = new RowConstraints(MIN_CELL_PIXELS, cell,
+                    Double.MAX_VALUE);
+            row.setVgrow(Priority.SOMETIMES);
+            board.getRowConstraints().add(row);
+        }
+        for (var i = 0; i < size; i++) {
+            for (var j = 0; j < size; j++) {
+                board.add(createSquare(i, j, cell), j, i);
+            }
+        }
     }
 
     /**
      * This method checks if the game has ended.
-     * It iterates over each square on the board and
-     * checks various conditions to determine the game outcome.
-     * It checks if any player has no valid moves left,
-     * if both players have circles on the board,
-     * and if they can make moves. If a game-ending condition is met,
-     * it logs the result and returns true.
+     * The game is over when the player to move can neither place
+     * nor move a circle. The decision is made by {@link GameOutcome}
+     * from the model alone, so it is cheap enough to run after every move.
+     * If the game has ended, it logs the result and returns true.
      * Otherwise, it returns false, indicating that the game is still ongoing.
      * @return true if the game has ended, false otherwise
      */
     public boolean checkEndGame() {
-        boolean redCircleFound = false;
-        boolean blueCircleFound = false;
-        boolean redCanMove = false;
-        boolean blueCanMove = false;
-        boolean noMoreMove = false;
-
-        for (var i = 0; i < board.getRowCount(); i++) {
-            for (var j = 0; j < board.getColumnCount(); j++) {
-                var square = (StackPane)
-                 board.getChildren().get(i * BoardGameModel.BOARD_SIZE + j);
-                var circle = (Circle) square.getChildren().get(0);
-                if (!model.hasSpaceForCircle(model.isPlayerRedTurn())
-                        || !model.hasSpaceForCircle(!model.isPlayerRedTurn())) {
-                    Logger.info("Can not move --- GAME OVER");
-                    if (model.isPlayerRedTurn()) {
-                        blueCount = model.countNoneSquares();
-                } else {
-                            redCount = model.countNoneSquares();
-                        }
-                    noMoreMove = true;
-                } else if (circle.getFill().equals(Color.RED)
-                        && model.hasMovableCircle()) {
-                    redCircleFound = true;
-                    redCanMove = true;
-
-                } else if (circle.getFill().equals(Color.BLUE)
-                        && model.hasMovableCircle()) {
-                    blueCircleFound = true;
-                    blueCanMove = true;
-
-                }   else if (!model.hasMovableCircle()) {
-                    Logger.info("No valid moves for either player");
-                    noMoreMove = true;
-                }
-
-                if (redCircleFound && blueCircleFound
-                        && (redCanMove || blueCanMove)) {
-                    return false;
-                }
-
-            }
+        if (!GameOutcome.isOver(model.getState())) {
+            return false;
         }
-        if (noMoreMove) {
-            if (redWon()) {
-                Logger.info("Red wins");
-            } else {
-                Logger.info("Blue wins");
-            }
-        } else if (!redCircleFound) {
-            Logger.info("Blue wins");
-            redWon();
-        } else if (!blueCircleFound) {
+        Logger.info("Can not move --- GAME OVER");
+        if (redWon()) {
             Logger.info("Red wins");
-            redWon();
+        } else {
+            Logger.info("Blue wins");
         }
         return true;
     }
@@ -188,21 +208,19 @@ public class BoardGameController {
      * The circle's fill color is bound to the square value in the model.
      * Finally, it sets a mouse click event handler for the square.
      *
-     * @param i the row index of the square
-     * @param j the column index of the square
+     * @param i    the row index of the square
+     * @param j    the column index of the square
+     * @param cell the width and height of the square in pixels
      * @return the created StackPane representing the square
      */
-    private StackPane createSquare(final int i, final int j) {
+    private StackPane createSquare(final int i, final int j,
+                                   final double cell) {
         var square = new StackPane();
         square.getStyleClass().add("square");
 
-        final int rectangleSize = 100;
-
-        final  int circleRadius = 50;
+        var blackSquare = new Rectangle(cell, cell);
 
-        var blackSquare = new Rectangle(rectangleSize, rectangleSize);
-
-        var circle = new Circle(circleRadius);
+        var circle = new Circle(cell / 2);
 
         if (model.squareProperty(i, j).get() == Square.BLANK) {
             square.getChildren().add(blackSquare);
@@ -229,75 +247,168 @@ public class BoardGameController {
         var row = GridPane.getRowIndex(square);
         var col = GridPane.getColumnIndex(square);
         Logger.info("Click on square ({}, {})", row, col);
+        board.requestFocus();
 
-        selector.select(new Position(row, col));
+        if (isComputerTurn() || isThereIsAWWinner()) {
+            return;
+        }
+        handleSelection(row, col);
+    }
 
-        var selectedSquare = model.squareProperty(row, col).get();
-        var currentPlayerSquare =
-                model.isPlayerRedTurn() ? Square.HEAD : Square.TAIL;
+    /**
+     * Selects a square for the player to move, the same way a click does.
+     * Selecting an own circle and then an empty square moves the circle,
+     * selecting an empty square next to an own circle places a new one.
+     * If the computer is to move afterwards, its search is started.
+     *
+     * @param row the row index of the selected square
+     * @param col the column index of the selected square
+     */
+    private void handleSelection(final int row, final int col) {
+        selector.select(new Position(row, col));
 
         if (selector.isReadyToMove()) {
             selector.makeMove(model.isPlayerRedTurn());
 
             handleEndGame();
 
-            incrementMoveCounter();
-
             printOutMoveCounter();
 
-        } else if (selectedSquare == Square.NONE
-                && hasAdjacentCircle(row, col, currentPlayerSquare)) {
-            model.placeACircle(row, col);
+        } else if (model.canPlaceACircle(row, col)) {
+            model.makeMove(Move.placement(
+                    model.getState().index(row, col)));
 
             Logger.info("Placed a circle to ({}, {})", row, col);
 
-            if (model.isPlayerRedTurn()) {
-            model.setPlayerRedTurn(false);
-            } else {
-                model.setPlayerRedTurn(true);
-            }
-
-
             handleEndGame();
 
             selector.reset();
 
-            incrementMoveCounter();
-
             printOutMoveCounter();
 
         }
+        if (isComputerTurn() && !isThereIsAWWinner() && !computerThinking) {
+            requestComputerMove();
+        }
     }
 
     /**
-     * Prints out the move counters for both the red and blue players.
+     * Sets the computer opponent of the game, shutting down the previous
+     * one. If it is the computer's turn, it starts searching its move.
+     * The computer is shut down when the game ends, when the board is
+     * replaced by another scene or when its window is closed.
+     *
+     * @param computerPlayer the computer opponent, or null for two humans
      */
+    public void setComputerPlayer(final ComputerPlayer computerPlayer) {
+        if (computer != computerPlayer) {
+            shutdownComputer();
+        }
+        this.computer = computerPlayer;
+        if (isComputerTurn()) {
+            requestComputerMove();
+        }
+    }
 
-    private void printOutMoveCounter() {
-        Logger.info("Red Player Moves: {}", model.getRedPlayerMoveCounter());
-        Logger.info("Blue Player Moves: {}", model.getBluePlayerMoveCounter());
+    /**
+     * Stops the background threads of the computer opponent, if any.
+     * A search still running is interrupted and its move is dropped.
+     */
+    private void shutdownComputer() {
+        if (computer != null) {
+            computer.shutdown();
+        }
     }
 
     /**
-     * Increments the move counter based on the current player's turn.
+     * Checks if the computer opponent is to move.
+     *
+     * @return true if there is a computer opponent and it is its turn
      */
-    private void incrementMoveCounter() {
-        if (!model.isPlayerRedTurn()) {
-            model.addRedPlayerMoveCounter();
-        } else {
-            model.addBluePlayerMoveCounter();
+    private boolean isComputerTurn() {
+        return computer != null
+                && computer.playsRed() == model.isPlayerRedTurn();
+    }
+
+    /**
+     * Starts the search of the computer's move in the background.
+     * The chosen move is fed through the same selection path
+     * as the clicks of a human player.
+     */
+    private void requestComputerMove() {
+        computerThinking = true;
+        computer.requestMove(model.getState(), move -> {
+            if (move < 0 || isThereIsAWWinner()) {
+                computerThinking = false;
+                return;
+            }
+            var size = model.getRules().getSize();
+            selector.reset();
+            if (!Move.isPlacement(move)) {
+                handleSelection(Move.from(move) / size,
+                        Move.from(move) % size);
+            }
+            handleSelection(Move.to(move) / size, Move.to(move) % size);
+            computerThinking = false;
+        });
+    }
+
+    /**
+     * Handles the key presses on the game board.
+     * Ctrl+Z takes back the last move and Ctrl+Y makes it again,
+     * as long as the game is not over.
+     *
+     * @param event The key event
+     */
+    private void handleKeyPress(final KeyEvent event) {
+        if (!event.isShortcutDown() || isThereIsAWWinner()
+                || computerThinking) {
+            return;
+        }
+        if (event.getCode() == KeyCode.Z) {
+            selector.reset();
+            model.undo();
+            if (isComputerTurn()) {
+                model.undo();
+            }
+            printOutMoveCounter();
+        } else if (event.getCode() == KeyCode.Y) {
+            selector.reset();
+            model.redo();
+            if (isComputerTurn()) {
+                model.redo();
+            }
+            handleEndGame();
+            printOutMoveCounter();
+        }
+        if (isComputerTurn() && !isThereIsAWWinner()) {
+            requestComputerMove();
         }
     }
+
+    /**
+     * Prints out the move counters for both the red and blue players.
+     */
+
+    private void printOutMoveCounter() {
+        Logger.info("Red Player Moves: {}", model.getRedPlayerMoveCounter());
+        Logger.info("Blue Player Moves: {}", model.getBluePlayerMoveCounter());
+    }
+
     /**
      * Handles the end of the game. Checks if the game has ended and
-     * performs the necessary actions.
+     * performs the necessary actions. The result is handed to the
+     * statistics window directly, as its record may still be queued
+     * for the disk.
      */
     private void handleEndGame() {
         if (checkEndGame()) {
             Logger.info("Game Over");
             setThereIsAWWinner(true);
             Logger.info(isThereIsAWWinner());
-            uiController.gameOver();
+            shutdownComputer();
+            uiController.gameOver(redCount > blueCount ? "Red" : "Blue",
+                    createState(redCount, blueCount));
 
         }
     }
@@ -328,56 +439,20 @@ public class BoardGameController {
         };
     }
 
-    /**
-     * Checks if there is an adjacent circle to the
-     * chosen position with the same currentPlayerSquare.
-     * @param row the row index of the position
-     * @param col the column index of the position
-     * @param currentPlayerSquare the square of the current player
-     * @return true if there is an adjacent circle with the same square,
-     * false otherwise
-     */
-    private boolean hasAdjacentCircle(final int row, final int col,
-                                      final Square currentPlayerSquare) {
-        for (int i = Math.max(0, row - 1);
-             i <= Math.min(BoardGameModel.BOARD_SIZE - 1, row + 1); i++) {
-            for (int j = Math.max(0, col - 1);
-                 j <= Math.min(BoardGameModel.BOARD_SIZE - 1, col + 1); j++) {
-                if (i != row || j != col) {
-                    if (model.getSquare(new Position(i, j))
-                            == currentPlayerSquare) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
     /**
      * Checks if the red player has won the game based
-     * on the number of red and blue circles on the board.
-     * If the red player has won, it logs the result
-     * and updates the data file.
+     * on the final score computed by {@link GameOutcome},
+     * including the empty squares of the last player able to move.
+     * It logs the result and updates the data file.
      *
      * @return true if the red player has won, false otherwise.
      */
     public boolean redWon() {
-
-        for (var i = 0; i < board.getRowCount(); i++) {
-            for (var j = 0; j < board.getColumnCount(); j++) {
-                var square = (StackPane)
-                     board.getChildren().get(i * BoardGameModel.BOARD_SIZE + j);
-                var circle = (Circle) square.getChildren().get(0);
-
-                if (circle.getFill().equals(Color.RED)) {
-                    redCount++;
-                } else if (circle.getFill().equals(Color.BLUE)) {
-                    blueCount++;
-                }
-            }
-        }
+        var outcome = GameOutcome.of(model.getState());
+        redCount = outcome.redScore();
+        blueCount = outcome.blueScore();
         return checkAndLogTheWin(redCount, blueCount, filePath);
-       }
+    }
 
 
     /**
@@ -395,7 +470,8 @@ public class BoardGameController {
 
     /**
      * Checks the counts of red and blue circles and determines the winner.
-     * Logs the result and updates the data file with the winner's information.
+     * Logs the result and queues the winner's information to be appended
+     * to the data file in the background.
      *
      * @param countRed the count of red circles
      * @param countBlue the count of blue circles
@@ -405,17 +481,17 @@ public class BoardGameController {
     public boolean checkAndLogTheWin(final int countRed,
                                      final int countBlue,
                                      final String pathOfFile) {
-        DataHandler writer = new DataHandler(pathOfFile);
+        StatisticsWriter writer = StatisticsWriter.of(pathOfFile);
 
         if (countRed > countBlue) {
             Logger.info("Red wins ({}:{})", countRed, countBlue);
-            writer.extendData("Red",
-model.getRedPlayerMoveCounter() + 1, createState(countRed, countBlue));
+            writer.submit("Red",
+model.getRedPlayerMoveCounter(), createState(countRed, countBlue));
             return true;
         } else {
             Logger.info("Blue wins ({}:{})", countBlue, countRed);
-            writer.extendData("Blue",
-model.getBluePlayerMoveCounter() + 1, createState(countRed, countBlue));
+            writer.submit("Blue",
+model.getBluePlayerMoveCounter(), createState(countRed, countBlue));
             return false;
         }
     }
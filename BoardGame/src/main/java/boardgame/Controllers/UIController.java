@@ -1,9 +1,12 @@
 package boardgame.Controllers;
 
+import boardgame.data.BinaryStatistics;
 import boardgame.data.Data;
+import boardgame.engine.ComputerPlayer;
+import boardgame.model.BoardGameModel;
+import boardgame.model.RuleSet;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -11,21 +14,44 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 import org.tinylog.Logger;
 import boardgame.data.DataHandler;
+import boardgame.data.PagedStatistics;
+import boardgame.data.StatisticsColumn;
+import boardgame.data.StatisticsColumns;
+import boardgame.data.StatisticsSummary;
+import boardgame.data.StatisticsWriter;
 
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class UIController {
 
+    /**
+     * The statistics shown in the window.
+     */
+    private static final String STATISTICS_FILE = "Statistic.segments";
+
+    /**
+     * The choice of the winner filter showing every game.
+     */
+    private static final String ALL_WINNERS = "All";
+
     /**
      * The TableView component to display statistics data.
      */
@@ -65,41 +91,256 @@ public class UIController {
     @FXML
     private Text winnerColorText;
     /**
-     * Initializes the UI and updates the statistics table.
+     * The number of rows and columns of the board of the next game.
+     */
+    @FXML
+    private Spinner<Integer> boardSize;
+    /**
+     * The summary of every game ever recorded, including the games the
+     * store has dropped since.
+     */
+    @FXML
+    private Text summaryText;
+    /**
+     * The winner of the games shown in the statistics table.
+     */
+    @FXML
+    private ChoiceBox<String> winnerFilter;
+    /**
+     * The handler of the statistics shown in the window.
+     */
+    private DataHandler reader;
+    /**
+     * The games in the order they were played, with every segment of the
+     * store opened, so a compaction cannot take them away while shown.
+     */
+    private StatisticsColumns history = StatisticsColumns.view(List.of());
+    /**
+     * Indicates whether the window shows the result of a finished game
+     * rather than the winner of the last recorded one.
+     */
+    private boolean resultShown;
+    /**
+     * The number of loads of the statistics requested, so only the
+     * latest one is shown.
+     */
+    private final AtomicLong loads = new AtomicLong();
+    /**
+     * The number of sorts and filters requested, so only the games of the
+     * latest one are shown.
+     */
+    private long queries;
+    /**
+     * Indicates whether the games of the table are being replaced.
+     */
+    private boolean replacingGames;
+    /**
+     * Initializes the UI and loads the statistics in the background.
+     * The statistics are loaded again after every batch of games the
+     * writer commits while the window is shown.
      */
     @FXML
     public void initialize() {
-        DataHandler reader = new DataHandler("Statistic.json") {
-        };
-        List<Data> dataList = reader.readData();
-
-        if (dataList != null) {
-            winnerColorText.setText(dataList.get(dataList.size()
-                    - 1).getWinnerColor());
-            ObservableList<Data> data = FXCollections
-                    .observableArrayList(dataList);
-            winner.setCellValueFactory(
-                    new PropertyValueFactory<>("winnerColor"));
-            moves.setCellValueFactory(
-                    new PropertyValueFactory<>("moveCounter"));
-            state.setCellValueFactory(
-                    new PropertyValueFactory<>("state"));
-            statisticTable.setItems(data);
-            Logger.info("Data base update is done");
-        } else {
-            Logger.info("Data base update failed.");
+        boardSize.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                        RuleSet.MIN_SIZE, RuleSet.MAX_SIZE,
+                        BoardGameModel.BOARD_SIZE));
+        reader = new DataHandler(STATISTICS_FILE);
+        winner.setCellValueFactory(
+                new PropertyValueFactory<>("winnerColor"));
+        moves.setCellValueFactory(
+                new PropertyValueFactory<>("moveCounter"));
+        state.setCellValueFactory(
+                new PropertyValueFactory<>("state"));
+        winnerFilter.getItems().setAll(ALL_WINNERS, "Red", "Blue");
+        winnerFilter.setValue(ALL_WINNERS);
+        winnerFilter.setOnAction(event -> statisticTable.sort());
+        statisticTable.setSortPolicy(table -> showGames());
+        summaryText.setText("");
+
+        var writer = StatisticsWriter.of(STATISTICS_FILE);
+        Runnable listener = this::loadStatistics;
+        writer.addCommitListener(listener);
+        statisticTable.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((observable, wasShown, isShown) -> {
+                    if (wasShown && !isShown) {
+                        writer.removeCommitListener(listener);
+                    }
+                });
+        loadStatistics();
+    }
+
+    /**
+     * Shows the result of the game just finished, which may not be
+     * committed to the statistics yet.
+     *
+     * @param winnerColor the winner color
+     * @param finalState  the final score as "red:blue"
+     */
+    public void showResult(final String winnerColor,
+                           final String finalState) {
+        resultShown = true;
+        winnerColorText.setText(winnerColor + " " + finalState);
+    }
+
+    /**
+     * Loads the games and the summary of the statistics on a background
+     * thread, migrating the store and rebuilding the summary if needed,
+     * then shows them. Called on any thread.
+     */
+    private void loadStatistics() {
+        var request = loads.incrementAndGet();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return new Snapshot(reader.openColumns(),
+                        reader.readSummary());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((snapshot, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Logger.error(error, "Error while reading the statistics");
+            } else if (request == loads.get()) {
+                showStatistics(snapshot);
+            }
+        }));
+    }
+
+    /**
+     * Shows the loaded games and summary, keeping the chosen filter and
+     * sort order of the table.
+     *
+     * @param snapshot the loaded statistics
+     */
+    private void showStatistics(final Snapshot snapshot) {
+        history = snapshot.games();
+        var size = history.size();
+        if (!resultShown && size > 0) {
+            winnerColorText.setText(history.getData(size - 1)
+                    .getWinnerColor());
         }
+        var summary = snapshot.summary();
+        summaryText.setText(String.format(
+                "All-time games: %d   Red wins: %.1f%%"
+                        + "   Average moves: %.1f"
+                        + "   Average margin: %+.1f (%d to %+d)",
+                summary.getGames(), 100 * summary.getRedWinRate(),
+                summary.getAverageMoves(), summary.getAverageMargin(),
+                summary.getMinMargin(), summary.getMaxMargin()));
+        statisticTable.sort();
         Logger.info("Statistics update done");
     }
     /**
-     * Handles the Game Over event and opens the statistics window.
+     * Shows the games of the chosen winner in the order of the sorted
+     * column of the table. The games are filtered and sorted on a
+     * background thread, straight from the mapped files of the store,
+     * and the table keeps its rows until they are ready. The table then
+     * pulls the rows it shows a page at a time. The state column is
+     * sorted by the score margin.
+     *
+     * @return true, as the games are shown once they are sorted
      */
-    @FXML
-    public void gameOver() {
+    private boolean showGames() {
+        if (replacingGames) {
+            return true;
+        }
+        var sortOrder = statisticTable.getSortOrder();
+        var filter = winnerFilter.getValue();
+        var request = ++queries;
+        var games = history;
+        if (sortOrder.isEmpty() && ALL_WINNERS.equals(filter)) {
+            setGames(new PagedStatistics(games.size(), games::getData));
+            return true;
+        }
+        StatisticsColumn key = null;
+        var descending = false;
+        if (!sortOrder.isEmpty()) {
+            var column = sortOrder.get(0);
+            key = column == winner
+                    ? StatisticsColumn.WINNER
+                    : column == moves
+                    ? StatisticsColumn.MOVES
+                    : StatisticsColumn.MARGIN;
+            descending = column.getSortType()
+                    == TableColumn.SortType.DESCENDING;
+        }
+        var sortKey = key;
+        var reversed = descending;
+        CompletableFuture.supplyAsync(
+                () -> queryGames(games, filter, sortKey, reversed))
+                .whenComplete((shown, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        Logger.error(error,
+                                "Error while sorting the statistics");
+                    } else if (request == queries) {
+                        setGames(shown);
+                    }
+                }));
+        return true;
+    }
+
+    /**
+     * Filters and sorts the games. Called on a background thread.
+     *
+     * @param columns    the games in the order they were played
+     * @param filter     the winner of the games, or {@value #ALL_WINNERS}
+     * @param key        the value the games are sorted by, or null to keep
+     *                   the order they were played in
+     * @param descending true for the largest values first
+     * @return the games, read a page at a time
+     */
+    private static List<Data> queryGames(final StatisticsColumns columns,
+                                         final String filter,
+                                         final StatisticsColumn key,
+                                         final boolean descending) {
+        var query = columns.select();
+        if (!ALL_WINNERS.equals(filter)) {
+            var red = "Red".equals(filter);
+            query = query.where(StatisticsColumn.WINNER, color ->
+                    (color == BinaryStatistics.RED) == red);
+        }
+        var rows = key == null
+                ? query.rows()
+                : query.sortedRows(key, descending);
+        return new PagedStatistics(rows.length,
+                index -> columns.getData(rows[index]));
+    }
+
+    /**
+     * Replaces the games shown in the statistics table. The table clears
+     * its sort order when its items are replaced, so the order is put
+     * back, while the sorts this triggers are ignored.
+     *
+     * @param games the games to show
+     */
+    private void setGames(final List<Data> games) {
+        var sortOrder = new ArrayList<>(statisticTable.getSortOrder());
+        replacingGames = true;
+        try {
+            statisticTable.setItems(FXCollections.observableList(games));
+            statisticTable.getSortOrder().setAll(sortOrder);
+        } finally {
+            replacingGames = false;
+        }
+    }
+
+    /**
+     * Handles the Game Over event and opens the statistics window,
+     * showing the result of the finished game.
+     *
+     * @param winnerColor the winner color
+     * @param finalState  the final score as "red:blue"
+     */
+    public void gameOver(final String winnerColor, final String finalState) {
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(getClass()
                     .getResource("/ui/menu.fxml"));
             Parent root = fxmlLoader.load();
+            UIController controller = fxmlLoader.getController();
+            controller.showResult(winnerColor, finalState);
             Stage stage = new Stage();
             stage.setScene(new Scene(root));
             stage.show();
@@ -118,8 +359,11 @@ public class UIController {
         try {
             Stage stage = (Stage)
                     ((Node) event.getSource()).getScene().getWindow();
-            Parent root =
-                    FXMLLoader.load(getClass().getResource("/ui/ui.fxml"));
+            FXMLLoader fxmlLoader =
+                    new FXMLLoader(getClass().getResource("/ui/ui.fxml"));
+            Parent root = fxmlLoader.load();
+            BoardGameController controller = fxmlLoader.getController();
+            controller.setRules(selectedRules());
             stage.setScene(new Scene(root));
             stage.show();
             Logger.info("Starting a new game");
@@ -127,6 +371,39 @@ public class UIController {
             Logger.info("There was an error during starting new game");
         }
     }
+    /**
+     * Starts a new game against the computer, which plays the blue circles.
+     *
+     * @param event The action event.
+     */
+    @FXML
+    public void startComputerGame(final ActionEvent event) {
+        try {
+            Stage stage = (Stage)
+                    ((Node) event.getSource()).getScene().getWindow();
+            FXMLLoader fxmlLoader =
+                    new FXMLLoader(getClass().getResource("/ui/ui.fxml"));
+            Parent root = fxmlLoader.load();
+            BoardGameController controller = fxmlLoader.getController();
+            var rules = selectedRules();
+            controller.setRules(rules);
+            controller.setComputerPlayer(new ComputerPlayer(rules, false,
+                    ComputerPlayer.DEFAULT_BUDGET_MILLIS));
+            stage.setScene(new Scene(root));
+            stage.show();
+            Logger.info("Starting a new game against the computer");
+        } catch (IOException e) {
+            Logger.info("There was an error during starting new game");
+        }
+    }
+    /**
+     * Returns the rules of the board size chosen in the menu.
+     *
+     * @return the rules of the next game
+     */
+    private RuleSet selectedRules() {
+        return RuleSet.ofSize(boardSize.getValue());
+    }
     /**
      * Handles the quit button event and exits the application.
      */
@@ -136,6 +413,16 @@ public class UIController {
         Platform.exit();
     }
 
+    /**
+     * The statistics loaded in the background.
+     *
+     * @param games   the games in the order they were played
+     * @param summary the summary of every game ever recorded
+     */
+    private record Snapshot(StatisticsColumns games,
+                            StatisticsSummary summary) {
+    }
+
 }
 
 
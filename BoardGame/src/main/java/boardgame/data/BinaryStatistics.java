@@ -0,0 +1,300 @@
+package boardgame.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The {@code BinaryStatistics} class reads a statistics file written by
+ * {@link BinaryStatisticsWriter}. The file is memory mapped, so opening
+ * it reads only the header, and the fields of a record are read straight
+ * from the mapping without creating a {@link Data} object.
+ *
+ * <p>The file starts with a {@value #HEADER_BYTES} byte header: the magic
+ * number, the format version and the size of a record. It is followed by
+ * fixed-width records of {@value #RECORD_BYTES} bytes: the winner, three
+ * bytes of padding, the move counter of the winner, the red and the blue
+ * score as ints and the time the game ended as milliseconds since the
+ * epoch, 0 if unknown. A record cut short by a crash is ignored.
+ */
+public class BinaryStatistics {
+
+    /**
+     * The winner byte of a game won by the red player.
+     */
+    public static final int RED = 0;
+
+    /**
+     * The winner byte of a game won by the blue player.
+     */
+    public static final int BLUE = 1;
+
+    /**
+     * The magic number at the start of the file.
+     */
+    static final int MAGIC = 0x42475354;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The size of a record in bytes.
+     */
+    static final int RECORD_BYTES = 24;
+
+    /**
+     * The offset of the winner in a record.
+     */
+    static final int WINNER_OFFSET = 0;
+
+    /**
+     * The offset of the move counter in a record.
+     */
+    static final int MOVES_OFFSET = 4;
+
+    /**
+     * The offset of the red score in a record.
+     */
+    static final int RED_OFFSET = 8;
+
+    /**
+     * The offset of the blue score in a record.
+     */
+    static final int BLUE_OFFSET = 12;
+
+    /**
+     * The offset of the time stamp in a record.
+     */
+    static final int TIME_OFFSET = 16;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The number of complete records.
+     */
+    private final int size;
+
+    /**
+     * Constructs a reader over a mapped file.
+     *
+     * @param mapped  the mapped file
+     * @param records the number of complete records
+     */
+    private BinaryStatistics(final MappedByteBuffer mapped,
+                             final int records) {
+        this.buffer = mapped;
+        this.size = records;
+    }
+
+    /**
+     * Opens a statistics file.
+     *
+     * @param file the statistics file
+     * @return the opened statistics
+     * @throws IOException if the file cannot be read, is not a statistics
+     * file or is larger than a mapping can be
+     */
+    public static BinaryStatistics open(final Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Statistics file too large: " + file);
+            }
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    length);
+            checkHeader(mapped, file);
+            return new BinaryStatistics(mapped,
+                    recordCount(length));
+        }
+    }
+
+    /**
+     * Writes the header of a statistics file.
+     *
+     * @param header the buffer positioned at the start of the file
+     */
+    static void writeHeader(final ByteBuffer header) {
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(RECORD_BYTES)
+                .putInt(0);
+    }
+
+    /**
+     * Checks the header of a statistics file.
+     *
+     * @param header the buffer holding at least the header
+     * @param file   the file, for the error message
+     * @throws IOException if the file is not a statistics file
+     */
+    static void checkHeader(final ByteBuffer header, final Path file)
+            throws IOException {
+        if (header.limit() < HEADER_BYTES
+                || header.getInt(0) != MAGIC
+                || header.getInt(4) != VERSION
+                || header.getInt(8) != RECORD_BYTES) {
+            throw new IOException("Not a statistics file: " + file);
+        }
+    }
+
+    /**
+     * Returns the number of complete records of a file.
+     *
+     * @param length the length of the file in bytes
+     * @return the number of records
+     */
+    static int recordCount(final long length) {
+        return (int) ((length - HEADER_BYTES) / RECORD_BYTES);
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of games
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the winner of a game.
+     *
+     * @param index the index of the record
+     * @return {@link #RED} or {@link #BLUE}
+     */
+    public int winner(final int index) {
+        return buffer.get(offset(index) + WINNER_OFFSET);
+    }
+
+    /**
+     * Returns the move counter of the winner of a game.
+     *
+     * @param index the index of the record
+     * @return the number of moves of the winner
+     */
+    public int moveCounter(final int index) {
+        return buffer.getInt(offset(index) + MOVES_OFFSET);
+    }
+
+    /**
+     * Returns the final score of the red player.
+     *
+     * @param index the index of the record
+     * @return the red score
+     */
+    public int redScore(final int index) {
+        return buffer.getInt(offset(index) + RED_OFFSET);
+    }
+
+    /**
+     * Returns the final score of the blue player.
+     *
+     * @param index the index of the record
+     * @return the blue score
+     */
+    public int blueScore(final int index) {
+        return buffer.getInt(offset(index) + BLUE_OFFSET);
+    }
+
+    /**
+     * Returns the time the game ended.
+     *
+     * @param index the index of the record
+     * @return milliseconds since the epoch, 0 if unknown
+     */
+    public long timestamp(final int index) {
+        return buffer.getLong(offset(index) + TIME_OFFSET);
+    }
+
+    /**
+     * Creates the {@link Data} object of a record.
+     *
+     * @param index the index of the record
+     * @return the record as {@link Data}
+     */
+    public Data getData(final int index) {
+        return new Data(winner(index) == RED ? "Red" : "Blue",
+                moveCounter(index),
+                redScore(index) + ":" + blueScore(index));
+    }
+
+    /**
+     * Returns a read-only list view of the records. A {@link Data} object
+     * is only created when an element is read.
+     *
+     * @return the records as a list
+     */
+    public List<Data> asList() {
+        return new DataView();
+    }
+
+    /**
+     * Returns the records as a stream, creating the {@link Data} objects
+     * one at a time as the stream is consumed.
+     *
+     * @return the records in the order they were appended
+     */
+    public Stream<Data> stream() {
+        return IntStream.range(0, size).mapToObj(this::getData);
+    }
+
+    /**
+     * Returns the offset of a record in the file.
+     *
+     * @param index the index of the record
+     * @return the offset in bytes
+     * @throws IndexOutOfBoundsException if there is no such record
+     */
+    private int offset(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * The list view of the records.
+     */
+    private final class DataView extends AbstractList<Data>
+            implements RandomAccess {
+
+        /**
+         * Creates the {@link Data} object of a record.
+         *
+         * @param index the index of the record
+         * @return the record as {@link Data}
+         */
+        @Override
+        public Data get(final int index) {
+            return getData(index);
+        }
+
+        /**
+         * Returns the number of records.
+         *
+         * @return the number of games
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package boardgame.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * The {@code BinaryStatisticsWriter} class appends fixed-width records
+ * to a statistics file read by {@link BinaryStatistics}.
+ * A record given to {@code append} is written with a single positional
+ * write and forced to the disk; {@link #appendAll(Stream, long, boolean)}
+ * writes many records at once and forces them only if asked to.
+ * A record cut short by a crash is cut off when the file is opened again,
+ * so the next record starts at a record boundary.
+ */
+public class BinaryStatisticsWriter implements Closeable {
+
+    /**
+     * The number of records written at once by
+     * {@link #appendAll(Stream, long, boolean)}.
+     */
+    static final int BATCH_RECORDS = 4096;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer a record is encoded into.
+     */
+    private final ByteBuffer record =
+            ByteBuffer.allocate(BinaryStatistics.RECORD_BYTES);
+
+    /**
+     * The size of the file in bytes.
+     */
+    private long size;
+
+    /**
+     * Opens a statistics file for appending, creating it if it does not
+     * exist.
+     *
+     * @param file the statistics file
+     * @throws IOException if the file cannot be opened
+     * or is not a statistics file
+     */
+    public BinaryStatisticsWriter(final Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            size = channel.size();
+            if (size == 0) {
+                var header = ByteBuffer.allocate(BinaryStatistics.HEADER_BYTES);
+                BinaryStatistics.writeHeader(header);
+                write(header.flip());
+                return;
+            }
+            var header = ByteBuffer.allocate(BinaryStatistics.HEADER_BYTES);
+            channel.read(header, 0);
+            BinaryStatistics.checkHeader(header.flip(), file);
+            var complete = BinaryStatistics.HEADER_BYTES
+                    + (long) BinaryStatistics.recordCount(size)
+                    * BinaryStatistics.RECORD_BYTES;
+            if (complete < size) {
+                channel.truncate(complete);
+                size = complete;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the record of a finished game.
+     *
+     * @param redWon      true if the red player won
+     * @param moveCounter the move counter of the winner
+     * @param redScore    the final score of the red player
+     * @param blueScore   the final score of the blue player
+     * @param timestamp   the time the game ended in milliseconds since
+     *                    the epoch, 0 if unknown
+     * @throws IOException if the record cannot be written
+     */
+    public void append(final boolean redWon, final int moveCounter,
+                       final int redScore, final int blueScore,
+                       final long timestamp) throws IOException {
+        append(redWon, moveCounter, redScore, blueScore, timestamp, true);
+    }
+
+    /**
+     * Appends the record of a finished game, forcing it to the disk only
+     * if asked to.
+     *
+     * @param redWon      true if the red player won
+     * @param moveCounter the move counter of the winner
+     * @param redScore    the final score of the red player
+     * @param blueScore   the final score of the blue player
+     * @param timestamp   the time the game ended, 0 if unknown
+     * @param force       true to force the record to the disk
+     * @throws IOException if the record cannot be written
+     */
+    public void append(final boolean redWon, final int moveCounter,
+                       final int redScore, final int blueScore,
+                       final long timestamp, final boolean force)
+            throws IOException {
+        encode(redWon, moveCounter, redScore, blueScore, timestamp);
+        writeFully(record.flip());
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Appends a record given as {@link Data}, whose state holds the
+     * final score as "red:blue".
+     *
+     * @param data      the record
+     * @param timestamp the time the game ended, 0 if unknown
+     * @throws IOException if the record cannot be written
+     * @throws IllegalArgumentException if the state is not a score
+     */
+    public void append(final Data data, final long timestamp)
+            throws IOException {
+        var scores = parseState(data.getState());
+        append("Red".equals(data.getWinnerColor()), data.getMoveCounter(),
+                scores[0], scores[1], timestamp);
+    }
+
+    /**
+     * Appends a stream of records in batches of {@value #BATCH_RECORDS}
+     * records per write, with at most a single force at the end.
+     *
+     * @param records   the records
+     * @param timestamp the time stamp of every record, 0 if unknown
+     * @param force     true to force the records to the disk
+     * @return the number of records appended
+     * @throws IOException if the records cannot be written
+     * @throws IllegalArgumentException if a state is not a score
+     */
+    public long appendAll(final Stream<Data> records, final long timestamp,
+                          final boolean force) throws IOException {
+        var buffer = ByteBuffer.allocate(
+                BATCH_RECORDS * BinaryStatistics.RECORD_BYTES);
+        var count = 0L;
+        for (var it = records.iterator(); it.hasNext();) {
+            var data = it.next();
+            var scores = parseState(data.getState());
+            encode("Red".equals(data.getWinnerColor()),
+                    data.getMoveCounter(), scores[0], scores[1], timestamp);
+            buffer.put(record.flip());
+            count++;
+            if (!buffer.hasRemaining()) {
+                writeFully(buffer.flip());
+                buffer.clear();
+            }
+        }
+        writeFully(buffer.flip());
+        if (force) {
+            channel.force(false);
+        }
+        return count;
+    }
+
+    /**
+     * Forces the records appended so far to the disk.
+     *
+     * @throws IOException if the file cannot be forced
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Encodes a record into the record buffer.
+     *
+     * @param redWon      true if the red player won
+     * @param moveCounter the move counter of the winner
+     * @param redScore    the final score of the red player
+     * @param blueScore   the final score of the blue player
+     * @param timestamp   the time the game ended
+     */
+    private void encode(final boolean redWon, final int moveCounter,
+                        final int redScore, final int blueScore,
+                        final long timestamp) {
+        record.clear();
+        record.put((byte) (redWon
+                        ? BinaryStatistics.RED
+                        : BinaryStatistics.BLUE))
+                .put(new byte[BinaryStatistics.MOVES_OFFSET - 1])
+                .putInt(moveCounter)
+                .putInt(redScore)
+                .putInt(blueScore)
+                .putLong(timestamp);
+    }
+
+    /**
+     * Writes a buffer at the end of the file and forces it to the disk.
+     *
+     * @param buffer the bytes to write
+     * @throws IOException if the bytes cannot be written
+     */
+    private void write(final ByteBuffer buffer) throws IOException {
+        writeFully(buffer);
+        channel.force(false);
+    }
+
+    /**
+     * Writes a buffer at the end of the file.
+     *
+     * @param buffer the bytes to write
+     * @throws IOException if the bytes cannot be written
+     */
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer, size);
+        }
+    }
+
+    /**
+     * Parses a state of the form "red:blue".
+     *
+     * @param state the state of a {@link Data} record
+     * @return the red and the blue score
+     * @throws IllegalArgumentException if the state is not a score
+     */
+    static int[] parseState(final String state) {
+        var colon = state == null ? -1 : state.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Not a score: " + state);
+        }
+        return new int[] {
+                Integer.parseInt(state.substring(0, colon).trim()),
+                Integer.parseInt(state.substring(colon + 1).trim())
+        };
+    }
+}
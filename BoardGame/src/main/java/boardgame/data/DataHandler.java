@@ -2,20 +2,96 @@ package boardgame.data;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import org.tinylog.Logger;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * The {@code DataHandler} class keeps the statistics of the finished
+ * games in an append-only log: one JSON object per line. Recording a game
+ * appends a single line, however long the history is, and forces it to
+ * the disk. A crash can only leave the last line incomplete; such a line
+ * is skipped when reading and is closed by the next append.
+ *
+ * <p>Older versions wrote the statistics as a single pretty-printed JSON
+ * array. Such files are still read, and are converted to the log the first
+ * time a game is appended, see {@link #migrate()}.
+ *
+ * <p>A path ending with {@value #BINARY_EXTENSION} selects the compact
+ * binary format of {@link BinaryStatistics} instead. Its records are read
+ * from a memory mapped file and {@link #readData()} returns a list view
+ * creating the {@link Data} objects only when they are read.
+ *
+ * <p>A path ending with {@value #SEGMENTED_EXTENSION} names the directory
+ * of a {@link SegmentedStatistics} store, which splits the history into
+ * size-capped segments of the binary format and compacts them in the
+ * background.
+ *
+ * <p>Several threads and processes can record games into the same
+ * statistics at once. Every append and migration holds a lock file next
+ * to the statistics, see {@link ProcessLock}, so the end of the file is
+ * read and written by one writer at a time and no record is lost.
+ *
+ * <p>Every append also updates a {@link StatisticsSummary} kept next to
+ * the statistics, so {@link #readSummary()} answers summary queries
+ * without reading the games. The summary covers the whole history: the
+ * games a segmented store drops when it compacts stay counted.
+ */
 public class DataHandler {
 
+    /**
+     * The line separator of the log.
+     */
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * The extension of the statistics files in the binary format.
+     */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /**
+     * The extension of the segmented statistics directories.
+     */
+    public static final String SEGMENTED_EXTENSION = ".segments";
+
+    /**
+     * The suffix of the file locked while the statistics are written.
+     */
+    private static final String LOCK_SUFFIX = ".lock";
+
+    /**
+     * The suffix of the file holding the summary of the statistics.
+     */
+    private static final String SUMMARY_SUFFIX = ".summary";
+
+    /**
+     * The extension of the statistics files in the JSON format.
+     */
+    private static final String JSON_EXTENSION = ".json";
+
     /**
      * The file path used for reading and writing data.
      */
@@ -33,23 +109,10 @@ public class DataHandler {
      */
     public DataHandler(final String pathOftheFile) {
         this.filePath = pathOftheFile;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = new GsonBuilder().create();
         Logger.info("DataHandler initialized. File path: " + pathOftheFile);
     }
-    /**
-     * Writes the data to the file.
-     *
-     * @param dataList The list of data to be written.
-     */
-    private void writeData(final List<Data> dataList) {
-        try (Writer writer = new FileWriter(filePath)) {
-            gson.toJson(dataList, writer);
-            writer.flush();
-            Logger.info("Data written to the file: " + filePath);
-        } catch (IOException e) {
-            Logger.error("Error while writing data to file: " + filePath, e);
-        }
-    }
+
     /**
      * Appends new data to the file.
      *
@@ -60,27 +123,644 @@ public class DataHandler {
     public void extendData(final String winnerColor,
                   final int moveCounterOfTheWinner, final String state) {
         Data data = new Data(winnerColor, moveCounterOfTheWinner, state);
-        List<Data> dataList = readData();
-        dataList.add(data);
-        writeData(dataList);
-        Logger.info("Appended new data: " + data);
+        try {
+            appendData(List.of(data), true);
+            Logger.info("Appended new data: " + data);
+        } catch (IOException e) {
+            Logger.error("Error while writing data to file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Appends a batch of records to the file with a single write.
+     *
+     * @param batch the records to append
+     * @param force true to force the records to the disk before returning
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the state of a record is not
+     * a score and the file is in the binary format
+     */
+    public void appendData(final List<Data> batch, final boolean force)
+            throws IOException {
+        try (var lock = ProcessLock.acquire(lockFile())) {
+            lock.ensureHeld();
+            convert();
+            var summary = loadSummary();
+            if (isSegmented()) {
+                SegmentedStatistics.of(Path.of(filePath)).append(
+                        batch.stream(), System.currentTimeMillis(), force);
+            } else if (isBinary()) {
+                try (var writer = new BinaryStatisticsWriter(
+                        Path.of(filePath))) {
+                    writer.appendAll(batch.stream(),
+                            System.currentTimeMillis(), force);
+                }
+            } else {
+                append(batch, force);
+            }
+            for (var data : batch) {
+                summary.add(data);
+            }
+            summary.setCovered(extent());
+            summary.write(summaryFile());
+        }
+    }
+
+    /**
+     * Appends records to the log as a single write. If the log does not
+     * end with a complete line, the records start on a new line.
+     *
+     * @param batch the records to append
+     * @param force true to force the records to the disk
+     * @throws IOException if the file cannot be written
+     */
+    private void append(final List<Data> batch, final boolean force)
+            throws IOException {
+        var lines = new StringBuilder();
+        for (var data : batch) {
+            lines.append(gson.toJson(data)).append('\n');
+        }
+        var bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        try (var channel = FileChannel.open(Path.of(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            var size = channel.size();
+            var buffer = ByteBuffer.allocate(bytes.length + 1);
+            if (size > 0 && !endsWithNewline(channel, size)) {
+                buffer.put(NEWLINE);
+            }
+            buffer.put(bytes).flip();
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Checks if a file ends with a line separator.
+     *
+     * @param channel the channel of the file
+     * @param size    the size of the file, at least one byte
+     * @return true if the last byte is a line separator
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean endsWithNewline(final FileChannel channel,
+                                           final long size)
+            throws IOException {
+        var last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) == NEWLINE;
+    }
+
+    /**
+     * Checks if the file is in the binary format.
+     *
+     * @return true if the path ends with {@value #BINARY_EXTENSION}
+     */
+    public boolean isBinary() {
+        return filePath.endsWith(BINARY_EXTENSION);
+    }
+
+    /**
+     * Returns the aggregates of every recorded game without reading the
+     * games. The summary is kept in a file of fixed size next to the
+     * statistics and is updated by every append. If it is missing, as
+     * for statistics written by older versions, it is computed once from
+     * the games, and if it lags behind the statistics, as after a crash
+     * in the middle of an append, the games it misses are added.
+     *
+     * @return the summary of the statistics
+     * @throws IOException if the statistics cannot be read
+     */
+    public StatisticsSummary readSummary() throws IOException {
+        var file = summaryFile();
+        if (Files.exists(file)) {
+            try {
+                var summary = StatisticsSummary.read(file);
+                if (summary.getCovered() == extent()) {
+                    return summary;
+                }
+            } catch (IOException e) {
+                Logger.warn("Rebuilding the unreadable summary {}", file);
+            }
+        }
+        try (var lock = ProcessLock.acquire(lockFile())) {
+            lock.ensureHeld();
+            convert();
+            return loadSummary();
+        }
+    }
+
+    /**
+     * Reads the summary while the lock file is held. A summary lagging
+     * behind the statistics is brought up to date with the games it
+     * misses; a missing or unreadable one, or one the games it misses
+     * are no longer kept for, is computed again from the games.
+     *
+     * @return the summary of the statistics
+     * @throws IOException if the statistics cannot be read
+     */
+    private StatisticsSummary loadSummary() throws IOException {
+        var file = summaryFile();
+        var extent = extent();
+        StatisticsSummary summary = null;
+        if (Files.exists(file)) {
+            try {
+                summary = StatisticsSummary.read(file);
+            } catch (IOException e) {
+                Logger.warn("Rebuilding the unreadable summary {}", file);
+            }
+        }
+        if (summary != null && summary.getCovered() == extent) {
+            return summary;
+        }
+        var missed = summary == null
+                ? null
+                : streamRecordsAfter(summary.getCovered(), extent);
+        if (missed == null) {
+            Logger.warn("Computing the summary {}", file);
+            missed = Files.exists(Path.of(filePath))
+                    ? streamRecords()
+                    : Stream.empty();
+            summary = new StatisticsSummary();
+        } else {
+            Logger.warn("Catching up the summary {}", file);
+        }
+        try (var records = missed) {
+            for (var it = records.iterator(); it.hasNext();) {
+                summary.add(it.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        summary.setCovered(extent);
+        summary.write(file);
+        return summary;
+    }
+
+    /**
+     * Returns how far the statistics reach, in the units of
+     * {@link StatisticsSummary#getCovered()}.
+     *
+     * @return the size of a log in bytes, the number of records of a
+     * binary file, or the number of records ever appended to a segmented
+     * store
+     * @throws IOException if the statistics cannot be read
+     */
+    private long extent() throws IOException {
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            return Files.exists(path)
+                    ? SegmentedStatistics.of(path).appended()
+                    : 0;
+        }
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        if (isBinary()) {
+            return BinaryStatistics.recordCount(Files.size(path));
+        }
+        return Files.size(path);
+    }
+
+    /**
+     * Returns the records between two extents of the statistics, as
+     * given by {@link #extent()}, the first of which a summary covers.
+     *
+     * @param covered the extent a summary covers
+     * @param extent  the current extent
+     * @return the records the summary misses, or null if they cannot be
+     * told apart, as the summary reaches beyond the statistics or a
+     * compaction has dropped some of them
+     * @throws IOException if the statistics cannot be read
+     */
+    private Stream<Data> streamRecordsAfter(final long covered,
+                                            final long extent)
+            throws IOException {
+        if (covered < 0 || covered > extent) {
+            return null;
+        }
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            var missed = SegmentedStatistics.of(path).appendedAfter(covered);
+            return missed == null ? null : missed.stream();
+        }
+        if (isBinary()) {
+            return BinaryStatistics.open(path).asList()
+                    .subList((int) covered, (int) extent).stream();
+        }
+        var in = Files.newInputStream(path);
+        try {
+            in.skipNBytes(covered);
+            var reader = new BufferedReader(new InputStreamReader(in,
+                    StandardCharsets.UTF_8));
+            return reader.lines()
+                    .map(this::parseLine)
+                    .filter(Objects::nonNull)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file holding the summary of the statistics.
+     *
+     * @return the path of the statistics followed by
+     * {@value #SUMMARY_SUFFIX}
+     */
+    private Path summaryFile() {
+        return Path.of(filePath + SUMMARY_SUFFIX);
+    }
+
+    /**
+     * Returns the file locked while the statistics are written.
+     *
+     * @return the path of the statistics followed by {@value #LOCK_SUFFIX}
+     */
+    private Path lockFile() {
+        return Path.of(filePath + LOCK_SUFFIX);
+    }
+
+    /**
+     * Checks if the path names a segmented store.
+     *
+     * @return true if the path ends with {@value #SEGMENTED_EXTENSION}
+     */
+    public boolean isSegmented() {
+        return filePath.endsWith(SEGMENTED_EXTENSION);
+    }
+
+    /**
+     * Converts a statistics file written as a JSON array into the log.
+     * The records are streamed into a temporary file, which then replaces
+     * the original, so the history is never lost half-way.
+     * Files already in the log format are left untouched.
+     *
+     * <p>A binary file that does not exist yet is created from the JSON
+     * statistics file of the same name, if there is one. A segmented
+     * store that does not exist yet is created from the binary or, if
+     * there is none, the JSON statistics file of the same name.
+     *
+     * @return the number of records converted, 0 if there was nothing
+     * to convert
+     * @throws IOException if the file cannot be read or written
+     */
+    public long migrate() throws IOException {
+        try (var lock = ProcessLock.acquire(lockFile())) {
+            lock.ensureHeld();
+            return convert();
+        }
+    }
+
+    /**
+     * Performs {@link #migrate()} while the lock file is held.
+     *
+     * @return the number of records converted
+     * @throws IOException if the file cannot be read or written
+     */
+    private long convert() throws IOException {
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            return importSegments(path);
+        }
+        if (isBinary()) {
+            return importJson(path);
+        }
+        if (!isJsonArray(path)) {
+            return 0;
+        }
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        var count = 0L;
+        try (var records = streamData();
+             Writer writer = Files.newBufferedWriter(temporary,
+                     StandardCharsets.UTF_8)) {
+            for (var it = records.iterator(); it.hasNext();) {
+                writer.write(gson.toJson(it.next()));
+                writer.write('\n');
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Logger.info("Migrated {} records of {} to the log format",
+                count, filePath);
+        return count;
+    }
+
+    /**
+     * Creates a missing binary file from the JSON statistics file
+     * of the same name.
+     *
+     * @param path the path of the binary file
+     * @return the number of records imported
+     * @throws IOException if a file cannot be read or written
+     */
+    private long importJson(final Path path) throws IOException {
+        var name = path.getFileName().toString();
+        var json = path.resolveSibling(name.substring(0,
+                name.length() - BINARY_EXTENSION.length()) + JSON_EXTENSION);
+        if (Files.exists(path) || !Files.exists(json)) {
+            return 0;
+        }
+        var temporary = path.resolveSibling(name + ".tmp");
+        long count;
+        try (var records = new DataHandler(json.toString()).streamData();
+             var writer = new BinaryStatisticsWriter(temporary)) {
+            count = writer.appendAll(records, 0, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Logger.info("Imported {} records of {} into {}", count, json,
+                filePath);
+        return count;
+    }
+
+    /**
+     * Creates a missing segmented store from the binary or the JSON
+     * statistics file of the same name. The store is built in a temporary
+     * directory, which then takes its name.
+     *
+     * @param path the directory of the store
+     * @return the number of records imported
+     * @throws IOException if a file cannot be read or written
+     */
+    private long importSegments(final Path path) throws IOException {
+        var name = path.getFileName().toString();
+        var base = name.substring(0,
+                name.length() - SEGMENTED_EXTENSION.length());
+        var source = path.resolveSibling(base + BINARY_EXTENSION);
+        if (!Files.exists(source)) {
+            source = path.resolveSibling(base + JSON_EXTENSION);
+        }
+        if (Files.exists(path) || !Files.exists(source)) {
+            return 0;
+        }
+        var temporary = path.resolveSibling(name + ".tmp");
+        long count;
+        try (var records = new DataHandler(source.toString()).streamData();
+             var store = new SegmentedStatistics(temporary,
+                     SegmentedStatistics.DEFAULT_SEGMENT_BYTES,
+                     SegmentedStatistics.DEFAULT_RETENTION)) {
+            count = store.append(records, 0, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        Logger.info("Imported {} records of {} into {}", count, source,
+                filePath);
+        return count;
+    }
+
+    /**
+     * Checks if a file holds the statistics as a JSON array,
+     * that is its first character other than whitespace is '['.
+     *
+     * @param path the path of the file
+     * @return true if the file is in the old format
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean isJsonArray(final Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            int c;
+            do {
+                c = in.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c == '[';
+        }
     }
 
     /**
      * Reads the data from the file.
+     * The whole history is held in memory, unless the file is in the
+     * binary format or a segmented store; use {@link #streamData()}
+     * to visit the records one at a time.
      *
      * @return The list of read data.
      */
     public List<Data> readData() {
-        try {
-            String fileContent =
-                    Files.readString(Path.of(filePath), StandardCharsets.UTF_8);
+        if (isSegmented()) {
+            try {
+                migrate();
+                return SegmentedStatistics.of(Path.of(filePath)).asList();
+            } catch (IOException e) {
+                Logger.error("Error while reading data", e);
+                return new ArrayList<>();
+            }
+        }
+        if (isBinary()) {
+            try {
+                migrate();
+                return BinaryStatistics.open(Path.of(filePath)).asList();
+            } catch (IOException e) {
+                Logger.error("Error while reading data", e);
+                return new ArrayList<>();
+            }
+        }
+        try (var records = streamData()) {
+            List<Data> dataList =
+                    records.collect(Collectors.toCollection(ArrayList::new));
             Logger.info("Data loaded from file: " + filePath);
-            return gson.fromJson(fileContent,
-                    new TypeToken<List<Data>>() { }.getType());
-        } catch (IOException e) {
+            return dataList;
+        } catch (IOException | UncheckedIOException | JsonParseException e) {
             Logger.error("Error while reading data", e);
             return new ArrayList<>();
         }
     }
+
+    /**
+     * Loads the records into primitive columns for queries, see
+     * {@link StatisticsColumns}. The binary formats are loaded straight
+     * from their mapped files.
+     *
+     * @return the columns of the records
+     * @throws IOException if the file cannot be read
+     */
+    public StatisticsColumns readColumns() throws IOException {
+        if (isSegmented() || isBinary()) {
+            migrate();
+        }
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            return StatisticsColumns.of(
+                    SegmentedStatistics.of(path).openSegments());
+        }
+        if (isBinary()) {
+            if (!Files.exists(path)) {
+                return StatisticsColumns.of(List.of());
+            }
+            return StatisticsColumns.of(List.of(BinaryStatistics.open(path)));
+        }
+        if (!Files.exists(path)) {
+            return StatisticsColumns.of(Stream.empty());
+        }
+        try (var records = streamRecords()) {
+            return StatisticsColumns.of(records);
+        } catch (UncheckedIOException | JsonParseException e) {
+            throw new IOException("Error while reading " + filePath, e);
+        }
+    }
+
+    /**
+     * Opens the records as columns for queries without loading them. The
+     * binary formats are queried straight from their mapped files, see
+     * {@link StatisticsColumns#view(List)}, so opening them costs the
+     * same however long the history is. A log has no such view and is
+     * loaded as by {@link #readColumns()}.
+     *
+     * @return the columns of the records
+     * @throws IOException if the file cannot be read
+     */
+    public StatisticsColumns openColumns() throws IOException {
+        if (!isSegmented() && !isBinary()) {
+            return readColumns();
+        }
+        migrate();
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            return StatisticsColumns.view(
+                    SegmentedStatistics.of(path).openSegments());
+        }
+        if (!Files.exists(path)) {
+            return StatisticsColumns.view(List.of());
+        }
+        return StatisticsColumns.view(List.of(BinaryStatistics.open(path)));
+    }
+
+    /**
+     * Returns the records of the file as a lazily read stream, so the
+     * history can be visited in constant memory whatever its length.
+     * Records are parsed one at a time as the stream is consumed:
+     * the elements of a JSON array with a {@link JsonReader}, the lines
+     * of the log one by one, skipping incomplete ones, and the records
+     * of a binary file from its mapping, one segment after the other
+     * for a segmented store.
+     * The stream holds the file open and has to be closed.
+     *
+     * @return the records in the order they were appended
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<Data> streamData() throws IOException {
+        if (isSegmented() || isBinary()) {
+            migrate();
+        }
+        return streamRecords();
+    }
+
+    /**
+     * Performs {@link #streamData()} without migrating the file first.
+     *
+     * @return the records in the order they were appended
+     * @throws IOException if the file cannot be opened
+     */
+    private Stream<Data> streamRecords() throws IOException {
+        var path = Path.of(filePath);
+        if (isSegmented()) {
+            return SegmentedStatistics.of(path).stream();
+        }
+        if (isBinary()) {
+            return BinaryStatistics.open(path).stream();
+        }
+        var array = isJsonArray(path);
+        var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        try {
+            Stream<Data> records;
+            if (array) {
+                records = StreamSupport.stream(
+                        new ArraySpliterator(reader), false);
+            } else {
+                records = reader.lines()
+                        .map(this::parseLine)
+                        .filter(Objects::nonNull);
+            }
+            return records.onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a line of the log.
+     *
+     * @param line the line
+     * @return the record, or null if the line is blank or incomplete
+     */
+    private Data parseLine(final String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            return gson.fromJson(line, Data.class);
+        } catch (JsonParseException e) {
+            Logger.warn("Skipped an incomplete record of {}", filePath);
+            return null;
+        }
+    }
+
+    /**
+     * Parses the elements of a JSON array one at a time.
+     */
+    private final class ArraySpliterator
+            extends Spliterators.AbstractSpliterator<Data> {
+
+        /**
+         * The reader positioned inside the array.
+         */
+        private final JsonReader json;
+
+        /**
+         * Starts reading a JSON array.
+         *
+         * @param reader the reader of the file
+         * @throws IOException if the array cannot be opened
+         */
+        ArraySpliterator(final BufferedReader reader) throws IOException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.json = new JsonReader(reader);
+            json.beginArray();
+        }
+
+        /**
+         * Parses the next element of the array.
+         *
+         * @param action the consumer of the element
+         * @return false if the end of the array is reached
+         */
+        @Override
+        public boolean tryAdvance(final Consumer<? super Data> action) {
+            try {
+                if (!json.hasNext()) {
+                    return false;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            action.accept(gson.fromJson(json, Data.class));
+            return true;
+        }
+    }
 }
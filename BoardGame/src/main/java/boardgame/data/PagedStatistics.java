@@ -0,0 +1,117 @@
+package boardgame.data;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * The {@code PagedStatistics} class is a read-only list of games that
+ * pulls them from the store a page at a time. Only the pages being read
+ * are held, the most recently read {@value #CACHED_PAGES} of them, so a
+ * table showing the list holds a few hundred games however long the
+ * history is, and creating the list costs nothing.
+ */
+public class PagedStatistics extends AbstractList<Data>
+        implements RandomAccess {
+
+    /**
+     * The number of games of a page.
+     */
+    public static final int PAGE_SIZE = 128;
+
+    /**
+     * The number of pages held.
+     */
+    public static final int CACHED_PAGES = 8;
+
+    /**
+     * The number of games.
+     */
+    private final int size;
+
+    /**
+     * Reads a game from the store.
+     */
+    private final IntFunction<Data> source;
+
+    /**
+     * The pages held, the least recently read first.
+     */
+    private final Map<Integer, Data[]> pages =
+            new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+
+                /**
+                 * Drops the least recently read page when there are
+                 * too many.
+                 *
+                 * @param eldest the least recently read page
+                 * @return true if the page is dropped
+                 */
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<Integer, Data[]> eldest) {
+                    return size() > CACHED_PAGES;
+                }
+            };
+
+    /**
+     * The number of pages pulled from the store.
+     */
+    private long pageLoads;
+
+    /**
+     * Creates a list of games.
+     *
+     * @param games  the number of games
+     * @param reader reads a game from the store by its index in the list
+     */
+    public PagedStatistics(final int games, final IntFunction<Data> reader) {
+        this.size = games;
+        this.source = reader;
+    }
+
+    /**
+     * Returns a game, pulling its page from the store if it is not held.
+     *
+     * @param index the index of the game
+     * @return the game
+     */
+    @Override
+    public Data get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        var page = pages.get(index / PAGE_SIZE);
+        if (page == null) {
+            var first = index / PAGE_SIZE * PAGE_SIZE;
+            page = new Data[Math.min(PAGE_SIZE, size - first)];
+            for (var i = 0; i < page.length; i++) {
+                page[i] = source.apply(first + i);
+            }
+            pages.put(index / PAGE_SIZE, page);
+            pageLoads++;
+        }
+        return page[index % PAGE_SIZE];
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of pages pulled from the store so far.
+     *
+     * @return the page loads
+     */
+    public long getPageLoads() {
+        return pageLoads;
+    }
+}
@@ -0,0 +1,169 @@
+package boardgame.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code ProcessLock} class is an exclusive lock shared by the
+ * threads of this JVM and by every other process on the host, held on a
+ * lock file. A file lock belongs to the whole JVM, so the threads of this
+ * JVM first queue on a lock of their own, and only the thread holding it
+ * locks the file. The lock is not reentrant.
+ *
+ * <p>The lock file is kept apart from the files it guards, so it stays
+ * valid when those are replaced by a rename.
+ */
+final class ProcessLock implements Closeable {
+
+    /**
+     * The locks of this JVM, by lock file.
+     */
+    private static final Map<Path, ReentrantLock> LOCAL =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The lock of this JVM.
+     */
+    private final ReentrantLock local;
+
+    /**
+     * The channel of the lock file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The lock of the file.
+     */
+    private final FileLock lock;
+
+    /**
+     * Creates a held lock.
+     *
+     * @param localLock   the lock of this JVM
+     * @param lockChannel the channel of the lock file
+     * @param fileLock    the lock of the file
+     */
+    private ProcessLock(final ReentrantLock localLock,
+                        final FileChannel lockChannel,
+                        final FileLock fileLock) {
+        this.local = localLock;
+        this.channel = lockChannel;
+        this.lock = fileLock;
+    }
+
+    /**
+     * Locks a lock file, waiting for the threads and processes holding
+     * it, and creates the file if it does not exist.
+     *
+     * @param file the lock file
+     * @return the held lock, to be closed to release it
+     * @throws IOException if the file cannot be locked
+     * @throws IllegalStateException if the thread already holds the lock
+     */
+    static ProcessLock acquire(final Path file) throws IOException {
+        var local = localLock(file);
+        local.lock();
+        return lockFile(file, local, true);
+    }
+
+    /**
+     * Locks a lock file if no other thread or process holds it.
+     *
+     * @param file the lock file
+     * @return the held lock, or null if it is held by someone else
+     * @throws IOException if the file cannot be locked
+     * @throws IllegalStateException if the thread already holds the lock
+     */
+    static ProcessLock tryAcquire(final Path file) throws IOException {
+        var local = localLock(file);
+        if (!local.tryLock()) {
+            return null;
+        }
+        return lockFile(file, local, false);
+    }
+
+    /**
+     * Returns the lock of this JVM of a lock file.
+     *
+     * @param file the lock file
+     * @return the lock shared by the threads of this JVM
+     * @throws IllegalStateException if the thread already holds the lock
+     */
+    private static ReentrantLock localLock(final Path file) {
+        var local = LOCAL.computeIfAbsent(file.toAbsolutePath().normalize(),
+                path -> new ReentrantLock());
+        if (local.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Lock already held: " + file);
+        }
+        return local;
+    }
+
+    /**
+     * Locks the file once the lock of this JVM is held, releasing the
+     * latter if the file cannot be locked.
+     *
+     * @param file  the lock file
+     * @param local the held lock of this JVM
+     * @param wait  true to wait for the other processes
+     * @return the held lock, or null if another process holds it
+     * @throws IOException if the file cannot be locked
+     */
+    private static ProcessLock lockFile(final Path file,
+                                        final ReentrantLock local,
+                                        final boolean wait)
+            throws IOException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            var lock = wait ? channel.lock() : channel.tryLock();
+            if (lock != null) {
+                return new ProcessLock(local, channel, lock);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            local.unlock();
+            throw e;
+        }
+        channel.close();
+        local.unlock();
+        return null;
+    }
+
+    /**
+     * Checks that the calling thread holds the lock and that the file is
+     * still locked, which it is not once the channel has been closed,
+     * for example by an interrupt.
+     *
+     * @throws IllegalStateException if the lock is not held
+     */
+    void ensureHeld() {
+        if (!local.isHeldByCurrentThread() || !lock.isValid()) {
+            throw new IllegalStateException("Lock not held");
+        }
+    }
+
+    /**
+     * Releases the lock.
+     *
+     * @throws IOException if the file cannot be unlocked
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+            channel.close();
+        } finally {
+            local.unlock();
+        }
+    }
+}
@@ -0,0 +1,847 @@
+package boardgame.data;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The {@code SegmentedStatistics} class keeps the statistics in a
+ * directory of size-capped segment files instead of a single file that
+ * grows forever. Every segment is a file in the format of
+ * {@link BinaryStatistics}. Records are appended to the last, active
+ * segment; when it reaches its size cap, it is sealed and a new segment
+ * is started, so a write never touches more than one small file.
+ *
+ * <p>The segments are listed in order in the {@value #MANIFEST} file,
+ * together with the number of records and the first and last time stamp
+ * of the sealed ones, after a line counting the records compactions have
+ * dropped, so {@link #appended()} keeps counting every record ever
+ * appended. The manifest is only rewritten when a segment is
+ * sealed or compacted, always through a temporary file that replaces the
+ * old one, so a crash leaves either the old or the new list of segments.
+ * Segment and temporary files missing from the manifest are left-overs
+ * of such a crash and are deleted when the store is opened.
+ *
+ * <p>A compaction merges the sealed segments, drops the records older
+ * than the retention window and rewrites the rest into as few full
+ * segments as possible. It can run on a background thread, see
+ * {@link #startCompaction(Duration)}; appends are only blocked while the
+ * manifest is swapped.
+ *
+ * <p>Several processes can share a store. Appends and manifest swaps
+ * hold the {@value #LOCK} file with a {@link ProcessLock}, and start by
+ * reading the manifest and the size of the active segment again, so no
+ * process writes over the records of another. Only one process compacts
+ * at a time, holding the {@value #COMPACTION_LOCK} file.
+ *
+ * <p>Reads use the manifest to find the segments they need:
+ * {@link #asList()} opens a segment the first time one of its records is
+ * read, so showing the latest games only maps the last segment.
+ */
+public class SegmentedStatistics implements AutoCloseable {
+
+    /**
+     * The name of the manifest file.
+     */
+    public static final String MANIFEST = "MANIFEST";
+
+    /**
+     * The name of the file locked while the segments are changed.
+     */
+    public static final String LOCK = "LOCK";
+
+    /**
+     * The name of the file locked while the store is compacted.
+     */
+    public static final String COMPACTION_LOCK = "COMPACTION.LOCK";
+
+    /**
+     * The default size cap of a segment in bytes.
+     */
+    public static final long DEFAULT_SEGMENT_BYTES = 1 << 20;
+
+    /**
+     * The default retention window.
+     */
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(365);
+
+    /**
+     * The default time between two background compactions.
+     */
+    public static final Duration DEFAULT_COMPACTION_INTERVAL =
+            Duration.ofMinutes(10);
+
+    /**
+     * The prefix of the segment files started by appends.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * The prefix of the segment files written by compactions.
+     */
+    private static final String COMPACTED_PREFIX = "compacted-";
+
+    /**
+     * The extension of the segment files.
+     */
+    private static final String SEGMENT_EXTENSION = ".bin";
+
+    /**
+     * The key of the manifest line counting the dropped records.
+     */
+    private static final String DROPPED_ENTRY = "dropped";
+
+    /**
+     * The shared stores, by directory.
+     */
+    private static final Map<Path, SegmentedStatistics> SHARED =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The directory of the store.
+     */
+    private final Path directory;
+
+    /**
+     * The number of records a segment can hold.
+     */
+    private final int segmentRecords;
+
+    /**
+     * The retention window.
+     */
+    private final Duration retention;
+
+    /**
+     * The sealed segments followed by the active one.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * The number of records dropped by compactions.
+     */
+    private long dropped;
+
+    /**
+     * The number of the next segment.
+     */
+    private long nextId;
+
+    /**
+     * The thread running the background compactions, if started.
+     */
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Opens a store, creating its directory if it does not exist.
+     *
+     * @param dir          the directory of the store
+     * @param segmentBytes the size cap of a segment in bytes
+     * @param keep         the retention window
+     * @throws IOException if the store cannot be opened
+     * @throws IllegalArgumentException if a segment cannot hold a record
+     */
+    public SegmentedStatistics(final Path dir, final long segmentBytes,
+                               final Duration keep) throws IOException {
+        var records = (segmentBytes - BinaryStatistics.HEADER_BYTES)
+                / BinaryStatistics.RECORD_BYTES;
+        if (records < 1) {
+            throw new IllegalArgumentException(
+                    "Segment too small: " + segmentBytes);
+        }
+        this.directory = dir;
+        this.segmentRecords = (int) Math.min(records, Integer.MAX_VALUE);
+        this.retention = keep;
+        Files.createDirectories(dir);
+        try (var compacting = ProcessLock.tryAcquire(
+                dir.resolve(COMPACTION_LOCK));
+             var lock = ProcessLock.acquire(dir.resolve(LOCK))) {
+            lock.ensureHeld();
+            synchronized (this) {
+                readManifest();
+                if (compacting != null) {
+                    deleteUnlisted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shared store of a directory, opening it with the
+     * default settings and starting its background compaction if it is
+     * not open yet.
+     *
+     * @param dir the directory of the store
+     * @return the store
+     * @throws IOException if the store cannot be opened
+     */
+    public static SegmentedStatistics of(final Path dir) throws IOException {
+        var key = dir.toAbsolutePath().normalize();
+        try {
+            return SHARED.computeIfAbsent(key, path -> {
+                try {
+                    var store = new SegmentedStatistics(path,
+                            DEFAULT_SEGMENT_BYTES, DEFAULT_RETENTION);
+                    store.startCompaction(DEFAULT_COMPACTION_INTERVAL);
+                    return store;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads the manifest and the size of the active segment, which other
+     * processes may have changed.
+     *
+     * @throws IOException if the manifest cannot be read
+     */
+    private void readManifest() throws IOException {
+        segments.clear();
+        dropped = 0;
+        var manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (var line : Files.readAllLines(manifest,
+                    StandardCharsets.UTF_8)) {
+                if (line.startsWith(DROPPED_ENTRY + " ")) {
+                    dropped = parseDropped(line);
+                } else if (!line.isBlank()) {
+                    segments.add(Segment.parse(line));
+                }
+            }
+        }
+        for (var segment : segments) {
+            nextId = Math.max(nextId, segment.id() + 1);
+        }
+        if (!segments.isEmpty()) {
+            var active = segments.get(segments.size() - 1);
+            var file = directory.resolve(active.name);
+            if (Files.exists(file)) {
+                active.count = BinaryStatistics.recordCount(Files.size(file));
+            } else {
+                active.count = 0;
+            }
+        }
+    }
+
+    /**
+     * Parses the manifest line counting the dropped records.
+     *
+     * @param line the line
+     * @return the number of dropped records
+     * @throws IOException if the line is not a count
+     */
+    private static long parseDropped(final String line) throws IOException {
+        try {
+            return Long.parseLong(line.substring(
+                    DROPPED_ENTRY.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad manifest entry: " + line, e);
+        }
+    }
+
+    /**
+     * Deletes the segment and temporary files the manifest does not list.
+     * Only called while no process compacts, as the segments being
+     * written by a compaction are not listed yet.
+     *
+     * @throws IOException if the directory cannot be read
+     */
+    private void deleteUnlisted() throws IOException {
+        var listed = new HashSet<String>();
+        for (var segment : segments) {
+            listed.add(segment.name);
+        }
+        try (var files = Files.list(directory)) {
+            for (var it = files.iterator(); it.hasNext();) {
+                var file = it.next();
+                var name = file.getFileName().toString();
+                if (!listed.contains(name)
+                        && (name.endsWith(SEGMENT_EXTENSION)
+                        || name.endsWith(".tmp"))) {
+                    Files.delete(file);
+                    Logger.warn("Deleted unlisted statistics segment {}",
+                            file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends records to the active segment, starting new segments when
+     * it is full.
+     *
+     * @param records   the records
+     * @param timestamp the time stamp of every record, 0 if unknown
+     * @param force     true to force the records to the disk
+     * @return the number of records appended
+     * @throws IOException if the records cannot be written
+     * @throws IllegalArgumentException if a state is not a score
+     */
+    public long append(final Stream<Data> records, final long timestamp,
+                       final boolean force) throws IOException {
+        try (var lock = ProcessLock.acquire(directory.resolve(LOCK))) {
+            lock.ensureHeld();
+            synchronized (this) {
+                readManifest();
+                var count = 0L;
+                var chunk = new ArrayList<Data>();
+                for (Iterator<Data> it = records.iterator(); it.hasNext();) {
+                    var active = activeSegment();
+                    while (chunk.size() < segmentRecords - active.count
+                            && it.hasNext()) {
+                        chunk.add(it.next());
+                    }
+                    try (var writer = new BinaryStatisticsWriter(
+                            directory.resolve(active.name))) {
+                        writer.appendAll(chunk.stream(), timestamp, force);
+                    }
+                    if (active.count == 0) {
+                        active.first = timestamp;
+                    }
+                    active.last = timestamp;
+                    active.count += chunk.size();
+                    count += chunk.size();
+                    chunk.clear();
+                }
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Returns the active segment, sealing the current one and starting a
+     * new one if it is full. The time stamps of a sealed segment are
+     * taken from its first and last records, as the manifest only holds
+     * those of the segment being filled by the current append.
+     *
+     * @return the segment records are appended to
+     * @throws IOException if the manifest cannot be written
+     */
+    private Segment activeSegment() throws IOException {
+        var active = segments.isEmpty()
+                ? null
+                : segments.get(segments.size() - 1);
+        if (active == null || active.count >= segmentRecords) {
+            if (active != null) {
+                var records = BinaryStatistics.open(
+                        directory.resolve(active.name));
+                if (records.size() > 0) {
+                    active.first = records.timestamp(0);
+                    active.last = records.timestamp(records.size() - 1);
+                }
+            }
+            active = new Segment(String.format("%s%012d%s", SEGMENT_PREFIX,
+                    nextId++, SEGMENT_EXTENSION), 0, 0, 0);
+            segments.add(active);
+            writeManifest();
+        }
+        return active;
+    }
+
+    /**
+     * Drops the records older than the retention window from the sealed
+     * segments and rewrites the rest into full segments. The active
+     * segment is left alone, and appends can go on while the records are
+     * rewritten. Nothing is done while another thread or process is
+     * compacting the store.
+     *
+     * @return the number of records dropped
+     * @throws IOException if a segment cannot be read or written
+     */
+    public long compact() throws IOException {
+        try (var compacting = ProcessLock.tryAcquire(
+                directory.resolve(COMPACTION_LOCK))) {
+            if (compacting == null) {
+                return 0;
+            }
+            List<Segment> sealed;
+            try (var lock = ProcessLock.acquire(directory.resolve(LOCK))) {
+                lock.ensureHeld();
+                synchronized (this) {
+                    readManifest();
+                    sealed = new ArrayList<>(segments.subList(0,
+                            Math.max(0, segments.size() - 1)));
+                }
+            }
+            var cutoff = System.currentTimeMillis() - retention.toMillis();
+            if (!needsCompaction(sealed, cutoff)) {
+                return 0;
+            }
+            var merged = rewrite(sealed, cutoff);
+            var total = 0L;
+            var kept = 0L;
+            for (var segment : sealed) {
+                total += segment.count;
+            }
+            for (var segment : merged) {
+                kept += segment.count;
+            }
+            try (var lock = ProcessLock.acquire(directory.resolve(LOCK))) {
+                lock.ensureHeld();
+                synchronized (this) {
+                    readManifest();
+                    segments.subList(0, sealed.size()).clear();
+                    segments.addAll(0, merged);
+                    dropped += total - kept;
+                    writeManifest();
+                }
+            }
+            for (var segment : sealed) {
+                Files.deleteIfExists(directory.resolve(segment.name));
+            }
+            Logger.info("Compacted {} segments into {}, dropped {} records",
+                    sealed.size(), merged.size(), total - kept);
+            return total - kept;
+        }
+    }
+
+    /**
+     * Copies the records of the sealed segments that are not older than
+     * the retention window into new, full segments.
+     *
+     * @param sealed the sealed segments
+     * @param cutoff the time before which records are dropped
+     * @return the new segments
+     * @throws IOException if a segment cannot be read or written
+     */
+    private List<Segment> rewrite(final List<Segment> sealed,
+                                  final long cutoff) throws IOException {
+        var merged = new ArrayList<Segment>();
+        var run = System.currentTimeMillis();
+        BinaryStatisticsWriter output = null;
+        Segment current = null;
+        try {
+            for (var segment : sealed) {
+                if (segment.first != 0 && segment.last < cutoff) {
+                    continue;
+                }
+                var input = BinaryStatistics.open(
+                        directory.resolve(segment.name));
+                for (var i = 0; i < input.size(); i++) {
+                    var time = input.timestamp(i);
+                    if (time != 0 && time < cutoff) {
+                        continue;
+                    }
+                    if (current == null || current.count == segmentRecords) {
+                        if (output != null) {
+                            output.force();
+                            output.close();
+                        }
+                        current = new Segment(String.format("%s%d-%06d%s",
+                                COMPACTED_PREFIX, run, merged.size(),
+                                SEGMENT_EXTENSION), 0, time, time);
+                        merged.add(current);
+                        var file = directory.resolve(current.name);
+                        Files.deleteIfExists(file);
+                        output = new BinaryStatisticsWriter(file);
+                    }
+                    output.append(input.winner(i) == BinaryStatistics.RED,
+                            input.moveCounter(i), input.redScore(i),
+                            input.blueScore(i), time, false);
+                    current.count++;
+                    current.last = time;
+                }
+            }
+            if (output != null) {
+                output.force();
+            }
+        } finally {
+            if (output != null) {
+                output.close();
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Checks if a compaction would drop records or merge segments.
+     *
+     * @param sealed the sealed segments
+     * @param cutoff the time before which records are dropped
+     * @return true if the sealed segments can be compacted
+     */
+    private boolean needsCompaction(final List<Segment> sealed,
+                                    final long cutoff) {
+        var partial = 0;
+        for (var segment : sealed) {
+            if (segment.first != 0 && segment.first < cutoff
+                    || segment.last != 0 && segment.last < cutoff) {
+                return true;
+            }
+            if (segment.count < segmentRecords) {
+                partial++;
+            }
+        }
+        return partial > 1;
+    }
+
+    /**
+     * Starts compacting the store on a background thread.
+     *
+     * @param interval the time between two compactions
+     */
+    public synchronized void startCompaction(final Duration interval) {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "statistics-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (IOException | RuntimeException e) {
+                Logger.error("Error while compacting " + directory, e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of games in every segment
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized long size() throws IOException {
+        readManifest();
+        var size = 0L;
+        for (var segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of records ever appended, including those
+     * dropped by compactions since. Unlike {@link #size()}, the count
+     * never goes down, so it tells how far the history has grown.
+     *
+     * @return the number of records appended
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized long appended() throws IOException {
+        return size() + dropped;
+    }
+
+    /**
+     * Returns the records appended after a number of records, as they
+     * are now.
+     *
+     * @param first the number of records appended before, as counted by
+     *              {@link #appended()}
+     * @return the later records, or null if compactions have dropped
+     * some of them
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized List<Data> appendedAfter(final long first)
+            throws IOException {
+        var records = asList();
+        var start = first - dropped;
+        if (start < 0 || start > records.size()) {
+            return null;
+        }
+        return records.subList((int) start, records.size());
+    }
+
+    /**
+     * Returns the number of segments, including the active one.
+     *
+     * @return the number of segment files
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized int segmentCount() throws IOException {
+        readManifest();
+        return segments.size();
+    }
+
+    /**
+     * Returns a read-only list view of the records as they are now.
+     * A segment is only opened when one of its records is read, so a
+     * segment removed by a later compaction may fail to be read with an
+     * {@link UncheckedIOException}.
+     *
+     * @return the records as a list
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized List<Data> asList() throws IOException {
+        readManifest();
+        var names = new String[segments.size()];
+        var starts = new long[segments.size() + 1];
+        for (var i = 0; i < names.length; i++) {
+            names[i] = segments.get(i).name;
+            starts[i + 1] = starts[i] + segments.get(i).count;
+        }
+        if (starts[names.length] > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many records for a list");
+        }
+        return new SegmentView(names, starts);
+    }
+
+    /**
+     * Opens every segment for reading, as they are now.
+     *
+     * @return the segments in order
+     * @throws IOException if a segment cannot be opened
+     */
+    synchronized List<BinaryStatistics> openSegments() throws IOException {
+        readManifest();
+        var opened = new ArrayList<BinaryStatistics>();
+        for (var segment : segments) {
+            var file = directory.resolve(segment.name);
+            if (Files.exists(file)) {
+                opened.add(BinaryStatistics.open(file));
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Returns the records as a stream, opening the segments one at a
+     * time as the stream is consumed.
+     *
+     * @return the records in the order they were appended
+     * @throws IOException if the manifest cannot be read
+     */
+    public Stream<Data> stream() throws IOException {
+        var view = asList();
+        return view.stream();
+    }
+
+    /**
+     * Stops the background compaction.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = compactor;
+            compactor = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SHARED.remove(directory.toAbsolutePath().normalize(), this);
+    }
+
+    /**
+     * Replaces the manifest with the current list of segments.
+     *
+     * @throws IOException if the manifest cannot be written
+     */
+    private void writeManifest() throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add(DROPPED_ENTRY + " " + dropped);
+        for (var segment : segments) {
+            lines.add(segment.toString());
+        }
+        var manifest = directory.resolve(MANIFEST);
+        var temporary = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, manifest, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * An entry of the manifest.
+     */
+    private static final class Segment {
+
+        /**
+         * The name of the segment file.
+         */
+        private final String name;
+
+        /**
+         * The number of records.
+         */
+        private int count;
+
+        /**
+         * The time stamp of the first record.
+         */
+        private long first;
+
+        /**
+         * The time stamp of the last record.
+         */
+        private long last;
+
+        /**
+         * Creates an entry.
+         *
+         * @param fileName  the name of the segment file
+         * @param records   the number of records
+         * @param firstTime the time stamp of the first record
+         * @param lastTime  the time stamp of the last record
+         */
+        Segment(final String fileName, final int records,
+                final long firstTime, final long lastTime) {
+            this.name = fileName;
+            this.count = records;
+            this.first = firstTime;
+            this.last = lastTime;
+        }
+
+        /**
+         * Parses a line of the manifest.
+         *
+         * @param line the line
+         * @return the entry
+         * @throws IOException if the line is not an entry
+         */
+        static Segment parse(final String line) throws IOException {
+            var fields = line.trim().split(" ");
+            try {
+                return new Segment(fields[0], Integer.parseInt(fields[1]),
+                        Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IOException("Bad manifest entry: " + line, e);
+            }
+        }
+
+        /**
+         * Returns the number of a segment started by an append,
+         * taken from its name.
+         *
+         * @return the number of the segment, -1 for a compacted one
+         */
+        long id() {
+            if (!name.startsWith(SEGMENT_PREFIX)) {
+                return -1;
+            }
+            var digits = name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_EXTENSION.length());
+            try {
+                return Long.parseLong(digits);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Formats the entry as a line of the manifest.
+         *
+         * @return the name, the count and the time stamps
+         */
+        @Override
+        public String toString() {
+            return name + " " + count + " " + first + " " + last;
+        }
+    }
+
+    /**
+     * The list view of the records of a list of segments.
+     */
+    private final class SegmentView extends AbstractList<Data>
+            implements RandomAccess {
+
+        /**
+         * The names of the segment files.
+         */
+        private final String[] names;
+
+        /**
+         * The index of the first record of each segment,
+         * followed by the number of records.
+         */
+        private final long[] starts;
+
+        /**
+         * The segments opened so far.
+         */
+        private final BinaryStatistics[] opened;
+
+        /**
+         * Creates a view.
+         *
+         * @param files   the names of the segment files
+         * @param offsets the index of the first record of each segment,
+         *                followed by the number of records
+         */
+        SegmentView(final String[] files, final long[] offsets) {
+            this.names = files;
+            this.starts = offsets;
+            this.opened = new BinaryStatistics[files.length];
+        }
+
+        /**
+         * Reads a record, opening its segment if needed.
+         *
+         * @param index the index of the record
+         * @return the record as {@link Data}
+         */
+        @Override
+        public Data get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            var found = Arrays.binarySearch(starts, index);
+            var segment = found >= 0 ? found : -found - 2;
+            while (starts[segment + 1] == starts[segment]) {
+                segment++;
+            }
+            return segment(segment).getData(
+                    (int) (index - starts[segment]));
+        }
+
+        /**
+         * Returns the number of records.
+         *
+         * @return the number of games
+         */
+        @Override
+        public int size() {
+            return (int) starts[names.length];
+        }
+
+        /**
+         * Opens a segment the first time it is read.
+         *
+         * @param segment the index of the segment
+         * @return the opened segment
+         */
+        private BinaryStatistics segment(final int segment) {
+            synchronized (opened) {
+                if (opened[segment] == null) {
+                    try {
+                        opened[segment] = BinaryStatistics.open(
+                                directory.resolve(names[segment]));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return opened[segment];
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package boardgame.data;
+
+/**
+ * The {@code StatisticsColumn} enum lists the values of a game a
+ * {@link StatisticsQuery} can filter, group and aggregate by.
+ */
+public enum StatisticsColumn {
+
+    /**
+     * The winner, {@link BinaryStatistics#RED} or
+     * {@link BinaryStatistics#BLUE}.
+     */
+    WINNER,
+
+    /**
+     * The move counter of the winner.
+     */
+    MOVES,
+
+    /**
+     * The final score of the red player.
+     */
+    RED_SCORE,
+
+    /**
+     * The final score of the blue player.
+     */
+    BLUE_SCORE,
+
+    /**
+     * The red score minus the blue score.
+     */
+    MARGIN,
+
+    /**
+     * The score of the winner minus the score of the loser.
+     */
+    WIN_MARGIN
+}
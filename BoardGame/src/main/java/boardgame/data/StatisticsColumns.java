@@ -0,0 +1,359 @@
+package boardgame.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The {@code StatisticsColumns} class holds the statistics in primitive
+ * columns, one array per value of a game instead of one object per game:
+ * a bitset of the games won by the blue player and the move counters and
+ * the red and blue scores as {@code int} arrays. The scores are parsed
+ * once when the columns are loaded; a state that is not a score counts as
+ * 0:0. The columns are queried with {@link #select()}.
+ *
+ * <p>Columns loaded from binary statistics are filled in parallel
+ * straight from the mapped files, without creating {@link Data} objects.
+ * Binary statistics can also be queried where they are, see
+ * {@link #view(List)}: the columns then read every value from the
+ * mapped files and hold nothing but the list of files.
+ */
+public class StatisticsColumns {
+
+    /**
+     * The number of games.
+     */
+    private final int size;
+
+    /**
+     * The games won by the blue player, a bit per game.
+     */
+    private final long[] blueWins;
+
+    /**
+     * The move counters of the winners.
+     */
+    private final int[] moves;
+
+    /**
+     * The final scores of the red player.
+     */
+    private final int[] redScores;
+
+    /**
+     * The final scores of the blue player.
+     */
+    private final int[] blueScores;
+
+    /**
+     * The statistics files the values are read from, or null if the
+     * columns are loaded.
+     */
+    private final List<BinaryStatistics> files;
+
+    /**
+     * The index of the first game of each file, followed by the number
+     * of games, or null if the columns are loaded.
+     */
+    private final int[] starts;
+
+    /**
+     * Creates columns from arrays, which are used without copying.
+     *
+     * @param blueWinBits  the games won by the blue player, bit
+     *                     {@code i % 64} of element {@code i / 64} for
+     *                     game {@code i}
+     * @param moveCounters the move counters of the winners
+     * @param red          the final scores of the red player
+     * @param blue         the final scores of the blue player
+     * @throws IllegalArgumentException if the lengths do not match
+     */
+    public StatisticsColumns(final long[] blueWinBits,
+                             final int[] moveCounters, final int[] red,
+                             final int[] blue) {
+        if (red.length != moveCounters.length
+                || blue.length != moveCounters.length
+                || blueWinBits.length != words(moveCounters.length)) {
+            throw new IllegalArgumentException("Column lengths differ");
+        }
+        this.size = moveCounters.length;
+        this.blueWins = blueWinBits;
+        this.moves = moveCounters;
+        this.redScores = red;
+        this.blueScores = blue;
+        this.files = null;
+        this.starts = null;
+    }
+
+    /**
+     * Creates columns reading their values from statistics files.
+     *
+     * @param parts   the opened statistics files
+     * @param offsets the index of the first game of each file, followed
+     *                by the number of games
+     */
+    private StatisticsColumns(final List<BinaryStatistics> parts,
+                              final int[] offsets) {
+        this.size = offsets[parts.size()];
+        this.blueWins = null;
+        this.moves = null;
+        this.redScores = null;
+        this.blueScores = null;
+        this.files = parts;
+        this.starts = offsets;
+    }
+
+    /**
+     * Queries binary statistics where they are, one file after the other.
+     * Nothing is loaded: the values are read from the mapped files by
+     * every query, so the columns take no memory whatever the number of
+     * games, at the cost of slower queries than loaded columns.
+     *
+     * @param parts the opened statistics files
+     * @return the columns of the games
+     * @throws IllegalArgumentException if there are too many games
+     */
+    public static StatisticsColumns view(final List<BinaryStatistics> parts) {
+        var offsets = new int[parts.size() + 1];
+        for (var i = 0; i < parts.size(); i++) {
+            var end = (long) offsets[i] + parts.get(i).size();
+            if (end > Integer.MAX_VALUE - 64) {
+                throw new IllegalArgumentException("Too many games");
+            }
+            offsets[i + 1] = (int) end;
+        }
+        return new StatisticsColumns(List.copyOf(parts), offsets);
+    }
+
+    /**
+     * Loads a stream of games into columns.
+     *
+     * @param records the games
+     * @return the columns of the games
+     */
+    public static StatisticsColumns of(final Stream<Data> records) {
+        var count = 0;
+        var bits = new long[1];
+        var moveCounters = new int[64];
+        var red = new int[64];
+        var blue = new int[64];
+        for (Iterator<Data> it = records.iterator(); it.hasNext();) {
+            var data = it.next();
+            if (count == moveCounters.length) {
+                var capacity = count * 2;
+                moveCounters = Arrays.copyOf(moveCounters, capacity);
+                red = Arrays.copyOf(red, capacity);
+                blue = Arrays.copyOf(blue, capacity);
+                bits = Arrays.copyOf(bits, words(capacity));
+            }
+            if (!"Red".equals(data.getWinnerColor())) {
+                bits[count >>> 6] |= 1L << count;
+            }
+            moveCounters[count] = data.getMoveCounter();
+            try {
+                var scores = BinaryStatisticsWriter.parseState(
+                        data.getState());
+                red[count] = scores[0];
+                blue[count] = scores[1];
+            } catch (IllegalArgumentException e) {
+                red[count] = 0;
+                blue[count] = 0;
+            }
+            count++;
+        }
+        return new StatisticsColumns(Arrays.copyOf(bits, words(count)),
+                Arrays.copyOf(moveCounters, count),
+                Arrays.copyOf(red, count), Arrays.copyOf(blue, count));
+    }
+
+    /**
+     * Loads binary statistics into columns, one file after the other.
+     * Every 64 games are filled by a task of their own.
+     *
+     * @param parts the opened statistics files
+     * @return the columns of the games
+     * @throws IllegalArgumentException if there are too many games
+     */
+    public static StatisticsColumns of(final List<BinaryStatistics> parts) {
+        var starts = new long[parts.size() + 1];
+        for (var i = 0; i < parts.size(); i++) {
+            starts[i + 1] = starts[i] + parts.get(i).size();
+        }
+        if (starts[parts.size()] > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("Too many games");
+        }
+        var count = (int) starts[parts.size()];
+        var bits = new long[words(count)];
+        var moveCounters = new int[count];
+        var red = new int[count];
+        var blue = new int[count];
+        IntStream.range(0, bits.length).parallel().forEach(word -> {
+            var first = word << 6;
+            var last = Math.min(first + 64, count);
+            var part = Arrays.binarySearch(starts, first);
+            part = part >= 0 ? part : -part - 2;
+            var bitsOfWord = 0L;
+            for (var row = first; row < last; row++) {
+                while (row >= starts[part + 1]) {
+                    part++;
+                }
+                var statistics = parts.get(part);
+                var index = (int) (row - starts[part]);
+                if (statistics.winner(index) == BinaryStatistics.BLUE) {
+                    bitsOfWord |= 1L << row;
+                }
+                moveCounters[row] = statistics.moveCounter(index);
+                red[row] = statistics.redScore(index);
+                blue[row] = statistics.blueScore(index);
+            }
+            bits[word] = bitsOfWord;
+        });
+        return new StatisticsColumns(bits, moveCounters, red, blue);
+    }
+
+    /**
+     * Returns the number of 64 bit words of a bitset of games.
+     *
+     * @param games the number of games
+     * @return the number of words
+     */
+    static int words(final int games) {
+        return (games + 63) >>> 6;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a value of a game.
+     *
+     * @param column the value
+     * @param row    the index of the game
+     * @return the value of the game
+     * @throws IndexOutOfBoundsException if there is no such game
+     */
+    public int get(final StatisticsColumn column, final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return reader(column).applyAsInt(row);
+    }
+
+    /**
+     * Creates the {@link Data} object of a game.
+     *
+     * @param row the index of the game
+     * @return the game as {@link Data}
+     * @throws IndexOutOfBoundsException if there is no such game
+     */
+    public Data getData(final int row) {
+        if (files != null) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException(row);
+            }
+            var file = file(row);
+            return files.get(file).getData(row - starts[file]);
+        }
+        return new Data(get(StatisticsColumn.WINNER, row)
+                == BinaryStatistics.RED ? "Red" : "Blue",
+                moves[row], redScores[row] + ":" + blueScores[row]);
+    }
+
+    /**
+     * Starts a query selecting every game.
+     *
+     * @return the query
+     */
+    public StatisticsQuery select() {
+        var selected = new long[words(size)];
+        Arrays.fill(selected, -1L);
+        if ((size & 63) != 0) {
+            selected[selected.length - 1] = (1L << size) - 1;
+        }
+        return new StatisticsQuery(this, selected);
+    }
+
+    /**
+     * Returns the function reading a column by row.
+     *
+     * @param column the column
+     * @return the value of a row
+     */
+    IntUnaryOperator reader(final StatisticsColumn column) {
+        if (files != null) {
+            return row -> {
+                var file = file(row);
+                return value(files.get(file), row - starts[file], column);
+            };
+        }
+        return switch (column) {
+            case WINNER -> row -> (int) (blueWins[row >>> 6] >>> row) & 1;
+            case MOVES -> row -> moves[row];
+            case RED_SCORE -> row -> redScores[row];
+            case BLUE_SCORE -> row -> blueScores[row];
+            case MARGIN -> row -> redScores[row] - blueScores[row];
+            case WIN_MARGIN -> row -> {
+                var margin = redScores[row] - blueScores[row];
+                return (blueWins[row >>> 6] >>> row & 1) == 0
+                        ? margin
+                        : -margin;
+            };
+        };
+    }
+
+    /**
+     * Returns the file of a game of columns read from files.
+     *
+     * @param row the index of the game
+     * @return the index of the file holding the game
+     */
+    private int file(final int row) {
+        var low = 0;
+        var high = files.size() - 1;
+        while (low < high) {
+            var middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= row) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reads a value of a game from a statistics file.
+     *
+     * @param statistics the statistics file
+     * @param index      the index of the game in the file
+     * @param column     the value
+     * @return the value of the game
+     */
+    private static int value(final BinaryStatistics statistics,
+                             final int index, final StatisticsColumn column) {
+        return switch (column) {
+            case WINNER -> statistics.winner(index);
+            case MOVES -> statistics.moveCounter(index);
+            case RED_SCORE -> statistics.redScore(index);
+            case BLUE_SCORE -> statistics.blueScore(index);
+            case MARGIN -> statistics.redScore(index)
+                    - statistics.blueScore(index);
+            case WIN_MARGIN -> {
+                var margin = statistics.redScore(index)
+                        - statistics.blueScore(index);
+                yield statistics.winner(index) == BinaryStatistics.RED
+                        ? margin
+                        : -margin;
+            }
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package boardgame.data;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code StatisticsQuery} class is a selection of the games of
+ * {@link StatisticsColumns}, kept as a bitset of the selected rows.
+ * Filters narrow the selection down and return a new query, so a query
+ * can be refined in several ways. Filters and aggregates run as parallel
+ * streams over blocks of 64 games, reading only the columns they need.
+ *
+ * <p>For example, the blue wins with fewer than 15 moves and a margin
+ * above 5 are counted by
+ * <pre>{@code
+ * columns.select()
+ *         .where(StatisticsColumn.WINNER, w -> w == BinaryStatistics.BLUE)
+ *         .where(StatisticsColumn.MOVES, m -> m < 15)
+ *         .where(StatisticsColumn.WIN_MARGIN, m -> m > 5)
+ *         .count();
+ * }</pre>
+ */
+public final class StatisticsQuery {
+
+    /**
+     * The most groups {@link #groupBy} creates.
+     */
+    public static final int MAX_GROUPS = 1 << 16;
+
+    /**
+     * The queried columns.
+     */
+    private final StatisticsColumns columns;
+
+    /**
+     * The selected rows, a bit per game.
+     */
+    private final long[] selected;
+
+    /**
+     * Creates a query.
+     *
+     * @param source the queried columns
+     * @param rows   the selected rows
+     */
+    StatisticsQuery(final StatisticsColumns source, final long[] rows) {
+        this.columns = source;
+        this.selected = rows;
+    }
+
+    /**
+     * Keeps the selected games whose value matches a predicate.
+     *
+     * @param column    the filtered value
+     * @param predicate the condition on the value
+     * @return the narrowed query
+     */
+    public StatisticsQuery where(final StatisticsColumn column,
+                                 final IntPredicate predicate) {
+        var reader = columns.reader(column);
+        var result = new long[selected.length];
+        IntStream.range(0, selected.length).parallel().forEach(word -> {
+            var kept = selected[word];
+            for (var bits = kept; bits != 0; bits &= bits - 1) {
+                var row = word << 6 | Long.numberOfTrailingZeros(bits);
+                if (!predicate.test(reader.applyAsInt(row))) {
+                    kept &= ~(1L << row);
+                }
+            }
+            result[word] = kept;
+        });
+        return new StatisticsQuery(columns, result);
+    }
+
+    /**
+     * Returns the number of selected games.
+     *
+     * @return the count
+     */
+    public long count() {
+        return IntStream.range(0, selected.length).parallel()
+                .mapToLong(word -> Long.bitCount(selected[word]))
+                .sum();
+    }
+
+    /**
+     * Returns the indices of the selected games.
+     *
+     * @return the rows in increasing order
+     */
+    public int[] rows() {
+        return IntStream.range(0, selected.length).parallel()
+                .flatMap(word -> {
+                    var bits = selected[word];
+                    var rows = new int[Long.bitCount(bits)];
+                    for (var i = 0; bits != 0; bits &= bits - 1, i++) {
+                        rows[i] = word << 6
+                                | Long.numberOfTrailingZeros(bits);
+                    }
+                    return IntStream.of(rows);
+                })
+                .toArray();
+    }
+
+    /**
+     * Returns the indices of the selected games ordered by a value,
+     * games with equal values keeping their order. Values spanning at
+     * most {@value #MAX_GROUPS} numbers, as every column of a game does
+     * in practice, are sorted by counting in linear time.
+     *
+     * @param column     the value to sort by
+     * @param descending true for the largest values first
+     * @return the sorted rows
+     */
+    public int[] sortedRows(final StatisticsColumn column,
+                            final boolean descending) {
+        var rows = rows();
+        var reader = columns.reader(column);
+        var values = aggregate(column);
+        if (rows.length == 0) {
+            return rows;
+        }
+        var range = (long) values.getMax() - values.getMin() + 1;
+        if (range > MAX_GROUPS) {
+            var keys = new long[rows.length];
+            for (var i = 0; i < rows.length; i++) {
+                var value = reader.applyAsInt(rows[i]);
+                keys[i] = (long) (descending ? ~value : value) << 32
+                        | rows[i];
+            }
+            Arrays.parallelSort(keys);
+            for (var i = 0; i < rows.length; i++) {
+                rows[i] = (int) keys[i];
+            }
+            return rows;
+        }
+        var offset = values.getMin();
+        var starts = new int[(int) range + 1];
+        for (var row : rows) {
+            var bucket = reader.applyAsInt(row) - offset;
+            starts[(descending ? (int) range - 1 - bucket : bucket) + 1]++;
+        }
+        for (var i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        var sorted = new int[rows.length];
+        for (var row : rows) {
+            var bucket = reader.applyAsInt(row) - offset;
+            sorted[starts[descending ? (int) range - 1 - bucket : bucket]++]
+                    = row;
+        }
+        return sorted;
+    }
+
+    /**
+     * Computes the count, sum, minimum, maximum and average of a value
+     * over the selected games.
+     *
+     * @param column the aggregated value
+     * @return the statistics of the value
+     */
+    public IntSummaryStatistics aggregate(final StatisticsColumn column) {
+        var reader = columns.reader(column);
+        return IntStream.range(0, selected.length).parallel().collect(
+                IntSummaryStatistics::new,
+                (statistics, word) -> {
+                    for (var bits = selected[word]; bits != 0;
+                         bits &= bits - 1) {
+                        statistics.accept(reader.applyAsInt(word << 6
+                                | Long.numberOfTrailingZeros(bits)));
+                    }
+                },
+                IntSummaryStatistics::combine);
+    }
+
+    /**
+     * Groups the selected games by a value and aggregates another value
+     * in every group.
+     *
+     * @param key    the value the games are grouped by
+     * @param column the value aggregated in every group
+     * @return the statistics of the aggregated value by key, in
+     * increasing key order, without the empty groups
+     * @throws IllegalArgumentException if the keys span more than
+     * {@value #MAX_GROUPS} values
+     */
+    public SortedMap<Integer, IntSummaryStatistics> groupBy(
+            final StatisticsColumn key, final StatisticsColumn column) {
+        var groups = new TreeMap<Integer, IntSummaryStatistics>();
+        var keys = aggregate(key);
+        if (keys.getCount() == 0) {
+            return groups;
+        }
+        var range = (long) keys.getMax() - keys.getMin() + 1;
+        if (range > MAX_GROUPS) {
+            throw new IllegalArgumentException("Too many groups: " + range);
+        }
+        var offset = keys.getMin();
+        var keyReader = columns.reader(key);
+        var reader = columns.reader(column);
+        var result = IntStream.range(0, selected.length).parallel().collect(
+                () -> new Groups((int) range),
+                (partial, word) -> {
+                    for (var bits = selected[word]; bits != 0;
+                         bits &= bits - 1) {
+                        var row = word << 6
+                                | Long.numberOfTrailingZeros(bits);
+                        partial.accept(keyReader.applyAsInt(row) - offset,
+                                reader.applyAsInt(row));
+                    }
+                },
+                Groups::combine);
+        for (var i = 0; i < range; i++) {
+            if (result.count[i] > 0) {
+                groups.put(i + offset, new IntSummaryStatistics(
+                        result.count[i], result.min[i], result.max[i],
+                        result.sum[i]));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The partial aggregates of the groups.
+     */
+    private static final class Groups {
+
+        /**
+         * The number of games by group.
+         */
+        private final long[] count;
+
+        /**
+         * The sum of the values by group.
+         */
+        private final long[] sum;
+
+        /**
+         * The smallest value by group.
+         */
+        private final int[] min;
+
+        /**
+         * The largest value by group.
+         */
+        private final int[] max;
+
+        /**
+         * Creates empty groups.
+         *
+         * @param groups the number of groups
+         */
+        Groups(final int groups) {
+            this.count = new long[groups];
+            this.sum = new long[groups];
+            this.min = new int[groups];
+            this.max = new int[groups];
+            Arrays.fill(min, Integer.MAX_VALUE);
+            Arrays.fill(max, Integer.MIN_VALUE);
+        }
+
+        /**
+         * Adds a value to a group.
+         *
+         * @param group the index of the group
+         * @param value the value
+         */
+        void accept(final int group, final int value) {
+            count[group]++;
+            sum[group] += value;
+            min[group] = Math.min(min[group], value);
+            max[group] = Math.max(max[group], value);
+        }
+
+        /**
+         * Adds the partial aggregates of other groups.
+         *
+         * @param other the other groups
+         */
+        void combine(final Groups other) {
+            for (var i = 0; i < count.length; i++) {
+                count[i] += other.count[i];
+                sum[i] += other.sum[i];
+                min[i] = Math.min(min[i], other.min[i]);
+                max[i] = Math.max(max[i], other.max[i]);
+            }
+        }
+    }
+}
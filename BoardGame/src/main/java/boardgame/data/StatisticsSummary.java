@@ -0,0 +1,424 @@
+package boardgame.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * The {@code StatisticsSummary} class holds aggregates of every
+ * recorded game: the number of wins of each colour, the sum, minimum
+ * and maximum of the move counters and of the score margins, and a
+ * histogram of both. Adding a game costs the same however many games
+ * were added before, and the summary is written as a file of fixed size,
+ * so summary queries never read the games themselves.
+ *
+ * <p>The margin of a game is the red score minus the blue score. A game
+ * whose state is not a score of the form "red:blue" is counted among the
+ * games but not among the margins. Move counters of at least
+ * {@value #MOVE_BUCKETS} - 1 share the last bucket of the histogram, and
+ * margins beyond &plusmn;{@value #MARGIN_LIMIT} share the first or the
+ * last bucket of theirs.
+ *
+ * <p>A summary also records how far into the statistics it reaches, see
+ * {@link #getCovered()}, so a summary that missed an append, because the
+ * process died between writing the games and the summary, is caught up
+ * the next time it is loaded.
+ */
+public class StatisticsSummary {
+
+    /**
+     * The number of buckets of the move histogram.
+     */
+    public static final int MOVE_BUCKETS = 257;
+
+    /**
+     * The largest margin with a bucket of its own, the number of squares
+     * of the largest board.
+     */
+    public static final int MARGIN_LIMIT = 256;
+
+    /**
+     * The magic number at the start of the file.
+     */
+    static final int MAGIC = 0x42475355;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The number of long fields before the histograms.
+     */
+    private static final int FIELDS = 12;
+
+    /**
+     * The size of the file in bytes.
+     */
+    static final int FILE_BYTES = 8 + Long.BYTES
+            * (FIELDS + MOVE_BUCKETS + 2 * MARGIN_LIMIT + 1);
+
+    /**
+     * How far into the statistics the summary reaches.
+     */
+    private long covered;
+
+    /**
+     * The number of games.
+     */
+    private long games;
+
+    /**
+     * The number of games won by the red player.
+     */
+    private long redWins;
+
+    /**
+     * The sum of the move counters.
+     */
+    private long moveSum;
+
+    /**
+     * The smallest move counter.
+     */
+    private long moveMin = Long.MAX_VALUE;
+
+    /**
+     * The largest move counter.
+     */
+    private long moveMax = Long.MIN_VALUE;
+
+    /**
+     * The number of games with a score.
+     */
+    private long scoredGames;
+
+    /**
+     * The sum of the red scores.
+     */
+    private long redScoreSum;
+
+    /**
+     * The sum of the blue scores.
+     */
+    private long blueScoreSum;
+
+    /**
+     * The sum of the margins.
+     */
+    private long marginSum;
+
+    /**
+     * The smallest margin.
+     */
+    private long marginMin = Long.MAX_VALUE;
+
+    /**
+     * The largest margin.
+     */
+    private long marginMax = Long.MIN_VALUE;
+
+    /**
+     * The number of games by move counter.
+     */
+    private final long[] moveHistogram = new long[MOVE_BUCKETS];
+
+    /**
+     * The number of games by margin, offset by {@value #MARGIN_LIMIT}.
+     */
+    private final long[] marginHistogram = new long[2 * MARGIN_LIMIT + 1];
+
+    /**
+     * Computes the summary of a stream of games.
+     *
+     * @param records the games
+     * @return the summary of the games
+     */
+    public static StatisticsSummary of(final Stream<Data> records) {
+        var summary = new StatisticsSummary();
+        for (Iterator<Data> it = records.iterator(); it.hasNext();) {
+            summary.add(it.next());
+        }
+        return summary;
+    }
+
+    /**
+     * Adds a game to the summary.
+     *
+     * @param data the game
+     */
+    public void add(final Data data) {
+        games++;
+        if ("Red".equals(data.getWinnerColor())) {
+            redWins++;
+        }
+        long moves = data.getMoveCounter();
+        moveSum += moves;
+        moveMin = Math.min(moveMin, moves);
+        moveMax = Math.max(moveMax, moves);
+        moveHistogram[(int) Math.max(0, Math.min(moves,
+                MOVE_BUCKETS - 1))]++;
+        int[] scores;
+        try {
+            scores = BinaryStatisticsWriter.parseState(data.getState());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        scoredGames++;
+        redScoreSum += scores[0];
+        blueScoreSum += scores[1];
+        long margin = scores[0] - scores[1];
+        marginSum += margin;
+        marginMin = Math.min(marginMin, margin);
+        marginMax = Math.max(marginMax, margin);
+        marginHistogram[(int) Math.max(0, Math.min(margin + MARGIN_LIMIT,
+                2 * MARGIN_LIMIT))]++;
+    }
+
+    /**
+     * Reads a summary file.
+     *
+     * @param file the summary file
+     * @return the summary
+     * @throws IOException if the file cannot be read or is not a summary
+     */
+    public static StatisticsSummary read(final Path file) throws IOException {
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.limit() != FILE_BYTES
+                || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            throw new IOException("Not a statistics summary: " + file);
+        }
+        var summary = new StatisticsSummary();
+        summary.covered = buffer.getLong();
+        summary.games = buffer.getLong();
+        summary.redWins = buffer.getLong();
+        summary.moveSum = buffer.getLong();
+        summary.moveMin = buffer.getLong();
+        summary.moveMax = buffer.getLong();
+        summary.scoredGames = buffer.getLong();
+        summary.redScoreSum = buffer.getLong();
+        summary.blueScoreSum = buffer.getLong();
+        summary.marginSum = buffer.getLong();
+        summary.marginMin = buffer.getLong();
+        summary.marginMax = buffer.getLong();
+        buffer.asLongBuffer().get(summary.moveHistogram)
+                .get(summary.marginHistogram);
+        return summary;
+    }
+
+    /**
+     * Writes the summary to a file, replacing it at once through a
+     * temporary file.
+     *
+     * @param file the summary file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(final Path file) throws IOException {
+        var buffer = ByteBuffer.allocate(FILE_BYTES);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(covered)
+                .putLong(games)
+                .putLong(redWins)
+                .putLong(moveSum)
+                .putLong(moveMin)
+                .putLong(moveMax)
+                .putLong(scoredGames)
+                .putLong(redScoreSum)
+                .putLong(blueScoreSum)
+                .putLong(marginSum)
+                .putLong(marginMin)
+                .putLong(marginMax);
+        buffer.asLongBuffer().put(moveHistogram).put(marginHistogram);
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns how far into the statistics the summary reaches, in the
+     * units of the format of the statistics: bytes of a log, records of
+     * a binary file, and records ever appended to a segmented store.
+     *
+     * @return the extent of the statistics the summary covers
+     */
+    public long getCovered() {
+        return covered;
+    }
+
+    /**
+     * Sets how far into the statistics the summary reaches.
+     *
+     * @param extent the extent of the statistics the summary covers
+     */
+    void setCovered(final long extent) {
+        this.covered = extent;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games won by the red player.
+     *
+     * @return the red wins
+     */
+    public long getRedWins() {
+        return redWins;
+    }
+
+    /**
+     * Returns the number of games won by the blue player.
+     *
+     * @return the blue wins
+     */
+    public long getBlueWins() {
+        return games - redWins;
+    }
+
+    /**
+     * Returns the share of the games won by the red player.
+     *
+     * @return the red win rate between 0 and 1, 0 if there are no games
+     */
+    public double getRedWinRate() {
+        return games == 0 ? 0 : (double) redWins / games;
+    }
+
+    /**
+     * Returns the average move counter of the winners.
+     *
+     * @return the average, 0 if there are no games
+     */
+    public double getAverageMoves() {
+        return games == 0 ? 0 : (double) moveSum / games;
+    }
+
+    /**
+     * Returns the smallest move counter of a winner.
+     *
+     * @return the minimum, 0 if there are no games
+     */
+    public long getMinMoves() {
+        return games == 0 ? 0 : moveMin;
+    }
+
+    /**
+     * Returns the largest move counter of a winner.
+     *
+     * @return the maximum, 0 if there are no games
+     */
+    public long getMaxMoves() {
+        return games == 0 ? 0 : moveMax;
+    }
+
+    /**
+     * Returns the number of games whose state is a score.
+     *
+     * @return the number of games with a margin
+     */
+    public long getScoredGames() {
+        return scoredGames;
+    }
+
+    /**
+     * Returns the average score of the red player.
+     *
+     * @return the average, 0 if there are no scored games
+     */
+    public double getAverageRedScore() {
+        return scoredGames == 0 ? 0 : (double) redScoreSum / scoredGames;
+    }
+
+    /**
+     * Returns the average score of the blue player.
+     *
+     * @return the average, 0 if there are no scored games
+     */
+    public double getAverageBlueScore() {
+        return scoredGames == 0 ? 0 : (double) blueScoreSum / scoredGames;
+    }
+
+    /**
+     * Returns the average margin.
+     *
+     * @return the average red score minus blue score, 0 if there are no
+     * scored games
+     */
+    public double getAverageMargin() {
+        return scoredGames == 0 ? 0 : (double) marginSum / scoredGames;
+    }
+
+    /**
+     * Returns the smallest margin.
+     *
+     * @return the minimum, 0 if there are no scored games
+     */
+    public long getMinMargin() {
+        return scoredGames == 0 ? 0 : marginMin;
+    }
+
+    /**
+     * Returns the largest margin.
+     *
+     * @return the maximum, 0 if there are no scored games
+     */
+    public long getMaxMargin() {
+        return scoredGames == 0 ? 0 : marginMax;
+    }
+
+    /**
+     * Returns the number of games won with a move counter.
+     *
+     * @param moves the move counter, the last bucket counting every
+     *              larger one as well
+     * @return the number of games
+     */
+    public long getMoveCount(final int moves) {
+        return moves < 0 || moves >= MOVE_BUCKETS ? 0 : moveHistogram[moves];
+    }
+
+    /**
+     * Returns the number of games ended with a margin.
+     *
+     * @param margin the red score minus the blue score, the outermost
+     *               buckets counting every margin beyond them as well
+     * @return the number of games
+     */
+    public long getMarginCount(final int margin) {
+        return Math.abs(margin) > MARGIN_LIMIT
+                ? 0
+                : marginHistogram[margin + MARGIN_LIMIT];
+    }
+
+    /**
+     * Returns the histogram of the move counters.
+     *
+     * @return the number of games by move counter
+     */
+    public long[] getMoveHistogram() {
+        return Arrays.copyOf(moveHistogram, MOVE_BUCKETS);
+    }
+
+    /**
+     * Returns the histogram of the margins.
+     *
+     * @return the number of games by margin plus {@value #MARGIN_LIMIT}
+     */
+    public long[] getMarginHistogram() {
+        return Arrays.copyOf(marginHistogram, marginHistogram.length);
+    }
+}
@@ -0,0 +1,394 @@
+package boardgame.data;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@code StatisticsWriter} class records finished games in the
+ * background, so the thread finishing a game never waits for the disk.
+ * Records are handed over through a bounded queue; a writer thread takes
+ * whatever has queued up since its last commit and appends it to the
+ * statistics file with a single write through
+ * {@link DataHandler#appendData(java.util.List, boolean)}, forcing it to
+ * the disk once per batch if asked to. When the queue is full,
+ * {@link #submit(String, int, String)} waits for room.
+ *
+ * <p>The records still queued when the JVM exits are committed by a
+ * shutdown hook. The writer keeps metrics of its queue and commits, and
+ * tells its commit listeners about every batch written, so views of the
+ * statistics can be refreshed without waiting for the writes.
+ */
+public class StatisticsWriter implements AutoCloseable {
+
+    /**
+     * The default capacity of the queue.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The most records committed by a single write.
+     */
+    public static final int MAX_BATCH = 4096;
+
+    /**
+     * The record queued by {@link #close()} to stop the writer thread.
+     */
+    private static final Data STOP = new Data(null, 0, null);
+
+    /**
+     * The shared writers of the statistics files, by path.
+     */
+    private static final Map<String, StatisticsWriter> SHARED =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The path of the statistics file.
+     */
+    private final String path;
+
+    /**
+     * The file the records are appended to.
+     */
+    private final DataHandler handler;
+
+    /**
+     * Indicates whether every batch is forced to the disk.
+     */
+    private final boolean force;
+
+    /**
+     * The records waiting to be committed.
+     */
+    private final BlockingQueue<Data> queue;
+
+    /**
+     * The thread committing the records.
+     */
+    private final Thread worker;
+
+    /**
+     * The hook committing the queued records when the JVM exits.
+     */
+    private final Thread shutdownHook;
+
+    /**
+     * The number of records submitted.
+     */
+    private long submitted;
+
+    /**
+     * The number of records committed or dropped by a failed write.
+     */
+    private long processed;
+
+    /**
+     * The number of records committed.
+     */
+    private long committedRecords;
+
+    /**
+     * The number of batches committed.
+     */
+    private long committedBatches;
+
+    /**
+     * The number of records lost by failed writes.
+     */
+    private long failedRecords;
+
+    /**
+     * The total time spent committing batches in nanoseconds.
+     */
+    private long totalCommitNanos;
+
+    /**
+     * The longest commit in nanoseconds.
+     */
+    private long maxCommitNanos;
+
+    /**
+     * Indicates whether the writer is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Held for reading while a record is queued and for writing while
+     * the writer is closed, so every record accepted is queued before
+     * {@link #STOP} and none is left behind when the writer thread ends.
+     */
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+    /**
+     * The listeners called after every committed batch.
+     */
+    private final List<Runnable> commitListeners =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts a writer of a statistics file.
+     *
+     * @param filePath the path of the statistics file
+     * @param capacity the capacity of the queue
+     * @param forceToDisk true to force every batch to the disk
+     */
+    public StatisticsWriter(final String filePath, final int capacity,
+                            final boolean forceToDisk) {
+        this.path = filePath;
+        this.handler = new DataHandler(filePath);
+        this.force = forceToDisk;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, "statistics-writer");
+        worker.setDaemon(true);
+        worker.start();
+        this.shutdownHook = new Thread(this::close,
+                "statistics-writer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Returns the shared writer of a statistics file, starting it with
+     * the default capacity and forcing every batch to the disk
+     * if there is none yet.
+     *
+     * @param filePath the path of the statistics file
+     * @return the writer of the file
+     */
+    public static StatisticsWriter of(final String filePath) {
+        return SHARED.computeIfAbsent(filePath,
+                path -> new StatisticsWriter(path, DEFAULT_CAPACITY, true));
+    }
+
+    /**
+     * Queues the record of a finished game, waiting for room if the
+     * queue is full.
+     *
+     * @param winnerColor the winner color
+     * @param moveCounter the move counter of the winner
+     * @param state       the final score as "red:blue"
+     * @throws IllegalStateException if the writer is closed
+     */
+    public void submit(final String winnerColor, final int moveCounter,
+                       final String state) {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException(
+                        "Statistics writer is closed");
+            }
+            synchronized (this) {
+                submitted++;
+            }
+            queue.put(new Data(winnerColor, moveCounter, state));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                submitted--;
+            }
+            Logger.warn("Interrupted while queueing a record");
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until every record submitted so far is committed.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            var target = submitted;
+            while (processed < target && worker.isAlive()) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting records, commits the queued ones
+     * and stops the writer thread. Records being submitted meanwhile
+     * are either queued before the writer stops or rejected.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            queue.put(STOP);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                Logger.debug("Shutting down, hook already running");
+            }
+        }
+        SHARED.remove(path, this);
+    }
+
+    /**
+     * Adds a listener called after every batch committed to the file.
+     * It is called on the writer thread, never on the thread that
+     * submitted the records, and the next batch waits for it, so it
+     * should hand any long work over to another thread.
+     *
+     * @param listener the listener to add
+     */
+    public void addCommitListener(final Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by {@link #addCommitListener(Runnable)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeCommitListener(final Runnable listener) {
+        commitListeners.remove(listener);
+    }
+
+    /**
+     * Returns the number of records waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of records committed.
+     *
+     * @return the committed records
+     */
+    public synchronized long getCommittedRecords() {
+        return committedRecords;
+    }
+
+    /**
+     * Returns the number of batches committed.
+     *
+     * @return the committed batches
+     */
+    public synchronized long getCommittedBatches() {
+        return committedBatches;
+    }
+
+    /**
+     * Returns the number of records lost by failed writes.
+     *
+     * @return the failed records
+     */
+    public synchronized long getFailedRecords() {
+        return failedRecords;
+    }
+
+    /**
+     * Returns the average time of a commit.
+     *
+     * @return the average commit latency in milliseconds
+     */
+    public synchronized double getAverageCommitMillis() {
+        return committedBatches == 0
+                ? 0
+                : totalCommitNanos / 1e6 / committedBatches;
+    }
+
+    /**
+     * Returns the longest time of a commit.
+     *
+     * @return the maximum commit latency in milliseconds
+     */
+    public synchronized double getMaxCommitMillis() {
+        return maxCommitNanos / 1e6;
+    }
+
+    /**
+     * Commits the queued records in batches until {@link #STOP} is taken.
+     * The writer is not interrupted to stop it, as that would close the
+     * file channel in the middle of a write.
+     */
+    private void run() {
+        var batch = new ArrayList<Data>();
+        var stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            stop = batch.remove(STOP);
+            if (stop) {
+                queue.drainTo(batch);
+            }
+            commit(batch);
+            batch.clear();
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Appends a batch of records with a single write.
+     *
+     * @param batch the records to commit
+     */
+    private void commit(final ArrayList<Data> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        var start = System.nanoTime();
+        var failed = false;
+        try {
+            handler.appendData(batch, force);
+        } catch (IOException | RuntimeException e) {
+            Logger.error("Error while committing {} records", batch.size(),
+                    e);
+            failed = true;
+        }
+        var elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            processed += batch.size();
+            if (failed) {
+                failedRecords += batch.size();
+            } else {
+                committedRecords += batch.size();
+                committedBatches++;
+                totalCommitNanos += elapsed;
+                maxCommitNanos = Math.max(maxCommitNanos, elapsed);
+            }
+            notifyAll();
+        }
+        if (!failed) {
+            for (var listener : commitListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    Logger.error(e, "Error in a commit listener");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package boardgame.engine;
+
+import boardgame.model.BoardState;
+import boardgame.model.RuleSet;
+import javafx.application.Platform;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+/**
+ * The {@code ComputerPlayer} class is a computer opponent.
+ * It searches its moves with a {@link MoveSearch}, by default the
+ * alpha-beta {@link ParallelSearch}. The searches run on a background
+ * thread, so the JavaFX application thread is never blocked, and the
+ * chosen moves are handed back on the JavaFX application thread.
+ */
+public class ComputerPlayer {
+
+    /**
+     * The default time budget of one move in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    /**
+     * The default number of search threads, one per available core.
+     */
+    public static final int DEFAULT_THREADS =
+            Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Indicates whether the computer plays the red circles.
+     */
+    private final boolean playsRed;
+
+    /**
+     * The time budget of one move in milliseconds.
+     */
+    private final long budgetMillis;
+
+    /**
+     * The search engine, only used by the thread of {@link #executor}.
+     */
+    private final MoveSearch engine;
+
+    /**
+     * The executor running the searches.
+     */
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(runnable -> {
+                var thread = new Thread(runnable, "computer-player");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Constructs a new computer player searching on
+     * {@link #DEFAULT_THREADS} threads.
+     *
+     * @param rules  the rules of the game
+     * @param isRed  true if the computer plays the red circles,
+     * false if it plays the blue circles
+     * @param budget the time budget of one move in milliseconds
+     */
+    public ComputerPlayer(final RuleSet rules, final boolean isRed,
+                          final long budget) {
+        this(rules, isRed, budget, DEFAULT_THREADS);
+    }
+
+    /**
+     * Constructs a new computer player.
+     *
+     * @param rules   the rules of the game
+     * @param isRed   true if the computer plays the red circles,
+     * false if it plays the blue circles
+     * @param budget  the time budget of one move in milliseconds
+     * @param threads the number of search threads
+     */
+    public ComputerPlayer(final RuleSet rules, final boolean isRed,
+                          final long budget, final int threads) {
+        this(new ParallelSearch(rules, threads), isRed, budget);
+    }
+
+    /**
+     * Constructs a new computer player choosing its moves
+     * with the given search.
+     *
+     * @param search the search choosing the moves
+     * @param isRed  true if the computer plays the red circles,
+     * false if it plays the blue circles
+     * @param budget the time budget of one move in milliseconds
+     */
+    public ComputerPlayer(final MoveSearch search, final boolean isRed,
+                          final long budget) {
+        this.engine = search;
+        this.playsRed = isRed;
+        this.budgetMillis = budget;
+    }
+
+    /**
+     * Returns whether the computer plays the red circles.
+     *
+     * @return true for red, false for blue
+     */
+    public boolean playsRed() {
+        return playsRed;
+    }
+
+    /**
+     * Starts searching a move in the background. The position is copied,
+     * so the caller can keep using its state while the search runs.
+     * The chosen move, encoded as by {@link boardgame.model.Move},
+     * is passed to the callback on the JavaFX application thread.
+     *
+     * @param position the position to move in
+     * @param onMove   the callback receiving the chosen move,
+     * or -1 if there is no legal move
+     */
+    public void requestMove(final BoardState position,
+                            final IntConsumer onMove) {
+        var state = position.copy();
+        executor.submit(() -> {
+            var move = engine.search(state, budgetMillis);
+            if (!Thread.currentThread().isInterrupted()) {
+                Platform.runLater(() -> onMove.accept(move));
+            }
+        });
+    }
+
+    /**
+     * Stops the background threads of the player. A running search is
+     * interrupted and its move is dropped.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        engine.shutdown();
+    }
+}
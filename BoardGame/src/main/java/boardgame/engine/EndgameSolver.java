@@ -0,0 +1,349 @@
+package boardgame.engine;
+
+import boardgame.model.GameOutcome;
+import boardgame.model.BoardState;
+import boardgame.model.RuleSet;
+import org.tinylog.Logger;
+
+import java.util.Optional;
+
+/**
+ * The {@code EndgameSolver} class solves positions with few empty
+ * squares. It searches the game tree with alpha-beta pruning down to the
+ * end of the game, scoring finished games by their final score.
+ * Jumps do not fill the board, so a game can go on forever: a line that
+ * repeats a position, or that is still going on at the horizon of the
+ * search, is scored as undecided, worse than any win and better than
+ * any loss. The horizon is deepened one ply at a time until the player
+ * to move can force the end of the game, or can be forced into it,
+ * so a decided value is the final score perfect play reaches within the
+ * shortest horizon deciding the game.
+ * Moves are ordered by the number of circles they turn, and results are
+ * kept in a {@link TranspositionTable} of the solver. An undecided value
+ * depends on the path to the position and on the horizon, so a value
+ * resting on an undecided line is never reused: such a position only
+ * keeps its best move, stored at depth 0, to order the moves next time.
+ * A solve gives up when its time budget is used up or when its thread
+ * is interrupted.
+ *
+ * <p>Values are twice the final score difference for the player to move,
+ * so ties, which go to the blue player, can be told apart from undecided
+ * games: a tie is worth 1 for blue and -1 for red,
+ * and an undecided game is worth 0.
+ */
+public class EndgameSolver {
+
+    /**
+     * The size of the transposition table of the solver,
+     * as the base two logarithm of the number of buckets.
+     */
+    public static final int DEFAULT_TABLE_BITS = 18;
+
+    /**
+     * The deepest horizon of a solve in plies.
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The value of an undecided game.
+     */
+    public static final int UNDECIDED = 0;
+
+    /**
+     * A value larger than any final score.
+     */
+    private static final int INFINITY = 1 << 10;
+
+    /**
+     * The number of nodes searched between two checks of the clock.
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /**
+     * The rules of the solved games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The transposition table of the solver.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The move buffers of every ply.
+     */
+    private final int[][] moves;
+
+    /**
+     * The ordering scores of the moves of every ply.
+     */
+    private final int[][] scores;
+
+    /**
+     * The number of nodes visited by the current solve.
+     */
+    private long nodes;
+
+    /**
+     * The time when the current solve has to stop, in nanoseconds.
+     */
+    private long deadline;
+
+    /**
+     * Indicates whether the current solve gave up.
+     */
+    private boolean stopped;
+
+    /**
+     * Indicates whether the value last returned by the search rests on
+     * an undecided line.
+     */
+    private boolean undecidedBelow;
+
+    /**
+     * The horizon of the current iteration in plies.
+     */
+    private int horizon;
+
+    /**
+     * The best move found by the last solve.
+     */
+    private int bestMove;
+
+    /**
+     * The value of the last solved position.
+     */
+    private int value;
+
+    /**
+     * Indicates whether the red player was to move in the solved position.
+     */
+    private boolean redToMove;
+
+    /**
+     * Constructs a new endgame solver for the specified rules.
+     *
+     * @param ruleSet the rules of the solved games
+     */
+    public EndgameSolver(final RuleSet ruleSet) {
+        this.rules = ruleSet;
+        this.table = new TranspositionTable(DEFAULT_TABLE_BITS);
+        this.moves = new int[MAX_PLY + 1][ruleSet.getMaxMoves()];
+        this.scores = new int[MAX_PLY + 1][ruleSet.getMaxMoves()];
+    }
+
+    /**
+     * Solves a position. The state is used as scratch space and is
+     * restored before returning.
+     *
+     * @param state        the position to solve
+     * @param budgetMillis the time budget of the solve in milliseconds
+     * @return true if the game was decided within the budget
+     */
+    public boolean solve(final BoardState state, final long budgetMillis) {
+        var start = System.nanoTime();
+        deadline = start + budgetMillis * 1_000_000L;
+        nodes = 0;
+        stopped = false;
+        bestMove = -1;
+        redToMove = state.isRedTurn();
+        table.clear();
+
+        var rootMoves = moves[0];
+        var count = state.generateMoves(rootMoves);
+        if (count == 0) {
+            value = finalValue(state);
+            return true;
+        }
+        SearchEngine.orderMoves(state, rootMoves, scores[0], count);
+
+        value = UNDECIDED;
+        for (horizon = 1; horizon <= MAX_PLY; horizon++) {
+            var alpha = -INFINITY;
+            var iterationBest = -1;
+            for (var i = 0; i < count; i++) {
+                state.make(rootMoves[i]);
+                var score = -solve(state, -INFINITY, -alpha, 1);
+                state.unmake();
+                if (stopped) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = rootMoves[i];
+                }
+            }
+            if (stopped) {
+                break;
+            }
+            bestMove = iterationBest;
+            value = alpha;
+            SearchEngine.moveToFront(rootMoves, count, bestMove);
+            if (value != UNDECIDED) {
+                break;
+            }
+        }
+        var decided = value != UNDECIDED;
+        Logger.info("Endgame {} in {} ms, horizon {}, value {}, {} nodes",
+                decided ? "solved" : "not solved",
+                (System.nanoTime() - start) / 1_000_000, horizon, value,
+                nodes);
+        return decided;
+    }
+
+    /**
+     * Returns the best move found by the last solve,
+     * that is by its last completed iteration.
+     *
+     * @return the best move encoded as by {@link boardgame.model.Move},
+     * or -1 if the player to move has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Returns the value of the last solved position
+     * for the player to move, as described in the class comment.
+     *
+     * @return the value of the position
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last solve.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the final score of the last solved position under perfect
+     * play, as it would be stored in the statistics.
+     *
+     * @param state the solved position
+     * @return the final score, or an empty optional
+     * if the game was not decided
+     */
+    public Optional<GameOutcome> getOutcome(final BoardState state) {
+        if (value == UNDECIDED) {
+            return Optional.empty();
+        }
+        var total = state.countHead() + state.countTail()
+                + state.countEmpty();
+        var difference = value / 2;
+        var red = (total + (redToMove ? difference : -difference)) / 2;
+        return Optional.of(new GameOutcome(red, total - red));
+    }
+
+    /**
+     * Solves a position with the negamax alpha-beta algorithm.
+     *
+     * @param state the position to solve
+     * @param alpha the lower bound of the search window
+     * @param beta  the upper bound of the search window
+     * @param ply   the distance from the root
+     * @return the value of the position for the player to move
+     */
+    private int solve(final BoardState state, final int alpha,
+                      final int beta, final int ply) {
+        if (++nodes % CHECK_INTERVAL == 0
+                && (Thread.currentThread().isInterrupted()
+                || System.nanoTime() - deadline > 0)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        undecidedBelow = true;
+        if (state.isRepetition()) {
+            return UNDECIDED;
+        }
+        var buffer = moves[ply];
+        var count = state.generateMoves(buffer);
+        var depth = horizon - ply;
+        if (count > 0 && depth <= 0) {
+            return UNDECIDED;
+        }
+        undecidedBelow = false;
+        if (count == 0) {
+            return finalValue(state);
+        }
+
+        var key = state.getHash();
+        var entry = table.probe(key);
+        var hashMove = -1;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+        }
+        if (entry != TranspositionTable.MISS
+                && TranspositionTable.depth(entry) >= depth) {
+            var score = TranspositionTable.score(entry);
+            var bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER && score <= alpha) {
+                return score;
+            }
+        }
+
+        SearchEngine.orderMoves(state, buffer, scores[ply], count);
+        if (hashMove >= 0) {
+            SearchEngine.moveToFront(buffer, count, hashMove);
+        }
+
+        var best = -INFINITY;
+        var move = -1;
+        var a = alpha;
+        var undecided = false;
+        for (var i = 0; i < count; i++) {
+            state.make(buffer[i]);
+            var score = -solve(state, -beta, -a, ply + 1);
+            state.unmake();
+            if (stopped) {
+                return 0;
+            }
+            undecided |= undecidedBelow;
+            if (score > best) {
+                best = score;
+                move = buffer[i];
+                if (score > a) {
+                    a = score;
+                    if (a >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound;
+        if (best <= alpha) {
+            bound = TranspositionTable.UPPER;
+        } else if (best >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, move, best, undecided ? 0 : depth, bound);
+        undecidedBelow = undecided;
+        return best;
+    }
+
+    /**
+     * Returns the value of a finished game for the player to move.
+     *
+     * @param state the final position
+     * @return twice the final score difference, or the value of a tie
+     */
+    private static int finalValue(final BoardState state) {
+        var difference = GameOutcome.scoreForSideToMove(state);
+        if (difference != 0) {
+            return 2 * difference;
+        }
+        return state.isRedTurn() ? -1 : 1;
+    }
+}
@@ -0,0 +1,417 @@
+package boardgame.engine;
+
+import boardgame.model.GameOutcome;
+import boardgame.model.BoardState;
+import boardgame.model.RuleSet;
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code MonteCarloSearch} class chooses moves with Monte Carlo tree
+ * search: it grows a game tree by UCT selection and scores its leaves
+ * with random playouts to the end of the game.
+ * The search is root parallel: every thread of a {@link ForkJoinPool}
+ * grows its own tree from the same position and the root visit counts
+ * of the trees are added up. The nodes of a tree live in parallel
+ * primitive arrays allocated once, and playouts make and unmake moves
+ * in place, so a search allocates nothing per simulation.
+ */
+public class MonteCarloSearch implements MoveSearch {
+
+    /**
+     * The default number of nodes of the tree of one thread.
+     */
+    public static final int DEFAULT_TREE_NODES = 1 << 18;
+
+    /**
+     * The number of plies after which a playout is stopped
+     * and scored by the circles on the board.
+     */
+    public static final int MAX_PLAYOUT_PLIES = 200;
+
+    /**
+     * The exploration constant of the UCT formula.
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * The number of simulations between two checks of the clock.
+     */
+    private static final int CHECK_INTERVAL = 64;
+
+    /**
+     * The trees of the threads.
+     */
+    private final Tree[] trees;
+
+    /**
+     * The pool running the trees.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of simulations of the last search.
+     */
+    private long simulations;
+
+    /**
+     * Constructs a new search with the default tree size.
+     *
+     * @param rules   the rules of the searched games
+     * @param threads the number of search threads, at least one
+     */
+    public MonteCarloSearch(final RuleSet rules, final int threads) {
+        this(rules, threads, DEFAULT_TREE_NODES, System.nanoTime());
+    }
+
+    /**
+     * Constructs a new search.
+     *
+     * @param rules     the rules of the searched games
+     * @param threads   the number of search threads, at least one
+     * @param treeNodes the number of nodes of the tree of one thread
+     * @param seed      the seed of the random playouts
+     * @throws IllegalArgumentException if the thread count
+     * or the tree size is not positive
+     */
+    public MonteCarloSearch(final RuleSet rules, final int threads,
+                            final int treeNodes, final long seed) {
+        if (threads < 1 || treeNodes < 1) {
+            throw new IllegalArgumentException("Invalid search size: "
+                    + threads + " threads, " + treeNodes + " nodes");
+        }
+        var random = new SplittableRandom(seed);
+        this.trees = new Tree[threads];
+        for (var i = 0; i < threads; i++) {
+            trees[i] = new Tree(rules, treeNodes, random.split());
+        }
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Searches the best move of the player to move
+     * until the time budget is used up.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @return the most visited move encoded as by
+     * {@link boardgame.model.Move}, or -1 if there is no legal move
+     */
+    @Override
+    public int search(final BoardState state, final long budgetMillis) {
+        return search(state, budgetMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches the best move of the player to move until the time budget
+     * is used up or every thread has run its share of the simulations.
+     * The state is not modified.
+     *
+     * @param state          the position to search
+     * @param budgetMillis   the time budget of the search in milliseconds
+     * @param maxSimulations the maximum number of simulations
+     * @return the most visited move encoded as by
+     * {@link boardgame.model.Move}, or -1 if there is no legal move
+     */
+    public int search(final BoardState state, final long budgetMillis,
+                      final long maxSimulations) {
+        var start = System.nanoTime();
+        var deadline = start + budgetMillis * 1_000_000L;
+        var share = Math.max(1, maxSimulations / trees.length);
+        var tasks = new ArrayList<RecursiveAction>(trees.length);
+        for (var tree : trees) {
+            tree.reset(state);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    tree.run(deadline, share);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        var root = trees[0];
+        var children = root.childCount[0];
+        var bestMove = -1;
+        var bestVisits = -1L;
+        simulations = 0;
+        for (var tree : trees) {
+            simulations += tree.simulations;
+        }
+        for (var c = 0; c < children; c++) {
+            var visits = 0L;
+            for (var tree : trees) {
+                visits += tree.visits[tree.firstChild[0] + c];
+            }
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                bestMove = root.moves[root.firstChild[0] + c];
+            }
+        }
+
+        var elapsed = Math.max(1, System.nanoTime() - start);
+        Logger.info("MCTS: {} simulations, {} per second, best move visited"
+                        + " {} times", simulations,
+                simulations * 1_000_000_000L / elapsed, bestVisits);
+        return bestMove;
+    }
+
+    /**
+     * Returns the number of simulations of the last search.
+     *
+     * @return the simulation count of all threads
+     */
+    public long getSimulations() {
+        return simulations;
+    }
+
+    /**
+     * Stops the threads of the search.
+     */
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The search tree of one thread. Node 0 is the root, and the
+     * children of a node are stored next to each other.
+     * The statistics of a node are kept for the player who made
+     * the move leading to it.
+     */
+    private static final class Tree {
+
+        /**
+         * The move leading to every node.
+         */
+        private final int[] moves;
+
+        /**
+         * The index of the first child of every node,
+         * or -1 if the node is not expanded.
+         */
+        private final int[] firstChild;
+
+        /**
+         * The number of children of every node.
+         */
+        private final int[] childCount;
+
+        /**
+         * The number of simulations through every node.
+         */
+        private final int[] visits;
+
+        /**
+         * The points won through every node by the player
+         * who made the move leading to it: 1 for a win, 0.5 for a draw.
+         */
+        private final double[] wins;
+
+        /**
+         * The nodes on the path of the current simulation.
+         */
+        private final int[] path;
+
+        /**
+         * The move buffer of the expansions and playouts.
+         */
+        private final int[] buffer;
+
+        /**
+         * The random generator of the playouts.
+         */
+        private final SplittableRandom random;
+
+        /**
+         * The position the simulations are run on.
+         */
+        private BoardState state;
+
+        /**
+         * The number of nodes in use.
+         */
+        private int size;
+
+        /**
+         * The number of simulations of the current search.
+         */
+        private long simulations;
+
+        /**
+         * Constructs a new tree.
+         *
+         * @param ruleSet   the rules of the searched games
+         * @param capacity  the maximum number of nodes
+         * @param generator the random generator of the playouts
+         */
+        Tree(final RuleSet ruleSet, final int capacity,
+             final SplittableRandom generator) {
+            this.moves = new int[capacity];
+            this.firstChild = new int[capacity];
+            this.childCount = new int[capacity];
+            this.visits = new int[capacity];
+            this.wins = new double[capacity];
+            this.path = new int[capacity];
+            this.buffer = new int[ruleSet.getMaxMoves()];
+            this.random = generator;
+            this.state = BoardState.create(ruleSet);
+        }
+
+        /**
+         * Clears the tree and sets a new root position.
+         * The root is expanded at once, so every tree has the root moves
+         * in the order of the move generator.
+         *
+         * @param root the position to search
+         */
+        void reset(final BoardState root) {
+            state = root.copy();
+            size = 1;
+            simulations = 0;
+            firstChild[0] = -1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            wins[0] = 0;
+            expand(0);
+        }
+
+        /**
+         * Runs simulations until the deadline, the simulation limit or
+         * an interrupt of the thread.
+         *
+         * @param deadline       the time to stop at, in nanoseconds
+         * @param maxSimulations the maximum number of simulations
+         */
+        void run(final long deadline, final long maxSimulations) {
+            if (childCount[0] == 0) {
+                return;
+            }
+            while (simulations < maxSimulations) {
+                simulate();
+                if (++simulations % CHECK_INTERVAL == 0
+                        && (Thread.currentThread().isInterrupted()
+                        || System.nanoTime() - deadline > 0)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Runs one simulation: selects a leaf, expands it,
+         * plays the game out randomly and updates the statistics
+         * of the path.
+         */
+        private void simulate() {
+            var base = state.getHistorySize();
+            var rootRed = state.isRedTurn();
+            var node = 0;
+            var length = 0;
+            while (firstChild[node] >= 0 && childCount[node] > 0) {
+                node = select(node);
+                state.make(moves[node]);
+                path[length++] = node;
+            }
+            if (firstChild[node] < 0 && expand(node)) {
+                node = firstChild[node] + random.nextInt(childCount[node]);
+                state.make(moves[node]);
+                path[length++] = node;
+            }
+
+            var redScore = playout();
+
+            while (state.getHistorySize() > base) {
+                state.unmake();
+            }
+            visits[0]++;
+            for (var i = 0; i < length; i++) {
+                var moverRed = rootRed == (i % 2 == 0);
+                visits[path[i]]++;
+                wins[path[i]] += moverRed ? redScore : 1 - redScore;
+            }
+        }
+
+        /**
+         * Selects the child of a node with the highest UCT value.
+         * Unvisited children are selected first.
+         *
+         * @param node the expanded node
+         * @return the index of the selected child
+         */
+        private int select(final int node) {
+            var first = firstChild[node];
+            var end = first + childCount[node];
+            var logVisits = Math.log(visits[node]);
+            var best = first;
+            var bestValue = Double.NEGATIVE_INFINITY;
+            for (var c = first; c < end; c++) {
+                if (visits[c] == 0) {
+                    return c;
+                }
+                var value = wins[c] / visits[c]
+                        + EXPLORATION * Math.sqrt(logVisits / visits[c]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Adds the children of a node for every legal move
+         * of the current position, if there is room for them.
+         *
+         * @param node the node of the current position
+         * @return true if the node has children
+         */
+        private boolean expand(final int node) {
+            var count = state.generateMoves(buffer);
+            if (size + count > moves.length) {
+                return false;
+            }
+            firstChild[node] = size;
+            childCount[node] = count;
+            for (var i = 0; i < count; i++) {
+                var child = size + i;
+                moves[child] = buffer[i];
+                firstChild[child] = -1;
+                childCount[child] = 0;
+                visits[child] = 0;
+                wins[child] = 0;
+            }
+            size += count;
+            return count > 0;
+        }
+
+        /**
+         * Plays random moves from the current position until the game
+         * ends or {@link #MAX_PLAYOUT_PLIES} plies are played.
+         * An unfinished game is won by the player with more circles.
+         *
+         * @return 1 if red wins, 0 if blue wins, 0.5 for a draw
+         */
+        private double playout() {
+            for (var ply = 0; ply < MAX_PLAYOUT_PLIES; ply++) {
+                var count = state.generateMoves(buffer);
+                if (count == 0) {
+                    var score = GameOutcome.scoreForSideToMove(state);
+                    var redWins = state.isRedTurn() ? score > 0 : score < 0;
+                    return redWins ? 1 : 0;
+                }
+                state.make(buffer[random.nextInt(count)]);
+            }
+            var difference = state.countHead() - state.countTail();
+            return difference > 0 ? 1 : difference < 0 ? 0 : 0.5;
+        }
+    }
+}
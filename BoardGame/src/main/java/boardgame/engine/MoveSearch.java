@@ -0,0 +1,27 @@
+package boardgame.engine;
+
+import boardgame.model.BoardState;
+
+/**
+ * The {@code MoveSearch} interface is implemented by the searches
+ * a {@link ComputerPlayer} can choose its moves with.
+ */
+public interface MoveSearch {
+
+    /**
+     * Searches the best move of the player to move within a time budget.
+     * The state may be used as scratch space and is restored
+     * before returning.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @return the best move found encoded as by
+     * {@link boardgame.model.Move}, or -1 if there is no legal move
+     */
+    int search(BoardState state, long budgetMillis);
+
+    /**
+     * Stops the threads of the search.
+     */
+    void shutdown();
+}
@@ -0,0 +1,275 @@
+package boardgame.engine;
+
+import boardgame.model.BoardState;
+import boardgame.model.RuleSet;
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ParallelSearch} class spreads the search of a move over
+ * several cores with the Lazy SMP scheme. Every thread runs its own
+ * {@link SearchEngine} on its own copy of the position, and all of them
+ * share one {@link TranspositionTable}, so the helper threads fill the
+ * table with results the main thread can reuse.
+ * The move of the main thread is played; the helpers are stopped
+ * as soon as it finishes.
+ */
+public class ParallelSearch implements MoveSearch {
+
+    /**
+     * The time budget of one benchmark search in milliseconds.
+     */
+    private static final long BENCHMARK_MILLIS = 3000;
+
+    /**
+     * The depth of the fixed depth benchmark searches.
+     */
+    private static final int BENCHMARK_DEPTH = 8;
+
+    /**
+     * The number of search threads.
+     */
+    private final int threads;
+
+    /**
+     * The shared transposition table.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The search engines, the first one belongs to the main thread.
+     */
+    private final SearchEngine[] engines;
+
+    /**
+     * The executor running the helper searches,
+     * or {@code null} if there is a single thread.
+     */
+    private final ExecutorService helpers;
+
+    /**
+     * The number of nodes visited by all threads in the last search.
+     */
+    private long nodes;
+
+    /**
+     * Constructs a new parallel search with its own transposition table.
+     *
+     * @param rules       the rules of the searched games
+     * @param threadCount the number of search threads, at least one
+     * @throws IllegalArgumentException if the thread count is not positive
+     */
+    public ParallelSearch(final RuleSet rules, final int threadCount) {
+        this(rules, threadCount,
+                new TranspositionTable(SearchEngine.DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * Constructs a new parallel search.
+     *
+     * @param rules          the rules of the searched games
+     * @param threadCount    the number of search threads, at least one
+     * @param transpositions the transposition table shared by the threads
+     * @throws IllegalArgumentException if the thread count is not positive
+     */
+    public ParallelSearch(final RuleSet rules, final int threadCount,
+                          final TranspositionTable transpositions) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid thread count: " + threadCount);
+        }
+        this.threads = threadCount;
+        this.table = transpositions;
+        this.engines = new SearchEngine[threadCount];
+        for (var i = 0; i < threadCount; i++) {
+            engines[i] = new SearchEngine(rules, transpositions);
+        }
+        if (threadCount > 1) {
+            helpers = Executors.newFixedThreadPool(threadCount - 1,
+                    runnable -> {
+                        var thread = new Thread(runnable, "search-helper");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            helpers = null;
+        }
+    }
+
+    /**
+     * Returns the number of search threads.
+     *
+     * @return the thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of empty squares at or below which the main
+     * thread tries the endgame solver before searching.
+     *
+     * @param empties the number of empty squares
+     * @see SearchEngine#setEndgameThreshold(int)
+     */
+    public void setEndgameThreshold(final int empties) {
+        engines[0].setEndgameThreshold(empties);
+    }
+
+    /**
+     * Returns the shared transposition table.
+     *
+     * @return the transposition table
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the best move of the player to move on all threads
+     * up to the maximum depth of the engine.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @return the best move found encoded as by
+     * {@link boardgame.model.Move}, or -1 if there is no legal move
+     */
+    @Override
+    public int search(final BoardState state, final long budgetMillis) {
+        return search(state, budgetMillis, SearchEngine.MAX_PLY);
+    }
+
+    /**
+     * Searches the best move of the player to move on all threads.
+     * The state is used as scratch space by the main thread
+     * and is restored before returning.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @param maxDepth     the maximum depth of the search in plies
+     * @return the best move found encoded as by
+     * {@link boardgame.model.Move}, or -1 if there is no legal move
+     */
+    public int search(final BoardState state, final long budgetMillis,
+                      final int maxDepth) {
+        var running = new ArrayList<Future<?>>(threads - 1);
+        for (var i = 1; i < threads; i++) {
+            var engine = engines[i];
+            var copy = state.copy();
+            var skew = i;
+            engine.clearAbort();
+            running.add(helpers.submit(() ->
+                    engine.search(copy, budgetMillis, maxDepth, skew)));
+        }
+
+        var move = engines[0].search(state, budgetMillis, maxDepth);
+
+        for (var i = 1; i < threads; i++) {
+            engines[i].abort();
+        }
+        for (var future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Logger.error(e.getCause(), "A search helper failed");
+            }
+        }
+        nodes = 0;
+        for (var engine : engines) {
+            nodes += engine.getNodes();
+        }
+        return move;
+    }
+
+    /**
+     * Returns the number of nodes visited by all threads
+     * in the last search.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the score of the last search from the point of view
+     * of the player to move.
+     *
+     * @return the score of the best move
+     */
+    public int getLastScore() {
+        return engines[0].getLastScore();
+    }
+
+    /**
+     * Returns the depth completed by the main thread in the last search.
+     *
+     * @return the completed search depth in plies
+     */
+    public int getCompletedDepth() {
+        return engines[0].getCompletedDepth();
+    }
+
+    /**
+     * Stops the helper threads.
+     */
+    @Override
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    /**
+     * Measures the search on the starting position with 1, 2, 4, ...
+     * threads up to the number of available cores, or up to the number
+     * given as the first argument. For every thread count it reports
+     * the nodes per second of a fixed time search, the time to reach
+     * a fixed depth, and the speedup of both over a single thread.
+     *
+     * @param args the optional maximum thread count
+     */
+    public static void main(final String[] args) {
+        var maxThreads = args.length > 0
+                ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        var rules = RuleSet.standard();
+        var state = BoardState.create(rules);
+        state.setUp();
+
+        var baseNps = 0.0;
+        var baseMillis = 0.0;
+        for (var threadCount = 1; threadCount <= maxThreads;
+             threadCount *= 2) {
+            var search = new ParallelSearch(rules, threadCount);
+
+            var start = System.nanoTime();
+            search.search(state, BENCHMARK_MILLIS, SearchEngine.MAX_PLY);
+            var nps = search.getNodes() * 1e9 / (System.nanoTime() - start);
+
+            search.getTable().clear();
+            start = System.nanoTime();
+            search.search(state, TimeUnit.HOURS.toMillis(1),
+                    BENCHMARK_DEPTH);
+            var millis = (System.nanoTime() - start) / 1e6;
+            search.shutdown();
+
+            if (threadCount == 1) {
+                baseNps = nps;
+                baseMillis = millis;
+            }
+            System.out.printf("threads %2d: %,12.0f nodes/s (x%.2f), "
+                            + "depth %d in %,8.0f ms (x%.2f)%n",
+                    threadCount, nps, nps / baseNps, BENCHMARK_DEPTH,
+                    millis, baseMillis / millis);
+        }
+    }
+}
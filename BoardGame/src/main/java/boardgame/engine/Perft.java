@@ -0,0 +1,224 @@
+package boardgame.engine;
+
+import boardgame.model.BoardState;
+import boardgame.model.Move;
+import boardgame.model.RuleSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code Perft} class counts the leaves of the game tree, that is
+ * every sequence of legal placements and jumps of a given length.
+ * The counts are an oracle for the move generator, since any change to
+ * it must keep them, and a throughput benchmark of making moves.
+ * A game that ends before the given depth adds no leaf.
+ * The upper plies of the tree are split into tasks of a
+ * {@link ForkJoinPool}, the rest is counted on one thread per subtree.
+ */
+public final class Perft {
+
+    /**
+     * The number of plies left under which a subtree
+     * is counted on the current thread.
+     */
+    private static final int SEQUENTIAL_DEPTH = 4;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private Perft() {
+
+    }
+
+    /**
+     * Counts the leaves of the game tree on the current thread.
+     * The state is restored before returning.
+     *
+     * @param state the root position
+     * @param depth the length of the counted move sequences
+     * @return the number of leaves
+     */
+    public static long perft(final BoardState state, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        var buffers = new int[depth][state.getRules().getMaxMoves()];
+        return count(state, depth, buffers);
+    }
+
+    /**
+     * Counts the leaves of the game tree on a fork-join pool.
+     * The state is not modified.
+     *
+     * @param state the root position
+     * @param depth the length of the counted move sequences
+     * @param pool  the pool running the subtrees
+     * @return the number of leaves
+     */
+    public static long perft(final BoardState state, final int depth,
+                             final ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(state.copy(), depth));
+    }
+
+    /**
+     * Counts the leaves of the subtree of every legal move of the root
+     * on a fork-join pool. The state is not modified.
+     *
+     * @param state the root position
+     * @param depth the length of the counted move sequences, at least one
+     * @param pool  the pool running the subtrees
+     * @return the number of leaves by root move, encoded as by
+     * {@link Move}, in the order of the move generator
+     */
+    public static Map<Integer, Long> divide(final BoardState state,
+                                            final int depth,
+                                            final ForkJoinPool pool) {
+        var moves = new int[state.getRules().getMaxMoves()];
+        var count = state.generateMoves(moves);
+        var tasks = new ArrayList<PerftTask>(count);
+        for (var i = 0; i < count; i++) {
+            var child = state.copy();
+            child.make(moves[i]);
+            tasks.add(new PerftTask(child, depth - 1));
+        }
+        var result = new LinkedHashMap<Integer, Long>();
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (var i = 0; i < count; i++) {
+            result.put(moves[i], tasks.get(i).join());
+        }
+        return result;
+    }
+
+    /**
+     * Counts the leaves of a subtree, bulk counting the moves
+     * of the last ply without making them.
+     *
+     * @param state   the root of the subtree
+     * @param depth   the remaining depth, at least one
+     * @param buffers the move buffer of every remaining ply
+     * @return the number of leaves
+     */
+    private static long count(final BoardState state, final int depth,
+                              final int[][] buffers) {
+        var moves = buffers[depth - 1];
+        var count = state.generateMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        var leaves = 0L;
+        for (var i = 0; i < count; i++) {
+            state.make(moves[i]);
+            leaves += count(state, depth - 1, buffers);
+            state.unmake();
+        }
+        return leaves;
+    }
+
+    /**
+     * A task counting the leaves of a subtree, forking a task
+     * for every move while the subtree is deep enough.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+
+        /**
+         * The serialization version of the task.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The root of the subtree, owned by the task.
+         */
+        private final BoardState state;
+
+        /**
+         * The remaining depth.
+         */
+        private final int depth;
+
+        /**
+         * Constructs a new task.
+         *
+         * @param root      the root of the subtree, owned by the task
+         * @param remaining the remaining depth
+         */
+        PerftTask(final BoardState root, final int remaining) {
+            this.state = root;
+            this.depth = remaining;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return perft(state, depth);
+            }
+            var moves = new int[state.getRules().getMaxMoves()];
+            var count = state.generateMoves(moves);
+            var tasks = new ArrayList<PerftTask>(count);
+            for (var i = 0; i < count; i++) {
+                var child = state.copy();
+                child.make(moves[i]);
+                tasks.add(new PerftTask(child, depth - 1));
+            }
+            invokeAll(tasks);
+            var leaves = 0L;
+            for (var task : tasks) {
+                leaves += task.join();
+            }
+            return leaves;
+        }
+    }
+
+    /**
+     * Prints the divide of the starting position and the leaves
+     * per second with 1, 2, 4, ... threads up to the number of
+     * available cores.
+     *
+     * @param args the depth, 6 if missing, the optional maximum
+     *             thread count and the optional board size
+     */
+    public static void main(final String[] args) {
+        var depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        var maxThreads = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        var rules = args.length > 2
+                ? RuleSet.ofSize(Integer.parseInt(args[2]))
+                : RuleSet.standard();
+        var state = BoardState.create(rules);
+        state.setUp();
+
+        var pool = new ForkJoinPool(maxThreads);
+        var total = 0L;
+        for (var entry : divide(state, depth, pool).entrySet()) {
+            System.out.printf("%-14s %,d%n",
+                    Move.toString(entry.getKey(), rules), entry.getValue());
+            total += entry.getValue();
+        }
+        pool.shutdown();
+        System.out.printf("perft(%d) = %,d%n", depth, total);
+
+        var base = 0.0;
+        for (var threads = 1; threads <= maxThreads; threads *= 2) {
+            var threadPool = new ForkJoinPool(threads);
+            var start = System.nanoTime();
+            var leaves = perft(state, depth, threadPool);
+            var rate = leaves * 1e9 / (System.nanoTime() - start);
+            threadPool.shutdown();
+            if (threads == 1) {
+                base = rate;
+            }
+            System.out.printf("threads %2d: %,14.0f leaves/s (x%.2f)%n",
+                    threads, rate, rate / base);
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package boardgame.engine;
+
+import boardgame.model.BoardState;
+import boardgame.model.Move;
+import boardgame.model.RuleSet;
+import org.tinylog.Logger;
+
+import java.util.Arrays;
+
+/**
+ * The {@code SearchEngine} class chooses moves for the computer player.
+ * It runs a negamax alpha-beta search with iterative deepening over
+ * a {@link BoardState}, making and unmaking moves in place, and stops
+ * when the time budget of the move is used up, when it is aborted or
+ * when its thread is interrupted.
+ * Results are kept in a {@link TranspositionTable}, whose best moves
+ * are searched first; the other moves are ordered by the number of
+ * circles they turn.
+ * Positions with at most {@link #DEFAULT_ENDGAME_EMPTIES} empty squares
+ * are first given to an {@link EndgameSolver}, using half the budget.
+ * An engine is not thread-safe, every search thread needs its own,
+ * but several engines can share one transposition table.
+ */
+public class SearchEngine {
+
+    /**
+     * A score larger than any evaluation.
+     */
+    public static final int INFINITY = 1_000_000;
+
+    /**
+     * The score of a won game, before the margin and distance are applied.
+     */
+    public static final int WIN = 100_000;
+
+    /**
+     * The maximum depth of the search in plies.
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The size of the transposition table of an engine created without
+     * one, as the base two logarithm of the number of buckets.
+     */
+    public static final int DEFAULT_TABLE_BITS = 18;
+
+    /**
+     * The default number of empty squares at or below which
+     * the endgame solver is tried first.
+     */
+    public static final int DEFAULT_ENDGAME_EMPTIES = 4;
+
+    /**
+     * The number of nodes searched between two checks of the clock.
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /**
+     * The weight of one placeable square in the evaluation.
+     */
+    private static final int FRONTIER_WEIGHT = 1;
+
+    /**
+     * The weight of one circle in the evaluation.
+     */
+    private static final int CIRCLE_WEIGHT = 4;
+
+    /**
+     * The rules of the searched games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The transposition table of the searches.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The number of empty squares at or below which
+     * the endgame solver is tried first.
+     */
+    private int endgameThreshold = DEFAULT_ENDGAME_EMPTIES;
+
+    /**
+     * The endgame solver, created when first needed.
+     */
+    private EndgameSolver solver;
+
+    /**
+     * The move buffers of every ply.
+     */
+    private final int[][] moves;
+
+    /**
+     * The ordering scores of the moves of every ply.
+     */
+    private final int[][] scores;
+
+    /**
+     * The number of nodes visited by the current search.
+     */
+    private long nodes;
+
+    /**
+     * The time when the current search has to stop, in nanoseconds.
+     */
+    private long deadline;
+
+    /**
+     * Indicates whether the current search ran out of time.
+     */
+    private boolean stopped;
+
+    /**
+     * Indicates whether another thread asked the search to stop.
+     */
+    private volatile boolean aborted;
+
+    /**
+     * The score of the last completed iteration.
+     */
+    private int lastScore;
+
+    /**
+     * The depth of the last completed iteration.
+     */
+    private int completedDepth;
+
+    /**
+     * Constructs a new search engine for the specified rules
+     * with its own transposition table.
+     *
+     * @param ruleSet the rules of the searched games
+     */
+    public SearchEngine(final RuleSet ruleSet) {
+        this(ruleSet, new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * Constructs a new search engine for the specified rules
+     * using the given transposition table.
+     *
+     * @param ruleSet        the rules of the searched games
+     * @param transpositions the transposition table of the searches
+     */
+    public SearchEngine(final RuleSet ruleSet,
+                        final TranspositionTable transpositions) {
+        this.rules = ruleSet;
+        this.table = transpositions;
+        this.moves = new int[MAX_PLY + 1][ruleSet.getMaxMoves()];
+        this.scores = new int[MAX_PLY + 1][ruleSet.getMaxMoves()];
+    }
+
+    /**
+     * Searches the best move of the player to move.
+     * The state is used as scratch space and is restored before returning.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @param maxDepth     the maximum depth of the search in plies
+     * @return the best move found encoded as by {@link Move},
+     * or -1 if the player to move has no legal move
+     */
+    public int search(final BoardState state, final long budgetMillis,
+                      final int maxDepth) {
+        return search(state, budgetMillis, maxDepth, 0);
+    }
+
+    /**
+     * Searches the best move of the player to move as a helper of a
+     * parallel search. Helpers with different skews start at different
+     * depths and with the root moves rotated, so threads sharing a
+     * transposition table search different parts of the tree first.
+     *
+     * @param state        the position to search
+     * @param budgetMillis the time budget of the search in milliseconds
+     * @param maxDepth     the maximum depth of the search in plies
+     * @param skew         the index of the helper, 0 for the main search
+     * @return the best move found encoded as by {@link Move},
+     * or -1 if the player to move has no legal move
+     */
+    int search(final BoardState state, final long budgetMillis,
+               final int maxDepth, final int skew) {
+        var start = System.nanoTime();
+        deadline = start + budgetMillis * 1_000_000L;
+        nodes = 0;
+        stopped = false;
+        completedDepth = 0;
+
+        var rootMoves = moves[0];
+        var count = state.generateMoves(rootMoves);
+        if (count == 0) {
+            return -1;
+        }
+        if (skew == 0 && state.countEmpty() <= endgameThreshold) {
+            if (solver == null) {
+                solver = new EndgameSolver(rules);
+            }
+            if (solver.solve(state, budgetMillis / 2)) {
+                var value = solver.getValue();
+                lastScore = Integer.signum(value) * (WIN + Math.abs(value));
+                return solver.getBestMove();
+            }
+        }
+        orderMoves(state, rootMoves, scores[0], count);
+        if (skew > 0) {
+            rotate(rootMoves, count, skew % count);
+        }
+        var bestMove = rootMoves[0];
+
+        var lastDepth = Math.min(maxDepth, MAX_PLY);
+        for (var depth = 1 + skew % 2; depth <= lastDepth; depth++) {
+            var alpha = -INFINITY;
+            var iterationBest = bestMove;
+            for (var i = 0; i < count; i++) {
+                var move = rootMoves[i];
+                state.make(move);
+                var score = -negamax(state, depth - 1, -INFINITY, -alpha, 1);
+                state.unmake();
+                if (stopped) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            if (stopped) {
+                break;
+            }
+            bestMove = iterationBest;
+            lastScore = alpha;
+            completedDepth = depth;
+            moveToFront(rootMoves, count, bestMove);
+            if (Math.abs(alpha) >= WIN - MAX_PLY) {
+                break;
+            }
+        }
+
+        if (skew > 0) {
+            return bestMove;
+        }
+        var elapsed = Math.max(1, System.nanoTime() - start);
+        Logger.info("Search: depth {}, score {}, move {}, {} nodes, {} nps",
+                completedDepth, lastScore, Move.toString(bestMove, rules),
+                nodes, nodes * 1_000_000_000L / elapsed);
+        return bestMove;
+    }
+
+    /**
+     * Sets the number of empty squares at or below which the endgame
+     * solver is tried before the search.
+     *
+     * @param empties the number of empty squares, 0 never to solve
+     * a game that is not over
+     */
+    public void setEndgameThreshold(final int empties) {
+        this.endgameThreshold = empties;
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible; it returns
+     * the best move of the last completed iteration.
+     * Can be called from any thread. The request stays in effect,
+     * so later searches stop at once, until {@link #clearAbort()}.
+     */
+    public void abort() {
+        aborted = true;
+    }
+
+    /**
+     * Clears an earlier request to stop searching.
+     */
+    public void clearAbort() {
+        aborted = false;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the score of the last completed iteration
+     * from the point of view of the player to move.
+     *
+     * @return the score of the best move
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Returns the depth of the last completed iteration.
+     *
+     * @return the completed search depth in plies
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Searches a position with the negamax alpha-beta algorithm.
+     *
+     * @param state the position to search
+     * @param depth the remaining depth in plies
+     * @param alpha the lower bound of the search window
+     * @param beta  the upper bound of the search window
+     * @param ply   the distance from the root
+     * @return the score of the position for the player to move
+     */
+    private int negamax(final BoardState state, final int depth,
+                        final int alpha, final int beta, final int ply) {
+        if (++nodes % CHECK_INTERVAL == 0
+                && (aborted || Thread.currentThread().isInterrupted()
+                || System.nanoTime() - deadline > 0)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (!state.hasLegalMove()) {
+            return terminalScore(state, ply);
+        }
+        if (depth == 0 || ply >= MAX_PLY) {
+            return evaluate(state);
+        }
+
+        var key = state.getHash();
+        var entry = table.probe(key);
+        var hashMove = -1;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                var score = fromTable(TranspositionTable.score(entry), ply);
+                var bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER
+                        && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        var buffer = moves[ply];
+        var count = state.generateMoves(buffer);
+        orderMoves(state, buffer, scores[ply], count);
+        if (hashMove >= 0) {
+            moveToFront(buffer, count, hashMove);
+        }
+
+        var best = -INFINITY;
+        var bestMove = -1;
+        var a = alpha;
+        for (var i = 0; i < count; i++) {
+            state.make(buffer[i]);
+            var score = -negamax(state, depth - 1, -beta, -a, ply + 1);
+            state.unmake();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = buffer[i];
+                if (score > a) {
+                    a = score;
+                    if (a >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound;
+        if (best <= alpha) {
+            bound = TranspositionTable.UPPER;
+        } else if (best >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a score to be stored in the transposition table.
+     * Game results are stored relative to the position
+     * instead of the root of the search.
+     *
+     * @param score the score relative to the root
+     * @param ply   the distance of the position from the root
+     * @return the score to store
+     */
+    private static int toTable(final int score, final int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -(WIN - MAX_PLY)) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the transposition table
+     * back to be relative to the root of the search.
+     *
+     * @param score the stored score
+     * @param ply   the distance of the position from the root
+     * @return the score relative to the root
+     */
+    private static int fromTable(final int score, final int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -(WIN - MAX_PLY)) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Evaluates a position that is not over
+     * from the point of view of the player to move.
+     *
+     * @param state the position to evaluate
+     * @return the evaluation of the position
+     */
+    public static int evaluate(final BoardState state) {
+        var circles = state.countHead() - state.countTail();
+        var frontier = state.countFrontier(true)
+                - state.countFrontier(false);
+        var score = circles * CIRCLE_WEIGHT + frontier * FRONTIER_WEIGHT;
+        return state.isRedTurn() ? score : -score;
+    }
+
+    /**
+     * Scores a finished game from the point of view of the player to move.
+     * Wins score above {@link #WIN} minus the distance from the root,
+     * so quicker wins and larger margins are preferred.
+     *
+     * @param state the final position
+     * @param ply   the distance from the root
+     * @return the score of the finished game
+     */
+    public static int terminalScore(final BoardState state, final int ply) {
+        var red = state.countHead();
+        var blue = state.countTail();
+        if (state.isRedTurn()) {
+            blue += state.countEmpty();
+        } else {
+            red += state.countEmpty();
+        }
+        var redWins = red > blue;
+        var score = WIN + Math.abs(red - blue) - ply;
+        return redWins == state.isRedTurn() ? score : -score;
+    }
+
+    /**
+     * Sorts the moves by the number of circles they turn, placements
+     * before jumps on equal counts, since a placement adds a circle.
+     *
+     * @param state  the position the moves belong to
+     * @param buffer the moves to sort
+     * @param keys   the scratch buffer of the ordering scores
+     * @param count  the number of moves
+     */
+    static void orderMoves(final BoardState state, final int[] buffer,
+                           final int[] keys, final int count) {
+        for (var i = 0; i < count; i++) {
+            var move = buffer[i];
+            var flips = state.countFlips(move);
+            keys[i] = flips * 2 + (Move.isPlacement(move) ? 1 : 0);
+        }
+        for (var i = 1; i < count; i++) {
+            var move = buffer[i];
+            var key = keys[i];
+            var j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                buffer[j + 1] = buffer[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            buffer[j + 1] = move;
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * Rotates the moves to the left by the given distance.
+     *
+     * @param buffer   the moves
+     * @param count    the number of moves
+     * @param distance the number of moves taken from the front to the back
+     */
+    private static void rotate(final int[] buffer, final int count,
+                               final int distance) {
+        var front = Arrays.copyOf(buffer, distance);
+        System.arraycopy(buffer, distance, buffer, 0, count - distance);
+        System.arraycopy(front, 0, buffer, count - distance, distance);
+    }
+
+    /**
+     * Moves the given move to the front of the list,
+     * keeping the order of the other moves.
+     *
+     * @param buffer the moves
+     * @param count  the number of moves
+     * @param move   the move to search first
+     */
+    static void moveToFront(final int[] buffer, final int count,
+                            final int move) {
+        for (var i = 0; i < count; i++) {
+            if (buffer[i] == move) {
+                System.arraycopy(buffer, 0, buffer, 1, i);
+                buffer[0] = move;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package boardgame.engine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code TranspositionTable} class stores search results by the
+ * Zobrist hash of the position, so positions reached by different move
+ * orders are searched only once.
+ * The table is a single preallocated {@code long[]} of buckets with two
+ * entries: a depth-preferred entry and an always-replace entry.
+ * Every entry is stored as two longs, the key exclusive-ored with the
+ * data and the data itself. A probe only accepts an entry whose two
+ * words combine to the probed key, so entries torn by concurrent writes
+ * are rejected and several search threads can share the table
+ * without any synchronization.
+ */
+public class TranspositionTable {
+
+    /**
+     * The bound type of an exact score.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The bound type of a score that is at least the stored value.
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * The bound type of a score that is at most the stored value.
+     */
+    public static final int UPPER = 3;
+
+    /**
+     * The data returned by a probe that found no entry.
+     */
+    public static final long MISS = 0L;
+
+    /**
+     * The number of longs in one bucket.
+     */
+    private static final int BUCKET_LONGS = 4;
+
+    /**
+     * The number of bits of the stored move.
+     */
+    private static final int MOVE_BITS = 16;
+
+    /**
+     * The mask of the stored move.
+     */
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+
+    /**
+     * The flag of an entry holding a move. Every 16 bit value is a
+     * valid move on the largest boards, so none of them can mean that
+     * there is no move.
+     */
+    private static final long HAS_MOVE = 1L << MOVE_BITS;
+
+    /**
+     * The position of the score in the data.
+     */
+    private static final int SCORE_SHIFT = MOVE_BITS + 1;
+
+    /**
+     * The position of the depth in the data.
+     */
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + Integer.SIZE;
+
+    /**
+     * The mask of the depth.
+     */
+    private static final int DEPTH_MASK = 0xFF;
+
+    /**
+     * The position of the bound type in the data.
+     */
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + Byte.SIZE;
+
+    /**
+     * The buckets of the table.
+     */
+    private final long[] table;
+
+    /**
+     * The mask selecting the bucket of a key.
+     */
+    private final long bucketMask;
+
+    /**
+     * Constructs a new transposition table.
+     *
+     * @param bucketBits the base two logarithm of the number of buckets;
+     * the table takes {@code 32 << bucketBits} bytes
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public TranspositionTable(final int bucketBits) {
+        if (bucketBits < 1 || bucketBits > Integer.SIZE - 4) {
+            throw new IllegalArgumentException(
+                    "Invalid table size: " + bucketBits);
+        }
+        this.table = new long[BUCKET_LONGS << bucketBits];
+        this.bucketMask = (1L << bucketBits) - 1;
+    }
+
+    /**
+     * Looks up the entry of a position.
+     *
+     * @param key the Zobrist hash of the position
+     * @return the data of the entry, or {@link #MISS} if there is none
+     */
+    public long probe(final long key) {
+        var i = bucket(key);
+        for (var slot = i; slot < i + BUCKET_LONGS; slot += 2) {
+            var data = table[slot + 1];
+            if ((table[slot] ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the search result of a position. The depth-preferred entry
+     * of the bucket is replaced if the new result is at least as deep
+     * or belongs to the same position, otherwise the always-replace
+     * entry is overwritten.
+     *
+     * @param key   the Zobrist hash of the position
+     * @param move  the best move found, or -1 if none
+     * @param score the score of the position
+     * @param depth the depth of the search in plies
+     * @param bound the bound type of the score
+     */
+    public void store(final long key, final int move, final int score,
+                      final int depth, final int bound) {
+        var data = (move < 0 ? 0L : move & MOVE_MASK | HAS_MOVE)
+                | (score & 0xFFFFFFFFL) << SCORE_SHIFT
+                | (long) (depth & DEPTH_MASK) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT;
+        var i = bucket(key);
+        var preferred = table[i + 1];
+        var slot = i;
+        if ((table[i] ^ preferred) != key
+                && depth(preferred) > depth) {
+            slot = i + 2;
+        }
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Clears every entry of the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Returns the best move of an entry.
+     *
+     * @param data the data of the entry
+     * @return the stored move, or -1 if none
+     */
+    public static int move(final long data) {
+        return (data & HAS_MOVE) == 0 ? -1 : (int) (data & MOVE_MASK);
+    }
+
+    /**
+     * Returns the score of an entry.
+     *
+     * @param data the data of the entry
+     * @return the stored score
+     */
+    public static int score(final long data) {
+        return (int) (data >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the depth of an entry.
+     *
+     * @param data the data of the entry
+     * @return the stored depth
+     */
+    public static int depth(final long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /**
+     * Returns the bound type of an entry.
+     *
+     * @param data the data of the entry
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public static int bound(final long data) {
+        return (int) (data >>> BOUND_SHIFT);
+    }
+
+    /**
+     * Returns the index of the first long of the bucket of a key.
+     *
+     * @param key the Zobrist hash of the position
+     * @return the index of the bucket in the table
+     */
+    private int bucket(final long key) {
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * The {@code boardgame.engine} package contains the computer opponent
+ * of the board game. It provides the game-tree search that chooses
+ * the moves of the computer from the headless game state
+ * and runs it outside the JavaFX application thread.
+ */
+package boardgame.engine;
@@ -5,11 +5,13 @@ import javafx.beans.property.ReadOnlyObjectWrapper;
 
 import org.tinylog.Logger;
 
+import java.util.Arrays;
+
 
 public class BoardGameModel {
 
     /**
-     * Defining the Board-size for the board-game.
+     * The board size of the standard game, used when no rules are given.
      */
     public static final int BOARD_SIZE = 6;
 
@@ -19,21 +21,16 @@ public class BoardGameModel {
      * @return the current move counter for the red player
      */
     public int getRedPlayerMoveCounter() {
-        return redPlayerMoveCounter;
+        return state.getRedMoves();
     }
 
     /**
-     * Increases the move counter for the blue player by 1.
+     * Increases the move counter for the red player by 1.
      */
     public void addRedPlayerMoveCounter() {
-        redPlayerMoveCounter++;
+        state.addRedMove();
     }
 
-    /**
-     * The move counter for the red player.
-     */
-    private int redPlayerMoveCounter = 0;
-
     /**
      * Returns the current move counter for the blue player.
      *
@@ -41,32 +38,49 @@ public class BoardGameModel {
      */
 
     public int getBluePlayerMoveCounter() {
-        return bluePlayerMoveCounter;
+        return state.getBlueMoves();
     }
 
     /**
      * Increases the move counter for the blue player by 1.
      */
     public void addBluePlayerMoveCounter() {
-        bluePlayerMoveCounter++;
+        state.addBlueMove();
     }
 
     /**
-     * The move counter for the blue player.
+     * The headless game state holding the board as bitmasks.
+     * This is the source of truth of the model, the properties of
+     * {@link #board} only mirror it for the user interface.
+     */
+    private final BoardState state;
+
+    /**
+     * The number of rows and columns of the board.
      */
-    private int bluePlayerMoveCounter = 0;
+    private final int size;
 
     /**
      * Represents the game board as a 2D array
      * of read-only object wrappers for squares.
-     * The board is a grid of squares with
-     * dimensions {@link #BOARD_SIZE} x {@link #BOARD_SIZE}.
+     * The board is a grid of squares with the size of the rules.
      * Each element in the array is a read-only
      * object wrapper for a square, providing
      * a read-only property for accessing the square at a specific position.
+     * The wrappers are kept in sync with {@link #state} after every change.
      */
-    private ReadOnlyObjectWrapper<Square>[][] board =
-            new ReadOnlyObjectWrapper[BOARD_SIZE][BOARD_SIZE];
+    private final ReadOnlyObjectWrapper<Square>[][] board;
+
+    /**
+     * The moves taken back by {@link #undo()} that can be made again,
+     * the most recently taken back move last.
+     */
+    private int[] redoMoves;
+
+    /**
+     * The number of moves that can be made again.
+     */
+    private int redoSize = 0;
 
     /**
      * Returns a boolean value indicating whether
@@ -75,7 +89,7 @@ public class BoardGameModel {
      * @return true if it is currently the red player's turn, false otherwise
      */
     public boolean isPlayerRedTurn() {
-        return isPlayerRedTurn;
+        return state.isRedTurn();
     }
 
     /**
@@ -86,25 +100,32 @@ public class BoardGameModel {
      * true if it is currently the red player's turn, false otherwise
      */
     public void setPlayerRedTurn(final boolean playerRedTurn) {
-        isPlayerRedTurn = playerRedTurn;
+        state.setRedTurn(playerRedTurn);
     }
 
     /**
-     * Indicates whether it is currently the red player's turn.
+     * Constructs a new BoardGameModel object of the standard rules
+     * and initializes the game board.
      */
-    private boolean isPlayerRedTurn = true;
+    public BoardGameModel() {
+        this(RuleSet.standard());
+    }
 
     /**
-     * Constructs a new BoardGameModel object and initializes the game board.
+     * Constructs a new BoardGameModel object of the specified rules
+     * and initializes the game board.
+     *
+     * @param rules the rules the game is played by
      */
-    public BoardGameModel() {
-        for (var i = 0; i < BOARD_SIZE; i++) {
-            for (var j = 0; j < BOARD_SIZE; j++) {
+    public BoardGameModel(final RuleSet rules) {
+        this.state = BoardState.create(rules);
+        this.size = rules.getSize();
+        this.board = new ReadOnlyObjectWrapper[size][size];
+        this.redoMoves = new int[rules.getSquares()];
+        for (var i = 0; i < size; i++) {
+            for (var j = 0; j < size; j++) {
                 board[i][j] = new ReadOnlyObjectWrapper<Square>(
-                        switch (i) {
-                            default -> Square.NONE;
-                        }
-                );
+                        state.get(state.index(i, j)));
             }
         }
     }
@@ -128,8 +149,62 @@ public class BoardGameModel {
      * @return the square at the specified position
      */
     public Square getSquare(final Position p) {
+        return getSquare(p.row(), p.col());
+    }
 
-        return board[p.row()][p.col()].get();
+    /**
+     * Returns the square at the specified row and column.
+     *
+     * @param row the row index of the square
+     * @param col the column index of the square
+     * @return the square at the specified position
+     */
+    public Square getSquare(final int row, final int col) {
+        return state.get(state.index(row, col));
+    }
+
+    /**
+     * Returns the rules the game is played by.
+     *
+     * @return the rule set of the game
+     */
+    public RuleSet getRules() {
+        return state.getRules();
+    }
+
+    /**
+     * Sets up the starting layout of the game defined by its rules:
+     * a red circle in the top-left and bottom-right corners,
+     * a blue circle in the other two corners and the blank squares.
+     */
+    public void setUpBoard() {
+        state.setUp();
+        redoSize = 0;
+        refresh();
+    }
+
+    /**
+     * Returns the headless game state behind this model.
+     * Changes made directly to the returned state are not reflected
+     * by the square properties until {@link #refresh()} is called.
+     *
+     * @return the game state of the model
+     */
+    public BoardState getState() {
+        return state;
+    }
+
+    /**
+     * Updates the square properties from the game state.
+     * Only the properties of the squares that changed fire
+     * change events.
+     */
+    public void refresh() {
+        for (var i = 0; i < size; i++) {
+            for (var j = 0; j < size; j++) {
+                board[i][j].set(state.get(state.index(i, j)));
+            }
+        }
     }
 
     /**
@@ -139,6 +214,7 @@ public class BoardGameModel {
      * @param square the square value to set
      */
     public void setSquare(final Position p, final Square square) {
+        state.set(state.index(p.row(), p.col()), square);
         board[p.row()][p.col()].set(square);
     }
 
@@ -162,18 +238,76 @@ public class BoardGameModel {
             return;
         }
 
-        setSquare(to, getSquare(from));
-        setSquare(from, Square.NONE);
-
-        placeACircle(to.row(), to.col());
+        makeMove(Move.jump(state.index(from.row(), from.col()),
+                state.index(to.row(), to.col())));
         Logger.info("Placed a circle to ({}, {})", to.row(), to.col());
+    }
 
-        if (isPlayerRedTurn) {
-            isPlayerRedTurn = false;
-        } else {
-            isPlayerRedTurn = true;
+    /**
+     * Makes a legal move for the current player, increases its move
+     * counter and passes the turn to the other player.
+     * The move can be taken back with {@link #undo()}.
+     *
+     * @param move the move encoded as by {@link Move}
+     */
+    public void makeMove(final int move) {
+        state.make(move);
+        redoSize = 0;
+        refresh();
+    }
+
+    /**
+     * Checks if there is a move that can be taken back.
+     *
+     * @return true if {@link #undo()} can be called
+     */
+    public boolean canUndo() {
+        return state.getHistorySize() > 0;
+    }
+
+    /**
+     * Checks if there is a taken back move that can be made again.
+     *
+     * @return true if {@link #redo()} can be called
+     */
+    public boolean canRedo() {
+        return redoSize > 0;
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)},
+     * restoring the board, the side to move and the move counters.
+     *
+     * @return true if a move was taken back, false if there was none
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
         }
+        var move = state.unmake();
+        if (redoSize == redoMoves.length) {
+            redoMoves = Arrays.copyOf(redoMoves, redoSize * 2);
+        }
+        redoMoves[redoSize++] = move;
+        refresh();
+        Logger.info("Took back move {}", Move.toString(move, getRules()));
+        return true;
+    }
 
+    /**
+     * Makes the last move taken back by {@link #undo()} again.
+     *
+     * @return true if a move was made again, false if there was none
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        var move = redoMoves[--redoSize];
+        state.make(move);
+        refresh();
+        Logger.info("Made move {} again", Move.toString(move, getRules()));
+        return true;
     }
 
     /**
@@ -183,7 +317,7 @@ public class BoardGameModel {
      */
 
     private Square getCurrentPlayerSquare() {
-        return isPlayerRedTurn ? Square.HEAD : Square.TAIL;
+        return state.isRedTurn() ? Square.HEAD : Square.TAIL;
     }
 
     /**
@@ -196,8 +330,11 @@ public class BoardGameModel {
      */
 
     public boolean canMove(final Position from, final Position to) {
-        return isOnBoard(from) && isOnBoard(to)
-                && !isEmpty(from) && isEmpty(to) && isPawnMove(from, to);
+        var rules = getRules();
+        return rules.isOnBoard(from.row(), from.col())
+                && rules.isOnBoard(to.row(), to.col())
+                && state.canMove(state.index(from.row(), from.col()),
+                        state.index(to.row(), to.col()));
     }
 
 
@@ -209,11 +346,12 @@ public class BoardGameModel {
      */
 
     public boolean isEmpty(final Position p) {
-        return getSquare(p) == Square.NONE;
+        return state.isEmpty(state.index(p.row(), p.col()));
     }
 
     /**
-     * Checks if the specified position is within the board boundaries.
+     * Checks if the specified position is within the boundaries
+     * of the standard board.
      *
      * @param p the position to check
      * @return true if the position is on the board, false otherwise
@@ -223,36 +361,20 @@ public class BoardGameModel {
                 && 0 <= p.col() && p.col() < BOARD_SIZE;
     }
 
-    /**
-     * To check what is the Max move in line.
-     */
-    private static int maxMoveDistance = 2 + 1;
-
-    /**
-     * To check what is the Max move in cross.
-     */
-    private static int maxMoveCross = 2 * 2;
-
     /**
      * Checks if a move from the "from" position
-     * to the "to" position is a valid move for a pawn.
+     * to the "to" position is a valid move for a pawn
+     * on the standard board.
      *
      * @param from the starting position
      * @param to   the target position
      * @return true if the move is valid for a pawn, false otherwise
      */
     public static boolean isPawnMove(final Position from, final Position to) {
-        var dx = Math.abs(to.row() - from.row());
-        var dy = Math.abs(to.col() - from.col());
-        if (dx < maxMoveDistance && dy < maxMoveDistance) {
-            return dx + dy == 2
-                    || dx * dy == maxMoveCross
-                    || dx + dy == 1
-                    || dx * dy == 1;
-        }
-
-        return  false;
-
+        var rules = RuleSet.standard();
+        return isOnBoard(from) && isOnBoard(to)
+                && rules.isJump(rules.index(from.row(), from.col()),
+                        rules.index(to.row(), to.col()));
     }
 
     /**
@@ -263,9 +385,9 @@ public class BoardGameModel {
     @Override
     public String toString() {
         var sb = new StringBuilder();
-        for (var i = 0; i < BOARD_SIZE; i++) {
-            for (var j = 0; j < BOARD_SIZE; j++) {
-                sb.append(board[i][j].get().ordinal()).append(' ');
+        for (var i = 0; i < size; i++) {
+            for (var j = 0; j < size; j++) {
+                sb.append(getSquare(i, j).ordinal()).append(' ');
             }
             sb.append('\n');
         }
@@ -281,45 +403,42 @@ public class BoardGameModel {
      * @param col       the column coordinate
      */
     public void placeACircle(final int row, final int col) {
-        Square newSquare = (isPlayerRedTurn ? Square.HEAD : Square.TAIL);
-
-        setSquare(new Position(row, col), newSquare);
-
-        for (int i = Math.max(0, row - 1);
-             i <= Math.min(BoardGameModel.BOARD_SIZE - 1, row + 1); i++) {
-            for (int j = Math.max(0, col - 1);
-                 j <= Math.min(BoardGameModel.BOARD_SIZE - 1, col + 1); j++) {
-                Square squareToChange = getSquare(new Position(i, j));
-                if (squareToChange
-                        == (isPlayerRedTurn ? Square.TAIL : Square.HEAD)) {
-                    setSquare(new Position(i, j), newSquare);
-                }
-            }
-        }
+        state.place(state.index(row, col));
+        refresh();
+    }
+    /**
+     * Checks if the current player can place a circle at the specified
+     * row and column, that is the square is empty
+     * and next to a circle of the current player.
+     *
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return true if the placement is legal, false otherwise
+     */
+    public boolean canPlaceACircle(final int row, final int col) {
+        return state.canPlace(state.index(row, col));
+    }
+
+    /**
+     * Writes every legal placement and jump of the current player
+     * into the given buffer without allocating any objects.
+     * The moves are encoded as by {@link Move} and the buffer must be
+     * at least {@link RuleSet#getMaxMoves()} long.
+     *
+     * @param moves the buffer the moves are written to
+     * @return the number of moves written
+     */
+    public int generateMoves(final int[] moves) {
+        return state.generateMoves(moves);
     }
+
     /**
      * Checks if there is at least one movable circle on the board.
      *
      * @return true if there is a movable circle, false otherwise
      */
     public boolean hasMovableCircle() {
-        for (var i = 0; i < BoardGameModel.BOARD_SIZE; i++) {
-            for (var j = 0; j < BoardGameModel.BOARD_SIZE; j++) {
-                var currentPosition = new Position(i, j);
-                if (!isEmpty(currentPosition)) {
-                    for (var x = 0; x < BoardGameModel.BOARD_SIZE; x++) {
-                        for (var y = 0; y < BoardGameModel.BOARD_SIZE; y++) {
-                            var newPosition = new Position(x, y);
-                            if (canMove(currentPosition, newPosition)
-                               && isPawnMove(currentPosition, newPosition)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return state.hasMovableCircle();
     }
 
     /**
@@ -331,62 +450,15 @@ public class BoardGameModel {
      * to a friendly circle, false otherwise
      */
     public boolean hasSpaceForCircle(final boolean isRedPlayerTurn) {
-        Square currentPlayerSquare
-                = isRedPlayerTurn ? Square.HEAD : Square.TAIL;
-
-        for (int i = 0; i < BoardGameModel.BOARD_SIZE; i++) {
-            for (int j = 0; j < BoardGameModel.BOARD_SIZE; j++) {
-                if (getSquare(new Position(i, j)) == currentPlayerSquare) {
-                    for (int x = Math.max(0, i - 1);
-                         x <= Math.min(BoardGameModel.BOARD_SIZE - 1, i + 1);
-                         x++) {
-                        for (int y = Math.max(0, j - 1);
-                         y <= Math.min(BoardGameModel.BOARD_SIZE - 1, j + 1);
-                             y++) {
-                            if (x != i || y != j) {
-                             if (getSquare(new Position(x, y))
-                                        == Square.NONE) {
-                               if (hasAdjacentFriendlyCircle(new Position(x, y),
-                                            currentPlayerSquare)) {
-                                    Logger.info("Current player has free "
-                                          + "space next to a friendly circle");
-                                        return true;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        if (state.hasSpaceForCircle(isRedPlayerTurn)) {
+            Logger.info("Current player has free "
+                    + "space next to a friendly circle");
+            return true;
         }
         Logger.info("Current player does not have free space");
         return false;
     }
 
-    /**
-     * Checks if there is an adjacent friendly circle to the given position.
-     *
-     * @param position           the position to check
-     * @param currentPlayerSquare the square type of the current player
-     * @return true if there is an adjacent friendly circle, false otherwise
-     */
-
-    private boolean hasAdjacentFriendlyCircle(final Position position,
-                                         final Square currentPlayerSquare) {
-        for (int i = Math.max(0, position.row() - 1);
-             i <= Math.min(BoardGameModel.BOARD_SIZE - 1,
-                     position.row() + 1); i++) {
-            for (int j = Math.max(0, position.col() - 1);
-                 j <= Math.min(BoardGameModel.BOARD_SIZE - 1,
-                         position.col() + 1); j++) {
-                if (getSquare(new Position(i, j)) == currentPlayerSquare) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /**
      * The main method of the program.
      * It creates a new BoardGameModel instance
@@ -406,15 +478,25 @@ public class BoardGameModel {
      */
 
     public int countNoneSquares() {
-        int count = 0;
-        for (int i = 0; i < BoardGameModel.BOARD_SIZE; i++) {
-            for (int j = 0; j < BoardGameModel.BOARD_SIZE; j++) {
-                if (getSquare(new Position(i, j)) == Square.NONE) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return state.countEmpty();
+    }
+
+    /**
+     * Returns the number of red circles on the board.
+     *
+     * @return the number of red circles
+     */
+    public int countRedCircles() {
+        return state.countHead();
+    }
+
+    /**
+     * Returns the number of blue circles on the board.
+     *
+     * @return the number of blue circles
+     */
+    public int countBlueCircles() {
+        return state.countTail();
     }
 
 }
@@ -0,0 +1,263 @@
+package boardgame.model;
+
+/**
+ * The {@code BoardState} interface is the headless game state the model,
+ * the engines and the game outcome work with, independent of how the
+ * squares are stored. Boards whose squares fit in a single {@code long}
+ * are played on a {@link GameState}, larger ones on a
+ * {@link WideGameState}; {@link #create(RuleSet)} picks the right one.
+ * Squares are indexed in row-major order and moves are encoded as by
+ * {@link Move}.
+ */
+public interface BoardState {
+
+    /**
+     * Creates an empty game state of the specified rules
+     * with the red player to move.
+     *
+     * @param rules the rules the game is played by
+     * @return a {@link GameState} for compact boards,
+     * a {@link WideGameState} otherwise
+     */
+    static BoardState create(final RuleSet rules) {
+        return rules.isCompact()
+                ? new GameState(rules)
+                : new WideGameState(rules);
+    }
+
+    /**
+     * Returns a copy of this state.
+     * The undo stack is not copied, the copy starts with no history.
+     *
+     * @return the copy
+     */
+    BoardState copy();
+
+    /**
+     * Returns the rules the game is played by.
+     *
+     * @return the rule set of the game
+     */
+    RuleSet getRules();
+
+    /**
+     * Resets the state to the starting layout of its rules:
+     * the corner circles and the blank squares, with red to move.
+     */
+    void setUp();
+
+    /**
+     * Returns the index of the square at the specified row and column.
+     *
+     * @param row the row index of the square
+     * @param col the column index of the square
+     * @return the index of the square
+     */
+    default int index(final int row, final int col) {
+        return getRules().index(row, col);
+    }
+
+    /**
+     * Returns the square at the specified index.
+     *
+     * @param index the index of the square
+     * @return the square at the specified index
+     */
+    Square get(int index);
+
+    /**
+     * Sets the square at the specified index.
+     *
+     * @param index  the index of the square
+     * @param square the square value to set
+     */
+    void set(int index, Square square);
+
+    /**
+     * Checks if the square at the specified index is empty.
+     *
+     * @param index the index of the square
+     * @return true if the square contains {@link Square#NONE}
+     */
+    boolean isEmpty(int index);
+
+    /**
+     * Returns whether it is currently the red player's turn.
+     *
+     * @return true if it is the red player's turn, false otherwise
+     */
+    boolean isRedTurn();
+
+    /**
+     * Sets whether it is currently the red player's turn.
+     *
+     * @param isRedTurn true if it is the red player's turn, false otherwise
+     */
+    void setRedTurn(boolean isRedTurn);
+
+    /**
+     * Returns the Zobrist hash of the state. It covers the red and blue
+     * circles and the side to move and is updated with every change.
+     *
+     * @return the hash of the state
+     */
+    long getHash();
+
+    /**
+     * Returns the number of moves made by the red player.
+     *
+     * @return the move counter of the red player
+     */
+    int getRedMoves();
+
+    /**
+     * Returns the number of moves made by the blue player.
+     *
+     * @return the move counter of the blue player
+     */
+    int getBlueMoves();
+
+    /**
+     * Increases the move counter of the red player by 1.
+     */
+    void addRedMove();
+
+    /**
+     * Increases the move counter of the blue player by 1.
+     */
+    void addBlueMove();
+
+    /**
+     * Returns the number of red circles on the board.
+     *
+     * @return the number of red circles
+     */
+    int countHead();
+
+    /**
+     * Returns the number of blue circles on the board.
+     *
+     * @return the number of blue circles
+     */
+    int countTail();
+
+    /**
+     * Counts the empty squares of the board.
+     *
+     * @return the number of squares containing {@link Square#NONE}
+     */
+    int countEmpty();
+
+    /**
+     * Counts the empty squares where the given player can place
+     * a new circle, that is the empty squares next to its circles.
+     *
+     * @param isRed true for the red player, false for the blue player
+     * @return the number of placeable squares
+     */
+    int countFrontier(boolean isRed);
+
+    /**
+     * Counts the circles of the opponent a move of the current player
+     * would turn.
+     *
+     * @param move the move encoded as by {@link Move}
+     * @return the number of circles turned by the move
+     */
+    int countFlips(int move);
+
+    /**
+     * Checks if a move from one square to the other is valid.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return true if the starting square is occupied, the target square
+     * is empty and the target can be reached by a pawn move
+     */
+    boolean canMove(int from, int to);
+
+    /**
+     * Checks if the current player can place a new circle on a square,
+     * that is the square is empty and next to a friendly circle.
+     *
+     * @param index the index of the square
+     * @return true if the placement is legal, false otherwise
+     */
+    boolean canPlace(int index);
+
+    /**
+     * Writes every legal move of the current player into the buffer,
+     * first the placements and then the jumps, encoded as by {@link Move}.
+     * The buffer must be at least {@link RuleSet#getMaxMoves()} long.
+     *
+     * @param moves the buffer the moves are written to
+     * @return the number of moves written
+     */
+    int generateMoves(int[] moves);
+
+    /**
+     * Checks if the current player has any legal move.
+     *
+     * @return true if the current player can place or move a circle
+     */
+    boolean hasLegalMove();
+
+    /**
+     * Makes a legal move for the current player, increases its move
+     * counter and pushes an undo record, so the move can be taken back
+     * with {@link #unmake()}.
+     * The move is not validated, see {@link #generateMoves(int[])}.
+     *
+     * @param move the move encoded as by {@link Move}
+     */
+    void make(int move);
+
+    /**
+     * Takes back the last move made with {@link #make(int)}, restoring
+     * the board, the side to move and the move counters.
+     *
+     * @return the move that was taken back
+     * @throws IllegalStateException if there is no move to take back
+     */
+    int unmake();
+
+    /**
+     * Returns the number of moves that can be taken back.
+     *
+     * @return the size of the undo stack
+     */
+    int getHistorySize();
+
+    /**
+     * Checks if the current position, with the same player to move,
+     * already occurred since the last placement of the history.
+     *
+     * @return true if the position is a repetition
+     */
+    boolean isRepetition();
+
+    /**
+     * Places a circle of the current player at the specified square and
+     * turns the opponent's circles in its eight-neighbourhood.
+     * The side to move is left unchanged and no undo record is pushed.
+     *
+     * @param index the index of the square
+     */
+    void place(int index);
+
+    /**
+     * Checks if the given player has an empty square
+     * next to one of its circles.
+     *
+     * @param isRed true to check the red player, false for the blue player
+     * @return true if the player has space to place a circle
+     */
+    boolean hasSpaceForCircle(boolean isRed);
+
+    /**
+     * Checks if any occupied square can be moved to an empty square.
+     *
+     * @return true if there is at least one valid move on the board
+     */
+    boolean hasMovableCircle();
+}
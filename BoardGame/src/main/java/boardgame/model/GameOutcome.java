@@ -0,0 +1,88 @@
+package boardgame.model;
+
+/**
+ * The {@code GameOutcome} record holds the final score of a game
+ * and decides from a {@link BoardState} alone whether the game is over.
+ * The game ends when the player to move cannot place or move a circle.
+ * The empty squares are then added to the score of the other player,
+ * who was the last one able to move.
+ *
+ * @param redScore  the final score of the red player
+ * @param blueScore the final score of the blue player
+ */
+public record GameOutcome(int redScore, int blueScore) {
+
+    /**
+     * Checks if the game is over, that is the player to move
+     * has no legal placement or jump.
+     *
+     * @param state the game state to check
+     * @return true if the game is over, false otherwise
+     */
+    public static boolean isOver(final BoardState state) {
+        return !state.hasLegalMove();
+    }
+
+    /**
+     * Computes the final score of a game ending in the given state.
+     * Every circle counts one point for its owner and the empty squares
+     * count for the player who is not to move.
+     *
+     * @param state the final game state
+     * @return the outcome of the game
+     */
+    public static GameOutcome of(final BoardState state) {
+        var red = state.countHead();
+        var blue = state.countTail();
+        if (state.isRedTurn()) {
+            blue += state.countEmpty();
+        } else {
+            red += state.countEmpty();
+        }
+        return new GameOutcome(red, blue);
+    }
+
+    /**
+     * Computes the final score difference of a game ending in the given
+     * state from the point of view of the player to move,
+     * without creating an outcome object.
+     *
+     * @param state the final game state
+     * @return the score of the player to move minus the score of the other
+     */
+    public static int scoreForSideToMove(final BoardState state) {
+        var red = state.countHead();
+        var blue = state.countTail();
+        return state.isRedTurn()
+                ? red - blue - state.countEmpty()
+                : blue - red - state.countEmpty();
+    }
+
+    /**
+     * Checks if the red player won. A tie goes to the blue player.
+     *
+     * @return true if the red player has more points than the blue player
+     */
+    public boolean isRedWinner() {
+        return redScore > blueScore;
+    }
+
+    /**
+     * Returns the color of the winner as it is stored in the statistics.
+     *
+     * @return {@code "Red"} or {@code "Blue"}
+     */
+    public String winnerColor() {
+        return isRedWinner() ? "Red" : "Blue";
+    }
+
+    /**
+     * Returns the final score in the format {@code "red:blue"}.
+     *
+     * @return the string representation of the final score
+     */
+    @Override
+    public String toString() {
+        return redScore + ":" + blueScore;
+    }
+}
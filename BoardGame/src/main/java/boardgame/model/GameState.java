@@ -0,0 +1,726 @@
+package boardgame.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code GameState} class is the headless core of the board game.
+ * It keeps the occupancy of the {@link Square#HEAD}, {@link Square#TAIL}
+ * and {@link Square#BLANK} squares as {@code long} bitmasks, one bit per
+ * square in row-major order, together with the side to move.
+ * All game rules are implemented as a handful of bitwise operations,
+ * so the class can be used for analysis and self-play
+ * without allocating objects on the hot path.
+ * The squares of the board must fit in a single {@code long},
+ * see {@link RuleSet#isCompact()}.
+ */
+public class GameState implements BoardState {
+
+    /**
+     * The initial capacity of the undo stack.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The rules the game is played by.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The mask containing every square of the board.
+     */
+    private final long boardMask;
+
+    /**
+     * The squares occupied by the red player.
+     */
+    private long head;
+
+    /**
+     * The squares occupied by the blue player.
+     */
+    private long tail;
+
+    /**
+     * The blank squares no circle can be placed on.
+     */
+    private long blank;
+
+    /**
+     * The empty squares next to a red circle,
+     * where the red player can place a new circle.
+     */
+    private long redFrontier;
+
+    /**
+     * The empty squares next to a blue circle,
+     * where the blue player can place a new circle.
+     */
+    private long blueFrontier;
+
+    /**
+     * Indicates whether it is currently the red player's turn.
+     */
+    private boolean redTurn = true;
+
+    /**
+     * The Zobrist hash of the state, see {@link Zobrist}.
+     */
+    private long hash;
+
+    /**
+     * The number of moves made by the red player.
+     */
+    private int redMoves;
+
+    /**
+     * The number of moves made by the blue player.
+     */
+    private int blueMoves;
+
+    /**
+     * The moves of the undo stack.
+     */
+    private int[] stackMoves = new int[INITIAL_CAPACITY];
+
+    /**
+     * The circles turned by each move of the undo stack.
+     */
+    private long[] stackFlips = new long[INITIAL_CAPACITY];
+
+    /**
+     * The move counters before each move of the undo stack,
+     * the red counter in the high and the blue counter in the low half.
+     */
+    private long[] stackCounters = new long[INITIAL_CAPACITY];
+
+    /**
+     * The hash of the state before each move of the undo stack.
+     */
+    private long[] stackHashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of moves on the undo stack.
+     */
+    private int stackSize;
+
+    /**
+     * Constructs an empty game state of the standard rules
+     * with the red player to move.
+     */
+    public GameState() {
+        this(RuleSet.standard());
+    }
+
+    /**
+     * Constructs an empty game state of the specified rules
+     * with the red player to move.
+     *
+     * @param ruleSet the rules the game is played by
+     * @throws IllegalStateException if the board is not compact
+     */
+    public GameState(final RuleSet ruleSet) {
+        this.rules = ruleSet;
+        this.boardMask = ruleSet.getBoardMask();
+    }
+
+    /**
+     * Constructs a copy of the specified game state.
+     * The undo stack is not copied, the copy starts with no history.
+     *
+     * @param other the game state to copy
+     */
+    public GameState(final GameState other) {
+        this.rules = other.rules;
+        this.boardMask = other.boardMask;
+        this.head = other.head;
+        this.tail = other.tail;
+        this.blank = other.blank;
+        this.redFrontier = other.redFrontier;
+        this.blueFrontier = other.blueFrontier;
+        this.redTurn = other.redTurn;
+        this.hash = other.hash;
+        this.redMoves = other.redMoves;
+        this.blueMoves = other.blueMoves;
+    }
+
+    /**
+     * Returns a copy of this state, see {@link #GameState(GameState)}.
+     *
+     * @return the copy
+     */
+    @Override
+    public GameState copy() {
+        return new GameState(this);
+    }
+
+    /**
+     * Resets the state to the starting layout of its rules:
+     * the corner circles and the blank squares, with red to move.
+     */
+    public void setUp() {
+        setPosition(rules.getInitialHead(), rules.getInitialTail(), true);
+    }
+
+    /**
+     * Loads a position given by its circles, with the blank squares
+     * of the rules. The move counters and the undo stack are cleared.
+     *
+     * @param redCircles  the mask of the red circles
+     * @param blueCircles the mask of the blue circles
+     * @param isRedTurn   true if the red player is to move
+     */
+    public void setPosition(final long redCircles, final long blueCircles,
+                            final boolean isRedTurn) {
+        head = redCircles;
+        tail = blueCircles;
+        blank = rules.getBlankMask();
+        redTurn = isRedTurn;
+        redMoves = 0;
+        blueMoves = 0;
+        stackSize = 0;
+        hash = Zobrist.hash(this);
+        updateFrontiers(boardMask);
+    }
+
+    /**
+     * Returns the rules the game is played by.
+     *
+     * @return the rule set of the game
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the index of the square at the specified row and column.
+     *
+     * @param row the row index of the square
+     * @param col the column index of the square
+     * @return the index of the square
+     */
+    public int index(final int row, final int col) {
+        return rules.index(row, col);
+    }
+
+    /**
+     * Returns the squares occupied by the red player.
+     *
+     * @return the bitmask of the red circles
+     */
+    public long getHead() {
+        return head;
+    }
+
+    /**
+     * Returns the squares occupied by the blue player.
+     *
+     * @return the bitmask of the blue circles
+     */
+    public long getTail() {
+        return tail;
+    }
+
+    /**
+     * Returns the blank squares.
+     *
+     * @return the bitmask of the blank squares
+     */
+    public long getBlank() {
+        return blank;
+    }
+
+    /**
+     * Returns the empty squares.
+     *
+     * @return the bitmask of the squares containing {@link Square#NONE}
+     */
+    public long getEmpty() {
+        return ~(head | tail | blank) & boardMask;
+    }
+
+    /**
+     * Returns whether it is currently the red player's turn.
+     *
+     * @return true if it is the red player's turn, false otherwise
+     */
+    public boolean isRedTurn() {
+        return redTurn;
+    }
+
+    /**
+     * Sets whether it is currently the red player's turn.
+     *
+     * @param isRedTurn true if it is the red player's turn, false otherwise
+     */
+    public void setRedTurn(final boolean isRedTurn) {
+        if (redTurn != isRedTurn) {
+            hash ^= Zobrist.side();
+        }
+        this.redTurn = isRedTurn;
+    }
+
+    /**
+     * Returns the Zobrist hash of the state. It covers the red and blue
+     * circles and the side to move and is updated with every change.
+     *
+     * @return the hash of the state
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of moves made by the red player.
+     *
+     * @return the move counter of the red player
+     */
+    public int getRedMoves() {
+        return redMoves;
+    }
+
+    /**
+     * Returns the number of moves made by the blue player.
+     *
+     * @return the move counter of the blue player
+     */
+    public int getBlueMoves() {
+        return blueMoves;
+    }
+
+    /**
+     * Increases the move counter of the red player by 1.
+     */
+    public void addRedMove() {
+        redMoves++;
+    }
+
+    /**
+     * Increases the move counter of the blue player by 1.
+     */
+    public void addBlueMove() {
+        blueMoves++;
+    }
+
+    /**
+     * Returns the square at the specified index.
+     *
+     * @param index the index of the square
+     * @return the square at the specified index
+     */
+    public Square get(final int index) {
+        var bit = 1L << index;
+        if ((head & bit) != 0) {
+            return Square.HEAD;
+        } else if ((tail & bit) != 0) {
+            return Square.TAIL;
+        } else if ((blank & bit) != 0) {
+            return Square.BLANK;
+        }
+        return Square.NONE;
+    }
+
+    /**
+     * Sets the square at the specified index.
+     *
+     * @param index  the index of the square
+     * @param square the square value to set
+     */
+    public void set(final int index, final Square square) {
+        var bit = 1L << index;
+        hash ^= Zobrist.heads(head & bit) ^ Zobrist.tails(tail & bit);
+        head &= ~bit;
+        tail &= ~bit;
+        blank &= ~bit;
+        switch (square) {
+            case HEAD -> {
+                head |= bit;
+                hash ^= Zobrist.head(index);
+            }
+            case TAIL -> {
+                tail |= bit;
+                hash ^= Zobrist.tail(index);
+            }
+            case BLANK -> blank |= bit;
+            default -> { }
+        }
+        updateFrontiers(rules.neighbours(index) | bit);
+    }
+
+    /**
+     * Returns the number of red circles on the board.
+     *
+     * @return the number of red circles
+     */
+    public int countHead() {
+        return Long.bitCount(head);
+    }
+
+    /**
+     * Returns the number of blue circles on the board.
+     *
+     * @return the number of blue circles
+     */
+    public int countTail() {
+        return Long.bitCount(tail);
+    }
+
+    /**
+     * Returns the empty squares where the given player can place
+     * a new circle, that is the empty squares next to its circles.
+     *
+     * @param isRed true for the red player, false for the blue player
+     * @return the bitmask of the placeable squares
+     */
+    public long getFrontier(final boolean isRed) {
+        return isRed ? redFrontier : blueFrontier;
+    }
+
+    /**
+     * Counts the empty squares where the given player can place
+     * a new circle.
+     *
+     * @param isRed true for the red player, false for the blue player
+     * @return the number of placeable squares
+     */
+    @Override
+    public int countFrontier(final boolean isRed) {
+        return Long.bitCount(getFrontier(isRed));
+    }
+
+    /**
+     * Counts the circles of the opponent a move of the current player
+     * would turn.
+     *
+     * @param move the move encoded as by {@link Move}
+     * @return the number of circles turned by the move
+     */
+    @Override
+    public int countFlips(final int move) {
+        var opponent = redTurn ? tail : head;
+        return Long.bitCount(rules.neighbours(Move.to(move)) & opponent);
+    }
+
+    /**
+     * Recomputes which of the given squares belong to the frontiers.
+     * A square changes its membership only if it or one of its neighbours
+     * changed, so after a move only the squares around it are visited.
+     *
+     * @param dirty the squares to recompute
+     */
+    private void updateFrontiers(final long dirty) {
+        redFrontier &= ~dirty;
+        blueFrontier &= ~dirty;
+        for (var squares = dirty & getEmpty(); squares != 0;
+             squares &= squares - 1) {
+            var i = Long.numberOfTrailingZeros(squares);
+            var neighbours = rules.neighbours(i);
+            if ((neighbours & head) != 0) {
+                redFrontier |= 1L << i;
+            }
+            if ((neighbours & tail) != 0) {
+                blueFrontier |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Checks if the square at the specified index is empty.
+     *
+     * @param index the index of the square
+     * @return true if the square contains {@link Square#NONE}
+     */
+    public boolean isEmpty(final int index) {
+        return ((head | tail | blank) & (1L << index)) == 0;
+    }
+
+    /**
+     * Checks if a move from one square to the other is valid.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return true if the starting square is occupied, the target square
+     * is empty and the target can be reached by a pawn move
+     */
+    public boolean canMove(final int from, final int to) {
+        return !isEmpty(from)
+                && (rules.jumps(from) & getEmpty() & (1L << to)) != 0;
+    }
+
+    /**
+     * Checks if the current player can place a new circle on a square,
+     * that is the square is empty and next to a friendly circle.
+     *
+     * @param index the index of the square
+     * @return true if the placement is legal, false otherwise
+     */
+    public boolean canPlace(final int index) {
+        return (getFrontier(redTurn) & (1L << index)) != 0;
+    }
+
+    /**
+     * Writes every legal move of the current player into the buffer,
+     * first the placements and then the jumps, encoded as by {@link Move}.
+     * The buffer must be at least {@link RuleSet#getMaxMoves()} long.
+     *
+     * @param moves the buffer the moves are written to
+     * @return the number of moves written
+     */
+    public int generateMoves(final int[] moves) {
+        var friendly = redTurn ? head : tail;
+        var empty = getEmpty();
+        var count = 0;
+
+        for (var frontier = getFrontier(redTurn); frontier != 0;
+             frontier &= frontier - 1) {
+            moves[count++] =
+                    Move.placement(Long.numberOfTrailingZeros(frontier));
+        }
+
+        for (var pieces = friendly; pieces != 0; pieces &= pieces - 1) {
+            var from = Long.numberOfTrailingZeros(pieces);
+            for (var targets = rules.jumps(from) & empty; targets != 0;
+                 targets &= targets - 1) {
+                moves[count++] =
+                        Move.jump(from, Long.numberOfTrailingZeros(targets));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the current player has any legal move.
+     *
+     * @return true if the current player can place or move a circle
+     */
+    public boolean hasLegalMove() {
+        if (getFrontier(redTurn) != 0) {
+            return true;
+        }
+        var empty = getEmpty();
+        for (var pieces = redTurn ? head : tail; pieces != 0;
+             pieces &= pieces - 1) {
+            if ((rules.jumps(Long.numberOfTrailingZeros(pieces)) & empty)
+                    != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plays an encoded move for the current player
+     * and passes the turn to the other player.
+     * The move is not validated, see {@link #generateMoves(int[])}.
+     *
+     * @param move the move encoded as by {@link Move}
+     * @return the bitmask of the circles that were turned
+     */
+    public long play(final int move) {
+        var to = Move.to(move);
+        if (Move.isPlacement(move)) {
+            var flips = placeAndFlip(to);
+            updateFrontiers(rules.influence(to));
+            redTurn = !redTurn;
+            hash ^= Zobrist.side();
+            return flips;
+        }
+        return move(Move.from(move), to);
+    }
+
+    /**
+     * Makes a legal move for the current player, increases its move
+     * counter and pushes an undo record, so the move can be taken back
+     * in constant time with {@link #unmake()}.
+     * The move is not validated, see {@link #generateMoves(int[])}.
+     *
+     * @param move the move encoded as by {@link Move}
+     */
+    @Override
+    public void make(final int move) {
+        if (stackSize == stackMoves.length) {
+            var capacity = stackSize * 2;
+            stackMoves = Arrays.copyOf(stackMoves, capacity);
+            stackFlips = Arrays.copyOf(stackFlips, capacity);
+            stackCounters = Arrays.copyOf(stackCounters, capacity);
+            stackHashes = Arrays.copyOf(stackHashes, capacity);
+        }
+        stackHashes[stackSize] = hash;
+        stackCounters[stackSize] = (long) redMoves << Integer.SIZE
+                | (blueMoves & 0xFFFFFFFFL);
+        if (redTurn) {
+            redMoves++;
+        } else {
+            blueMoves++;
+        }
+        var flips = play(move);
+        stackMoves[stackSize] = move;
+        stackFlips[stackSize] = flips;
+        stackSize++;
+    }
+
+    /**
+     * Takes back the last move made with {@link #make(int)}, restoring
+     * the board, the side to move and the move counters.
+     *
+     * @return the move that was taken back
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public int unmake() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        stackSize--;
+        var move = stackMoves[stackSize];
+        var flips = stackFlips[stackSize];
+        var counters = stackCounters[stackSize];
+        redMoves = (int) (counters >>> Integer.SIZE);
+        blueMoves = (int) counters;
+        redTurn = !redTurn;
+        hash = stackHashes[stackSize];
+
+        var from = Move.from(move);
+        var to = Move.to(move);
+        var toBit = 1L << to;
+        var restored = Move.isPlacement(move) ? 0L : 1L << from;
+        if (redTurn) {
+            head = (head & ~(toBit | flips)) | restored;
+            tail |= flips;
+        } else {
+            tail = (tail & ~(toBit | flips)) | restored;
+            head |= flips;
+        }
+        updateFrontiers(rules.influence(to)
+                | rules.neighbours(from) | (1L << from));
+        return move;
+    }
+
+    /**
+     * Returns the number of moves that can be taken back.
+     *
+     * @return the size of the undo stack
+     */
+    public int getHistorySize() {
+        return stackSize;
+    }
+
+    /**
+     * Checks if the current position, with the same player to move,
+     * already occurred since the last placement of the history.
+     * Placements add a circle and cannot be repeated across,
+     * so only the jumps after the last one are looked at.
+     *
+     * @return true if the position is a repetition
+     */
+    public boolean isRepetition() {
+        for (var i = stackSize - 1;
+             i >= 0 && !Move.isPlacement(stackMoves[i]); i--) {
+            if (stackHashes[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a circle of the current player at the specified square and
+     * turns the opponent's circles in its eight-neighbourhood.
+     * The side to move is left unchanged.
+     *
+     * @param index the index of the square
+     */
+    @Override
+    public void place(final int index) {
+        placeAndFlip(index);
+        updateFrontiers(rules.influence(index));
+    }
+
+    /**
+     * Places a circle of the current player at the specified square
+     * and turns the opponent's circles without updating the frontiers.
+     *
+     * @param index the index of the square
+     * @return the bitmask of the circles that were turned
+     */
+    private long placeAndFlip(final int index) {
+        var bit = 1L << index;
+        blank &= ~bit;
+        if (redTurn) {
+            var flips = rules.neighbours(index) & tail;
+            var changed = flips | bit;
+            hash ^= Zobrist.heads(changed & ~head)
+                    ^ Zobrist.tails(changed & tail);
+            tail &= ~changed;
+            head |= changed;
+            return flips;
+        }
+        var flips = rules.neighbours(index) & head;
+        var changed = flips | bit;
+        hash ^= Zobrist.tails(changed & ~tail)
+                ^ Zobrist.heads(changed & head);
+        head &= ~changed;
+        tail |= changed;
+        return flips;
+    }
+
+    /**
+     * Moves the circle of the current player from one square to the other,
+     * turns the opponent's circles around the target square
+     * and passes the turn to the other player.
+     * The move is not validated, see {@link #canMove(int, int)}.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return the bitmask of the circles that were turned
+     */
+    public long move(final int from, final int to) {
+        var fromBit = ~(1L << from);
+        hash ^= Zobrist.heads(head & ~fromBit)
+                ^ Zobrist.tails(tail & ~fromBit);
+        head &= fromBit;
+        tail &= fromBit;
+        var flips = placeAndFlip(to);
+        updateFrontiers(rules.influence(to)
+                | rules.neighbours(from) | ~fromBit);
+        redTurn = !redTurn;
+        hash ^= Zobrist.side();
+        return flips;
+    }
+
+    /**
+     * Counts the empty squares of the board.
+     *
+     * @return the number of squares containing {@link Square#NONE}
+     */
+    public int countEmpty() {
+        return Long.bitCount(getEmpty());
+    }
+
+    /**
+     * Checks if the given player has an empty square
+     * next to one of its circles.
+     *
+     * @param isRed true to check the red player, false for the blue player
+     * @return true if the player has space to place a circle
+     */
+    public boolean hasSpaceForCircle(final boolean isRed) {
+        return getFrontier(isRed) != 0;
+    }
+
+    /**
+     * Checks if any occupied square can be moved to an empty square.
+     *
+     * @return true if there is at least one valid move on the board
+     */
+    public boolean hasMovableCircle() {
+        var empty = getEmpty();
+        var occupied = head | tail | blank;
+        while (occupied != 0) {
+            var i = Long.numberOfTrailingZeros(occupied);
+            if ((rules.jumps(i) & empty) != 0) {
+                return true;
+            }
+            occupied &= occupied - 1;
+        }
+        return false;
+    }
+}
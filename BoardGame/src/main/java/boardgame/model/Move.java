@@ -0,0 +1,98 @@
+package boardgame.model;
+
+/**
+ * The {@code Move} class encodes the moves of the game as plain
+ * {@code int} values, so move lists can be kept in primitive arrays.
+ * The lowest 8 bits hold the index of the target square and the next
+ * 8 bits the index of the starting square. A placement of a new circle
+ * is encoded with the starting square equal to the target square.
+ */
+public final class Move {
+
+    /**
+     * The number of bits used for one square index.
+     */
+    private static final int SHIFT = 8;
+
+    /**
+     * The mask of one square index.
+     */
+    private static final int MASK = (1 << SHIFT) - 1;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private Move() {
+
+    }
+
+    /**
+     * Encodes the placement of a new circle.
+     *
+     * @param to the index of the square the circle is placed on
+     * @return the encoded move
+     */
+    public static int placement(final int to) {
+        return to << SHIFT | to;
+    }
+
+    /**
+     * Encodes a jump of a circle.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return the encoded move
+     */
+    public static int jump(final int from, final int to) {
+        return from << SHIFT | to;
+    }
+
+    /**
+     * Returns the starting square of a move.
+     * For a placement this is the same as the target square.
+     *
+     * @param move the encoded move
+     * @return the index of the starting square
+     */
+    public static int from(final int move) {
+        return move >>> SHIFT & MASK;
+    }
+
+    /**
+     * Returns the target square of a move.
+     *
+     * @param move the encoded move
+     * @return the index of the target square
+     */
+    public static int to(final int move) {
+        return move & MASK;
+    }
+
+    /**
+     * Checks if a move places a new circle.
+     *
+     * @param move the encoded move
+     * @return true for a placement, false for a jump
+     */
+    public static boolean isPlacement(final int move) {
+        return from(move) == to(move);
+    }
+
+    /**
+     * Returns a readable representation of a move,
+     * such as {@code "+(1,2)"} for a placement
+     * or {@code "(0,0)->(2,2)"} for a jump.
+     *
+     * @param move  the encoded move
+     * @param rules the rules the move belongs to
+     * @return the string representation of the move
+     */
+    public static String toString(final int move, final RuleSet rules) {
+        var size = rules.getSize();
+        var to = new Position(to(move) / size, to(move) % size);
+        if (isPlacement(move)) {
+            return "+" + to;
+        }
+        return new Position(from(move) / size, from(move) % size) + "->" + to;
+    }
+}
@@ -0,0 +1,543 @@
+package boardgame.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code RuleSet} class describes a variant of the board game:
+ * the size of the board, how far a circle can jump and which squares
+ * are blank. The rules are compiled into per-square lookup tables
+ * when the rule set is created, so legality and flip checks are
+ * a single table lookup instead of coordinate arithmetic.
+ * Squares are indexed in row-major order.
+ *
+ * <p>Boards of at most {@value #MAX_COMPACT_SIZE} rows fit in a single
+ * {@code long} and also get bitmask tables for {@link GameState}.
+ * Every board gets the same tables as lists of square indices,
+ * used by {@link WideGameState} on the larger boards.
+ */
+public class RuleSet {
+
+    /**
+     * The largest supported board size.
+     */
+    public static final int MAX_SIZE = 16;
+
+    /**
+     * The largest board size whose squares fit in a single {@code long}.
+     */
+    public static final int MAX_COMPACT_SIZE = 8;
+
+    /**
+     * The smallest supported board size.
+     */
+    public static final int MIN_SIZE = 3;
+
+    /**
+     * The rule set of the original game: a 6x6 board, jumps of at most
+     * two squares and a single blank square at (3,3).
+     */
+    private static final RuleSet STANDARD = new RuleSet(
+            BoardGameModel.BOARD_SIZE, 2,
+            List.of(new Position(BoardGameModel.BOARD_SIZE - (2 + 1),
+                    BoardGameModel.BOARD_SIZE - (2 + 1))));
+
+    /**
+     * The number of rows and columns of the board.
+     */
+    private final int size;
+
+    /**
+     * The maximum distance a circle can jump in one move.
+     */
+    private final int moveRadius;
+
+    /**
+     * The blank squares of the board.
+     */
+    private final List<Position> blanks;
+
+    /**
+     * The mask containing every square of the board.
+     */
+    private final long boardMask;
+
+    /**
+     * The mask of the blank squares.
+     */
+    private final long blankMask;
+
+    /**
+     * The eight-neighbourhood of every square, not including the square.
+     */
+    private final long[] neighbours;
+
+    /**
+     * The squares a circle can jump to from every square.
+     */
+    private final long[] jumps;
+
+    /**
+     * The squares at most two rows and columns away from every square,
+     * including the square.
+     */
+    private final long[] influence;
+
+    /**
+     * The eight-neighbourhood of every square as a list of squares.
+     */
+    private final int[][] neighbourList;
+
+    /**
+     * The squares a circle can jump to from every square
+     * as a list of squares.
+     */
+    private final int[][] jumpList;
+
+    /**
+     * The squares at most two rows and columns away from every square,
+     * including the square, as a list of squares.
+     */
+    private final int[][] influenceList;
+
+    /**
+     * Indicates whether every square is blank.
+     */
+    private final boolean[] blankSquare;
+
+    /**
+     * An upper bound of the number of legal moves in any position.
+     */
+    private final int maxMoves;
+
+    /**
+     * Constructs a new rule set and compiles its lookup tables.
+     * A circle can jump horizontally, vertically or diagonally
+     * at most {@code radius} squares.
+     *
+     * @param boardSize the number of rows and columns of the board
+     * @param radius    the maximum jump distance
+     * @param blankSquares the blank squares of the board
+     * @throws IllegalArgumentException if the board size is not supported,
+     * the radius is not positive or a blank square is not on the board
+     */
+    public RuleSet(final int boardSize, final int radius,
+                   final List<Position> blankSquares) {
+        if (boardSize < MIN_SIZE || boardSize > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Unsupported board size: " + boardSize);
+        }
+        if (radius < 1) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+        this.size = boardSize;
+        this.moveRadius = radius;
+        this.blanks = List.copyOf(blankSquares);
+
+        var squares = boardSize * boardSize;
+        this.blankSquare = new boolean[squares];
+        for (var p : blanks) {
+            if (!isOnBoard(p.row(), p.col())) {
+                throw new IllegalArgumentException(
+                        "Blank square is not on the board: " + p);
+            }
+            blankSquare[index(p.row(), p.col())] = true;
+        }
+
+        this.neighbourList = new int[squares][];
+        this.jumpList = new int[squares][];
+        this.influenceList = new int[squares][];
+        var reach = Math.max(radius, 2);
+        var side = 2 * reach + 1;
+        var near = new int[side * side];
+        var far = new int[side * side];
+        var around = new int[side * side];
+        var moves = squares;
+        for (var i = 0; i < squares; i++) {
+            var row = i / boardSize;
+            var col = i % boardSize;
+            var nearCount = 0;
+            var farCount = 0;
+            var aroundCount = 0;
+            for (var dr = -reach; dr <= reach; dr++) {
+                for (var dc = -reach; dc <= reach; dc++) {
+                    var r = row + dr;
+                    var c = col + dc;
+                    if (!isOnBoard(r, c)) {
+                        continue;
+                    }
+                    var j = index(r, c);
+                    var distance = Math.max(Math.abs(dr), Math.abs(dc));
+                    if (distance <= 2) {
+                        around[aroundCount++] = j;
+                    }
+                    if (distance == 0) {
+                        continue;
+                    }
+                    if (distance <= 1) {
+                        near[nearCount++] = j;
+                    }
+                    if (distance <= radius && (dr == 0 || dc == 0
+                            || Math.abs(dr) == Math.abs(dc))) {
+                        far[farCount++] = j;
+                    }
+                }
+            }
+            neighbourList[i] = Arrays.copyOf(near, nearCount);
+            jumpList[i] = Arrays.copyOf(far, farCount);
+            influenceList[i] = Arrays.copyOf(around, aroundCount);
+            moves += farCount;
+        }
+        this.maxMoves = moves;
+
+        if (boardSize > MAX_COMPACT_SIZE) {
+            this.boardMask = 0;
+            this.blankMask = 0;
+            this.neighbours = null;
+            this.jumps = null;
+            this.influence = null;
+            return;
+        }
+        this.boardMask = squares == Long.SIZE ? -1L : (1L << squares) - 1;
+        this.blankMask = toMask(blankSquares());
+        this.neighbours = new long[squares];
+        this.jumps = new long[squares];
+        this.influence = new long[squares];
+        for (var i = 0; i < squares; i++) {
+            neighbours[i] = toMask(neighbourList[i]);
+            jumps[i] = toMask(jumpList[i]);
+            influence[i] = toMask(influenceList[i]);
+        }
+    }
+
+    /**
+     * Returns the mask of a list of squares.
+     *
+     * @param squares the indices of the squares
+     * @return the mask with the bit of every square set
+     */
+    private static long toMask(final int[] squares) {
+        var mask = 0L;
+        for (var i : squares) {
+            mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the indices of the blank squares.
+     *
+     * @return the blank squares in row-major order
+     */
+    private int[] blankSquares() {
+        var count = 0;
+        for (var b : blankSquare) {
+            count += b ? 1 : 0;
+        }
+        var result = new int[count];
+        var n = 0;
+        for (var i = 0; i < blankSquare.length; i++) {
+            if (blankSquare[i]) {
+                result[n++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rule set of the original 6x6 game.
+     *
+     * @return the standard rule set
+     */
+    public static RuleSet standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns the rules of the original game on a board of another size:
+     * jumps of at most two squares and a single blank square next to
+     * the middle of the board, where the standard board has it.
+     *
+     * @param boardSize the number of rows and columns of the board
+     * @return the rule set of the board size
+     * @throws IllegalArgumentException if the board size is not supported
+     */
+    public static RuleSet ofSize(final int boardSize) {
+        if (boardSize == STANDARD.size) {
+            return STANDARD;
+        }
+        return new RuleSet(boardSize, 2,
+                List.of(new Position(boardSize / 2, boardSize / 2)));
+    }
+
+    /**
+     * Returns the number of rows and columns of the board.
+     *
+     * @return the board size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of squares of the board.
+     *
+     * @return the number of squares
+     */
+    public int getSquares() {
+        return size * size;
+    }
+
+    /**
+     * Returns the maximum distance a circle can jump in one move.
+     *
+     * @return the move radius
+     */
+    public int getMoveRadius() {
+        return moveRadius;
+    }
+
+    /**
+     * Returns the blank squares of the board.
+     *
+     * @return an unmodifiable list of the blank squares
+     */
+    public List<Position> getBlanks() {
+        return blanks;
+    }
+
+    /**
+     * Returns an upper bound of the number of legal moves in any position.
+     * A move buffer of this length can hold every move of a position.
+     *
+     * @return the maximum number of moves
+     */
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+
+    /**
+     * Checks if the squares of the board fit in a single {@code long},
+     * so the bitmask tables of the rule set are available.
+     *
+     * @return true if the board has at most
+     * {@value #MAX_COMPACT_SIZE} rows
+     */
+    public boolean isCompact() {
+        return size <= MAX_COMPACT_SIZE;
+    }
+
+    /**
+     * Returns the mask containing every square of the board.
+     *
+     * @return the board mask
+     * @throws IllegalStateException if the board is not compact
+     */
+    public long getBoardMask() {
+        checkCompact();
+        return boardMask;
+    }
+
+    /**
+     * Returns the mask of the blank squares.
+     *
+     * @return the blank mask
+     * @throws IllegalStateException if the board is not compact
+     */
+    public long getBlankMask() {
+        checkCompact();
+        return blankMask;
+    }
+
+    /**
+     * Returns the number of blank squares.
+     *
+     * @return the number of distinct blank squares
+     */
+    public int getBlankCount() {
+        return blankSquares().length;
+    }
+
+    /**
+     * Checks if a square is blank.
+     *
+     * @param index the index of the square
+     * @return true if no circle can be placed on the square
+     */
+    public boolean isBlank(final int index) {
+        return blankSquare[index];
+    }
+
+    /**
+     * Returns the squares of the red circles at the start of the game,
+     * one in the top-left and one in the bottom-right corner.
+     *
+     * @return the indices of the initial red circles
+     */
+    public int[] getInitialHeadSquares() {
+        return new int[] {index(0, 0), index(size - 1, size - 1)};
+    }
+
+    /**
+     * Returns the squares of the blue circles at the start of the game,
+     * one in the top-right and one in the bottom-left corner.
+     *
+     * @return the indices of the initial blue circles
+     */
+    public int[] getInitialTailSquares() {
+        return new int[] {index(0, size - 1), index(size - 1, 0)};
+    }
+
+    /**
+     * Returns the mask of the red circles at the start of the game,
+     * one in the top-left and one in the bottom-right corner.
+     *
+     * @return the initial red circles
+     * @throws IllegalStateException if the board is not compact
+     */
+    public long getInitialHead() {
+        checkCompact();
+        return toMask(getInitialHeadSquares());
+    }
+
+    /**
+     * Returns the mask of the blue circles at the start of the game,
+     * one in the top-right and one in the bottom-left corner.
+     *
+     * @return the initial blue circles
+     * @throws IllegalStateException if the board is not compact
+     */
+    public long getInitialTail() {
+        checkCompact();
+        return toMask(getInitialTailSquares());
+    }
+
+    /**
+     * Checks that the bitmask tables are available.
+     *
+     * @throws IllegalStateException if the board is not compact
+     */
+    private void checkCompact() {
+        if (!isCompact()) {
+            throw new IllegalStateException("The squares of a " + size
+                    + "x" + size + " board do not fit in a long");
+        }
+    }
+
+    /**
+     * Returns the index of the square at the specified row and column.
+     *
+     * @param row the row index of the square
+     * @param col the column index of the square
+     * @return the index of the square
+     */
+    public int index(final int row, final int col) {
+        return row * size + col;
+    }
+
+    /**
+     * Checks if the specified row and column are within the board.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return true if the square is on the board, false otherwise
+     */
+    public boolean isOnBoard(final int row, final int col) {
+        return 0 <= row && row < size && 0 <= col && col < size;
+    }
+
+    /**
+     * Returns the eight-neighbourhood of a square.
+     * These are the squares a circle can be placed on next to a friendly
+     * circle and the squares turned when a circle lands on the square.
+     *
+     * The table is only available on compact boards,
+     * see {@link #neighbourList(int)}.
+     *
+     * @param index the index of the square
+     * @return the mask of the neighbouring squares
+     */
+    public long neighbours(final int index) {
+        return neighbours[index];
+    }
+
+    /**
+     * Returns the squares at most two rows and columns away from a square,
+     * including the square. When a circle lands on the square, only these
+     * squares can change whether they are next to a friendly circle.
+     *
+     * The table is only available on compact boards,
+     * see {@link #influenceList(int)}.
+     *
+     * @param index the index of the square
+     * @return the mask of the squares influenced by the square
+     */
+    public long influence(final int index) {
+        return influence[index];
+    }
+
+    /**
+     * Returns the squares a circle can jump to from a square.
+     * The table is only available on compact boards,
+     * see {@link #jumpList(int)}.
+     *
+     * @param index the index of the square
+     * @return the mask of the squares within the move radius
+     */
+    public long jumps(final int index) {
+        return jumps[index];
+    }
+
+    /**
+     * Returns the eight-neighbourhood of a square as a list.
+     * The returned array is shared and must not be modified.
+     *
+     * @param index the index of the square
+     * @return the indices of the neighbouring squares
+     */
+    public int[] neighbourList(final int index) {
+        return neighbourList[index];
+    }
+
+    /**
+     * Returns the squares at most two rows and columns away from a square,
+     * including the square, as a list.
+     * The returned array is shared and must not be modified.
+     *
+     * @param index the index of the square
+     * @return the indices of the squares influenced by the square
+     */
+    public int[] influenceList(final int index) {
+        return influenceList[index];
+    }
+
+    /**
+     * Returns the squares a circle can jump to from a square as a list.
+     * The returned array is shared and must not be modified.
+     *
+     * @param index the index of the square
+     * @return the indices of the squares within the move radius
+     */
+    public int[] jumpList(final int index) {
+        return jumpList[index];
+    }
+
+    /**
+     * Checks if a circle can jump from one square to the other.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return true if the target is within the move radius of the start
+     */
+    public boolean isJump(final int from, final int to) {
+        if (jumps != null) {
+            return (jumps[from] & (1L << to)) != 0;
+        }
+        for (var j : jumpList[from]) {
+            if (j == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
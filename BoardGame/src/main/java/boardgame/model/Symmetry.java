@@ -0,0 +1,290 @@
+package boardgame.model;
+
+import java.util.ArrayList;
+
+/**
+ * The {@code Symmetry} class maps positions to a canonical representative
+ * of their class of equivalent positions.
+ * Jumps and neighbourhoods are the same along rows, columns and
+ * diagonals, so the rotations and reflections of the board that map the
+ * blank squares onto themselves keep the rules. The group of these
+ * transforms is derived from the blank squares of the {@link RuleSet}.
+ * Swapping the colours of the circles together with the side to move
+ * also keeps the rules, except that a tie goes to the blue player;
+ * it is added to the group when the board has an odd number of squares
+ * that are not blank, so that a tie cannot happen.
+ *
+ * <p>A transform is identified by its index in the group, 0 being
+ * the identity.
+ */
+public class Symmetry {
+
+    /**
+     * The number of rotations and reflections of a square board.
+     */
+    private static final int DIHEDRAL = 8;
+
+    /**
+     * The rules of the transformed positions.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The square every square is mapped to by each transform.
+     */
+    private final int[][] permutations;
+
+    /**
+     * Indicates whether each transform swaps the colours.
+     */
+    private final boolean[] swaps;
+
+    /**
+     * The inverse of each transform.
+     */
+    private final int[] inverses;
+
+    /**
+     * Derives the symmetry group of a rule set.
+     *
+     * @param ruleSet the rules of the transformed positions
+     */
+    public Symmetry(final RuleSet ruleSet) {
+        this.rules = ruleSet;
+        var size = ruleSet.getSize();
+        var squares = ruleSet.getSquares();
+        var open = squares - Long.bitCount(ruleSet.getBlankMask());
+        var colourSwap = open % 2 == 1;
+
+        var found = new ArrayList<int[]>();
+        for (var t = 0; t < DIHEDRAL; t++) {
+            var permutation = new int[squares];
+            for (var i = 0; i < squares; i++) {
+                permutation[i] = transform(t, i / size, i % size, size);
+            }
+            if (map(permutation, ruleSet.getBlankMask())
+                    == ruleSet.getBlankMask()) {
+                found.add(permutation);
+            }
+        }
+        var count = found.size() * (colourSwap ? 2 : 1);
+        this.permutations = new int[count][];
+        this.swaps = new boolean[count];
+        for (var i = 0; i < found.size(); i++) {
+            permutations[i] = found.get(i);
+            if (colourSwap) {
+                permutations[found.size() + i] = found.get(i);
+                swaps[found.size() + i] = true;
+            }
+        }
+
+        this.inverses = new int[count];
+        for (var a = 0; a < count; a++) {
+            for (var b = 0; b < count; b++) {
+                if (swaps[a] == swaps[b] && isInverse(permutations[a],
+                        permutations[b])) {
+                    inverses[a] = b;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the rules of the transformed positions.
+     *
+     * @return the rule set
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of transforms in the group.
+     *
+     * @return the order of the symmetry group
+     */
+    public int size() {
+        return permutations.length;
+    }
+
+    /**
+     * Checks if a transform swaps the colours of the circles.
+     *
+     * @param transform the index of the transform
+     * @return true if red and blue are swapped
+     */
+    public boolean swapsColours(final int transform) {
+        return swaps[transform];
+    }
+
+    /**
+     * Returns the inverse of a transform.
+     *
+     * @param transform the index of the transform
+     * @return the index of the inverse transform
+     */
+    public int inverse(final int transform) {
+        return inverses[transform];
+    }
+
+    /**
+     * Returns the square a square is mapped to.
+     *
+     * @param transform the index of the transform
+     * @param index     the index of the square
+     * @return the index of the image of the square
+     */
+    public int transformSquare(final int transform, final int index) {
+        return permutations[transform][index];
+    }
+
+    /**
+     * Returns the image of a set of squares.
+     *
+     * @param transform the index of the transform
+     * @param squares   the mask of the squares
+     * @return the mask of the images of the squares
+     */
+    public long transformSquares(final int transform, final long squares) {
+        return map(permutations[transform], squares);
+    }
+
+    /**
+     * Returns the image of a move.
+     *
+     * @param transform the index of the transform
+     * @param move      the move encoded as by {@link Move}
+     * @return the image of the move
+     */
+    public int transformMove(final int transform, final int move) {
+        var permutation = permutations[transform];
+        if (Move.isPlacement(move)) {
+            return Move.placement(permutation[Move.to(move)]);
+        }
+        return Move.jump(permutation[Move.from(move)],
+                permutation[Move.to(move)]);
+    }
+
+    /**
+     * Finds the transform mapping a position to its canonical
+     * representative: the image with red to move if possible,
+     * then with the smallest red and blue masks.
+     *
+     * @param state the position
+     * @return the index of the transform
+     */
+    public int canonicalTransform(final GameState state) {
+        var best = 0;
+        var bestRed = state.isRedTurn();
+        var bestHead = state.getHead();
+        var bestTail = state.getTail();
+        for (var t = 1; t < permutations.length; t++) {
+            var red = state.isRedTurn() != swaps[t];
+            var head = transformSquares(t,
+                    swaps[t] ? state.getTail() : state.getHead());
+            var tail = transformSquares(t,
+                    swaps[t] ? state.getHead() : state.getTail());
+            var order = Boolean.compare(bestRed, red);
+            if (order == 0) {
+                order = Long.compareUnsigned(head, bestHead);
+            }
+            if (order == 0) {
+                order = Long.compareUnsigned(tail, bestTail);
+            }
+            if (order < 0) {
+                best = t;
+                bestRed = red;
+                bestHead = head;
+                bestTail = tail;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Replaces a position with its image under a transform.
+     * The move counters and the undo stack of the state are cleared.
+     *
+     * @param transform the index of the transform
+     * @param state     the position to transform
+     */
+    public void apply(final int transform, final GameState state) {
+        var head = transformSquares(transform, state.getHead());
+        var tail = transformSquares(transform, state.getTail());
+        if (swaps[transform]) {
+            state.setPosition(tail, head, !state.isRedTurn());
+        } else {
+            state.setPosition(head, tail, state.isRedTurn());
+        }
+    }
+
+    /**
+     * Replaces a position with its canonical representative.
+     *
+     * @param state the position to canonicalize
+     * @return the index of the transform applied
+     */
+    public int canonicalize(final GameState state) {
+        var transform = canonicalTransform(state);
+        if (transform != 0) {
+            apply(transform, state);
+        }
+        return transform;
+    }
+
+    /**
+     * Returns the image of a square under one of the eight rotations
+     * and reflections of the board.
+     *
+     * @param t    the index of the rotation or reflection
+     * @param row  the row of the square
+     * @param col  the column of the square
+     * @param size the size of the board
+     * @return the index of the image of the square
+     */
+    private static int transform(final int t, final int row, final int col,
+                                 final int size) {
+        var last = size - 1;
+        return switch (t) {
+            case 0 -> row * size + col;
+            case 1 -> col * size + last - row;
+            case 2 -> (last - row) * size + last - col;
+            case 3 -> (last - col) * size + row;
+            case 4 -> row * size + last - col;
+            case 5 -> (last - row) * size + col;
+            case 6 -> col * size + row;
+            default -> (last - col) * size + last - row;
+        };
+    }
+
+    /**
+     * Returns the image of a set of squares under a permutation.
+     *
+     * @param permutation the image of every square
+     * @param squares     the mask of the squares
+     * @return the mask of the images
+     */
+    private static long map(final int[] permutation, final long squares) {
+        var image = 0L;
+        for (var s = squares; s != 0; s &= s - 1) {
+            image |= 1L << permutation[Long.numberOfTrailingZeros(s)];
+        }
+        return image;
+    }
+
+    /**
+     * Checks if two permutations are the inverse of each other.
+     *
+     * @param a the first permutation
+     * @param b the second permutation
+     * @return true if applying both gives the identity
+     */
+    private static boolean isInverse(final int[] a, final int[] b) {
+        for (var i = 0; i < a.length; i++) {
+            if (b[a[i]] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
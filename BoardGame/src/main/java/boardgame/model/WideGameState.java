@@ -0,0 +1,765 @@
+package boardgame.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code WideGameState} class is the game state of boards whose
+ * squares do not fit in a single {@code long}. The occupancy and the
+ * frontiers are kept as bitsets of several {@code long} words, bit
+ * {@code i % 64} of word {@code i / 64} standing for square {@code i},
+ * and the rules are applied through the square lists of the
+ * {@link RuleSet} instead of its bitmask tables.
+ * The undo records are as compact as those of {@link GameState}:
+ * the circles turned by a move are kept as a bitmask over the
+ * neighbourhood list of its target square.
+ */
+public class WideGameState implements BoardState {
+
+    /**
+     * The initial capacity of the undo stack.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The rules the game is played by.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The number of squares of the board.
+     */
+    private final int squares;
+
+    /**
+     * The squares occupied by the red player.
+     */
+    private final long[] head;
+
+    /**
+     * The squares occupied by the blue player.
+     */
+    private final long[] tail;
+
+    /**
+     * The blank squares no circle can be placed on.
+     */
+    private final long[] blank;
+
+    /**
+     * The empty squares next to a red circle.
+     */
+    private final long[] redFrontier;
+
+    /**
+     * The empty squares next to a blue circle.
+     */
+    private final long[] blueFrontier;
+
+    /**
+     * Indicates whether it is currently the red player's turn.
+     */
+    private boolean redTurn = true;
+
+    /**
+     * The Zobrist hash of the state, see {@link Zobrist}.
+     */
+    private long hash;
+
+    /**
+     * The number of moves made by the red player.
+     */
+    private int redMoves;
+
+    /**
+     * The number of moves made by the blue player.
+     */
+    private int blueMoves;
+
+    /**
+     * The moves of the undo stack.
+     */
+    private int[] stackMoves = new int[INITIAL_CAPACITY];
+
+    /**
+     * The circles turned by each move of the undo stack,
+     * one bit per entry of the neighbourhood list of the target square.
+     */
+    private int[] stackFlips = new int[INITIAL_CAPACITY];
+
+    /**
+     * The move counters before each move of the undo stack,
+     * the red counter in the high and the blue counter in the low half.
+     */
+    private long[] stackCounters = new long[INITIAL_CAPACITY];
+
+    /**
+     * The hash of the state before each move of the undo stack.
+     */
+    private long[] stackHashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of moves on the undo stack.
+     */
+    private int stackSize;
+
+    /**
+     * Constructs an empty game state of the specified rules
+     * with the red player to move.
+     *
+     * @param ruleSet the rules the game is played by
+     */
+    public WideGameState(final RuleSet ruleSet) {
+        this.rules = ruleSet;
+        this.squares = ruleSet.getSquares();
+        var words = (squares + Long.SIZE - 1) / Long.SIZE;
+        this.head = new long[words];
+        this.tail = new long[words];
+        this.blank = new long[words];
+        this.redFrontier = new long[words];
+        this.blueFrontier = new long[words];
+    }
+
+    /**
+     * Constructs a copy of the specified game state.
+     * The undo stack is not copied, the copy starts with no history.
+     *
+     * @param other the game state to copy
+     */
+    public WideGameState(final WideGameState other) {
+        this.rules = other.rules;
+        this.squares = other.squares;
+        this.head = other.head.clone();
+        this.tail = other.tail.clone();
+        this.blank = other.blank.clone();
+        this.redFrontier = other.redFrontier.clone();
+        this.blueFrontier = other.blueFrontier.clone();
+        this.redTurn = other.redTurn;
+        this.hash = other.hash;
+        this.redMoves = other.redMoves;
+        this.blueMoves = other.blueMoves;
+    }
+
+    /**
+     * Returns a copy of this state, see
+     * {@link #WideGameState(WideGameState)}.
+     *
+     * @return the copy
+     */
+    @Override
+    public WideGameState copy() {
+        return new WideGameState(this);
+    }
+
+    /**
+     * Returns the rules the game is played by.
+     *
+     * @return the rule set of the game
+     */
+    @Override
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Resets the state to the starting layout of its rules:
+     * the corner circles and the blank squares, with red to move.
+     */
+    @Override
+    public void setUp() {
+        Arrays.fill(head, 0);
+        Arrays.fill(tail, 0);
+        Arrays.fill(blank, 0);
+        for (var i = 0; i < squares; i++) {
+            if (rules.isBlank(i)) {
+                add(blank, i);
+            }
+        }
+        for (var i : rules.getInitialHeadSquares()) {
+            add(head, i);
+        }
+        for (var i : rules.getInitialTailSquares()) {
+            add(tail, i);
+        }
+        redTurn = true;
+        redMoves = 0;
+        blueMoves = 0;
+        stackSize = 0;
+        hash = 0;
+        for (var i = 0; i < squares; i++) {
+            if (contains(head, i)) {
+                hash ^= Zobrist.head(i);
+            } else if (contains(tail, i)) {
+                hash ^= Zobrist.tail(i);
+            }
+            updateFrontiers(i);
+        }
+    }
+
+    /**
+     * Returns the square at the specified index.
+     *
+     * @param index the index of the square
+     * @return the square at the specified index
+     */
+    @Override
+    public Square get(final int index) {
+        if (contains(head, index)) {
+            return Square.HEAD;
+        } else if (contains(tail, index)) {
+            return Square.TAIL;
+        } else if (contains(blank, index)) {
+            return Square.BLANK;
+        }
+        return Square.NONE;
+    }
+
+    /**
+     * Sets the square at the specified index.
+     *
+     * @param index  the index of the square
+     * @param square the square value to set
+     */
+    @Override
+    public void set(final int index, final Square square) {
+        if (contains(head, index)) {
+            hash ^= Zobrist.head(index);
+        }
+        if (contains(tail, index)) {
+            hash ^= Zobrist.tail(index);
+        }
+        remove(head, index);
+        remove(tail, index);
+        remove(blank, index);
+        switch (square) {
+            case HEAD -> {
+                add(head, index);
+                hash ^= Zobrist.head(index);
+            }
+            case TAIL -> {
+                add(tail, index);
+                hash ^= Zobrist.tail(index);
+            }
+            case BLANK -> add(blank, index);
+            default -> { }
+        }
+        updateFrontiers(index);
+        for (var j : rules.neighbourList(index)) {
+            updateFrontiers(j);
+        }
+    }
+
+    /**
+     * Checks if the square at the specified index is empty.
+     *
+     * @param index the index of the square
+     * @return true if the square contains {@link Square#NONE}
+     */
+    @Override
+    public boolean isEmpty(final int index) {
+        var word = index >>> 6;
+        var bit = 1L << index;
+        return ((head[word] | tail[word] | blank[word]) & bit) == 0;
+    }
+
+    /**
+     * Returns whether it is currently the red player's turn.
+     *
+     * @return true if it is the red player's turn, false otherwise
+     */
+    @Override
+    public boolean isRedTurn() {
+        return redTurn;
+    }
+
+    /**
+     * Sets whether it is currently the red player's turn.
+     *
+     * @param isRedTurn true if it is the red player's turn, false otherwise
+     */
+    @Override
+    public void setRedTurn(final boolean isRedTurn) {
+        if (redTurn != isRedTurn) {
+            hash ^= Zobrist.side();
+        }
+        this.redTurn = isRedTurn;
+    }
+
+    /**
+     * Returns the Zobrist hash of the state.
+     *
+     * @return the hash of the state
+     */
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of moves made by the red player.
+     *
+     * @return the move counter of the red player
+     */
+    @Override
+    public int getRedMoves() {
+        return redMoves;
+    }
+
+    /**
+     * Returns the number of moves made by the blue player.
+     *
+     * @return the move counter of the blue player
+     */
+    @Override
+    public int getBlueMoves() {
+        return blueMoves;
+    }
+
+    /**
+     * Increases the move counter of the red player by 1.
+     */
+    @Override
+    public void addRedMove() {
+        redMoves++;
+    }
+
+    /**
+     * Increases the move counter of the blue player by 1.
+     */
+    @Override
+    public void addBlueMove() {
+        blueMoves++;
+    }
+
+    /**
+     * Returns the number of red circles on the board.
+     *
+     * @return the number of red circles
+     */
+    @Override
+    public int countHead() {
+        return count(head);
+    }
+
+    /**
+     * Returns the number of blue circles on the board.
+     *
+     * @return the number of blue circles
+     */
+    @Override
+    public int countTail() {
+        return count(tail);
+    }
+
+    /**
+     * Counts the empty squares of the board.
+     *
+     * @return the number of squares containing {@link Square#NONE}
+     */
+    @Override
+    public int countEmpty() {
+        var occupied = 0;
+        for (var w = 0; w < head.length; w++) {
+            occupied += Long.bitCount(head[w] | tail[w] | blank[w]);
+        }
+        return squares - occupied;
+    }
+
+    /**
+     * Counts the empty squares where the given player can place
+     * a new circle.
+     *
+     * @param isRed true for the red player, false for the blue player
+     * @return the number of placeable squares
+     */
+    @Override
+    public int countFrontier(final boolean isRed) {
+        return count(isRed ? redFrontier : blueFrontier);
+    }
+
+    /**
+     * Counts the circles of the opponent a move of the current player
+     * would turn.
+     *
+     * @param move the move encoded as by {@link Move}
+     * @return the number of circles turned by the move
+     */
+    @Override
+    public int countFlips(final int move) {
+        var opponent = redTurn ? tail : head;
+        var flips = 0;
+        for (var j : rules.neighbourList(Move.to(move))) {
+            if (contains(opponent, j)) {
+                flips++;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Checks if a move from one square to the other is valid.
+     *
+     * @param from the index of the starting square
+     * @param to   the index of the target square
+     * @return true if the starting square is occupied, the target square
+     * is empty and the target can be reached by a pawn move
+     */
+    @Override
+    public boolean canMove(final int from, final int to) {
+        return !isEmpty(from) && isEmpty(to) && rules.isJump(from, to);
+    }
+
+    /**
+     * Checks if the current player can place a new circle on a square,
+     * that is the square is empty and next to a friendly circle.
+     *
+     * @param index the index of the square
+     * @return true if the placement is legal, false otherwise
+     */
+    @Override
+    public boolean canPlace(final int index) {
+        return contains(redTurn ? redFrontier : blueFrontier, index);
+    }
+
+    /**
+     * Writes every legal move of the current player into the buffer,
+     * first the placements and then the jumps, encoded as by {@link Move}.
+     *
+     * @param moves the buffer the moves are written to
+     * @return the number of moves written
+     */
+    @Override
+    public int generateMoves(final int[] moves) {
+        var frontier = redTurn ? redFrontier : blueFrontier;
+        var friendly = redTurn ? head : tail;
+        var count = 0;
+        for (var w = 0; w < frontier.length; w++) {
+            for (var bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                moves[count++] = Move.placement(
+                        w * Long.SIZE + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        for (var w = 0; w < friendly.length; w++) {
+            for (var bits = friendly[w]; bits != 0; bits &= bits - 1) {
+                var from = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                for (var to : rules.jumpList(from)) {
+                    if (isEmpty(to)) {
+                        moves[count++] = Move.jump(from, to);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the current player has any legal move.
+     *
+     * @return true if the current player can place or move a circle
+     */
+    @Override
+    public boolean hasLegalMove() {
+        if (hasSpaceForCircle(redTurn)) {
+            return true;
+        }
+        return hasJump(redTurn ? head : tail);
+    }
+
+    /**
+     * Makes a legal move for the current player, increases its move
+     * counter and pushes an undo record.
+     *
+     * @param move the move encoded as by {@link Move}
+     */
+    @Override
+    public void make(final int move) {
+        if (stackSize == stackMoves.length) {
+            var capacity = stackSize * 2;
+            stackMoves = Arrays.copyOf(stackMoves, capacity);
+            stackFlips = Arrays.copyOf(stackFlips, capacity);
+            stackCounters = Arrays.copyOf(stackCounters, capacity);
+            stackHashes = Arrays.copyOf(stackHashes, capacity);
+        }
+        stackHashes[stackSize] = hash;
+        stackCounters[stackSize] = (long) redMoves << Integer.SIZE
+                | (blueMoves & 0xFFFFFFFFL);
+        if (redTurn) {
+            redMoves++;
+        } else {
+            blueMoves++;
+        }
+        var to = Move.to(move);
+        if (!Move.isPlacement(move)) {
+            var from = Move.from(move);
+            if (contains(head, from)) {
+                hash ^= Zobrist.head(from);
+            }
+            if (contains(tail, from)) {
+                hash ^= Zobrist.tail(from);
+            }
+            remove(head, from);
+            remove(tail, from);
+        }
+        stackFlips[stackSize] = placeAndFlip(to);
+        updateAfterMove(move);
+        redTurn = !redTurn;
+        hash ^= Zobrist.side();
+        stackMoves[stackSize] = move;
+        stackSize++;
+    }
+
+    /**
+     * Takes back the last move made with {@link #make(int)}, restoring
+     * the board, the side to move and the move counters.
+     *
+     * @return the move that was taken back
+     * @throws IllegalStateException if there is no move to take back
+     */
+    @Override
+    public int unmake() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        stackSize--;
+        var move = stackMoves[stackSize];
+        var flips = stackFlips[stackSize];
+        var counters = stackCounters[stackSize];
+        redMoves = (int) (counters >>> Integer.SIZE);
+        blueMoves = (int) counters;
+        redTurn = !redTurn;
+        hash = stackHashes[stackSize];
+
+        var own = redTurn ? head : tail;
+        var opponent = redTurn ? tail : head;
+        var to = Move.to(move);
+        remove(own, to);
+        var neighbours = rules.neighbourList(to);
+        for (var k = 0; k < neighbours.length; k++) {
+            if ((flips & (1 << k)) != 0) {
+                remove(own, neighbours[k]);
+                add(opponent, neighbours[k]);
+            }
+        }
+        if (!Move.isPlacement(move)) {
+            add(own, Move.from(move));
+        }
+        updateAfterMove(move);
+        return move;
+    }
+
+    /**
+     * Returns the number of moves that can be taken back.
+     *
+     * @return the size of the undo stack
+     */
+    @Override
+    public int getHistorySize() {
+        return stackSize;
+    }
+
+    /**
+     * Checks if the current position, with the same player to move,
+     * already occurred since the last placement of the history.
+     *
+     * @return true if the position is a repetition
+     */
+    @Override
+    public boolean isRepetition() {
+        for (var i = stackSize - 1;
+             i >= 0 && !Move.isPlacement(stackMoves[i]); i--) {
+            if (stackHashes[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a circle of the current player at the specified square and
+     * turns the opponent's circles in its eight-neighbourhood.
+     * The side to move is left unchanged.
+     *
+     * @param index the index of the square
+     */
+    @Override
+    public void place(final int index) {
+        placeAndFlip(index);
+        updateAfterMove(Move.placement(index));
+    }
+
+    /**
+     * Checks if the given player has an empty square
+     * next to one of its circles.
+     *
+     * @param isRed true to check the red player, false for the blue player
+     * @return true if the player has space to place a circle
+     */
+    @Override
+    public boolean hasSpaceForCircle(final boolean isRed) {
+        for (var word : isRed ? redFrontier : blueFrontier) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any occupied square can be moved to an empty square.
+     *
+     * @return true if there is at least one valid move on the board
+     */
+    @Override
+    public boolean hasMovableCircle() {
+        return hasJump(head) || hasJump(tail) || hasJump(blank);
+    }
+
+    /**
+     * Checks if any of the given squares has an empty square
+     * within the move radius.
+     *
+     * @param pieces the squares to check
+     * @return true if a circle on one of the squares could jump
+     */
+    private boolean hasJump(final long[] pieces) {
+        for (var w = 0; w < pieces.length; w++) {
+            for (var bits = pieces[w]; bits != 0; bits &= bits - 1) {
+                var from = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                for (var to : rules.jumpList(from)) {
+                    if (isEmpty(to)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a circle of the current player at the specified square
+     * and turns the opponent's circles without updating the frontiers.
+     *
+     * @param index the index of the square
+     * @return the turned circles as a bitmask over the neighbourhood list
+     * of the square
+     */
+    private int placeAndFlip(final int index) {
+        var own = redTurn ? head : tail;
+        var opponent = redTurn ? tail : head;
+        remove(blank, index);
+        flip(own, opponent, index);
+        var flips = 0;
+        var neighbours = rules.neighbourList(index);
+        for (var k = 0; k < neighbours.length; k++) {
+            if (contains(opponent, neighbours[k])) {
+                flip(own, opponent, neighbours[k]);
+                flips |= 1 << k;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Gives a square to the current player, updating the hash.
+     *
+     * @param own      the circles of the current player
+     * @param opponent the circles of the other player
+     * @param index    the index of the square
+     */
+    private void flip(final long[] own, final long[] opponent,
+                      final int index) {
+        if (contains(opponent, index)) {
+            remove(opponent, index);
+            hash ^= redTurn ? Zobrist.tail(index) : Zobrist.head(index);
+        }
+        if (!contains(own, index)) {
+            add(own, index);
+            hash ^= redTurn ? Zobrist.head(index) : Zobrist.tail(index);
+        }
+    }
+
+    /**
+     * Recomputes the frontiers around the squares changed by a move:
+     * the squares influenced by its target and, for a jump,
+     * the starting square and its neighbours.
+     *
+     * @param move the move encoded as by {@link Move}
+     */
+    private void updateAfterMove(final int move) {
+        for (var j : rules.influenceList(Move.to(move))) {
+            updateFrontiers(j);
+        }
+        if (!Move.isPlacement(move)) {
+            var from = Move.from(move);
+            updateFrontiers(from);
+            for (var j : rules.neighbourList(from)) {
+                updateFrontiers(j);
+            }
+        }
+    }
+
+    /**
+     * Recomputes whether a square belongs to the frontiers.
+     *
+     * @param index the index of the square
+     */
+    private void updateFrontiers(final int index) {
+        remove(redFrontier, index);
+        remove(blueFrontier, index);
+        if (!isEmpty(index)) {
+            return;
+        }
+        for (var j : rules.neighbourList(index)) {
+            if (contains(head, j)) {
+                add(redFrontier, index);
+            }
+            if (contains(tail, j)) {
+                add(blueFrontier, index);
+            }
+        }
+    }
+
+    /**
+     * Checks if a square is in a bitset.
+     *
+     * @param set   the bitset
+     * @param index the index of the square
+     * @return true if the bit of the square is set
+     */
+    private static boolean contains(final long[] set, final int index) {
+        return (set[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Adds a square to a bitset.
+     *
+     * @param set   the bitset
+     * @param index the index of the square
+     */
+    private static void add(final long[] set, final int index) {
+        set[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Removes a square from a bitset.
+     *
+     * @param set   the bitset
+     * @param index the index of the square
+     */
+    private static void remove(final long[] set, final int index) {
+        set[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Counts the squares of a bitset.
+     *
+     * @param set the bitset
+     * @return the number of bits set
+     */
+    private static int count(final long[] set) {
+        var n = 0;
+        for (var word : set) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,123 @@
+package boardgame.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code Zobrist} class holds the random keys used to hash
+ * game states. The hash of a state is the exclusive or of the key of
+ * every red and blue circle, and of the side key if blue is to move,
+ * so it can be updated incrementally when circles are placed, moved
+ * or turned. The keys are generated from a fixed seed and are the same
+ * in every run.
+ */
+public final class Zobrist {
+
+    /**
+     * The number of squares keys are generated for.
+     */
+    private static final int SQUARES = RuleSet.MAX_SIZE * RuleSet.MAX_SIZE;
+
+    /**
+     * The seed of the key generator.
+     */
+    private static final long SEED = 0x5EEDB0A2D6A3E5L;
+
+    /**
+     * The keys of the red circles on every square.
+     */
+    private static final long[] HEAD = new long[SQUARES];
+
+    /**
+     * The keys of the blue circles on every square.
+     */
+    private static final long[] TAIL = new long[SQUARES];
+
+    /**
+     * The key of the blue player being to move.
+     */
+    private static final long SIDE;
+
+    static {
+        var random = new SplittableRandom(SEED);
+        for (var i = 0; i < SQUARES; i++) {
+            HEAD[i] = random.nextLong();
+            TAIL[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private Zobrist() {
+
+    }
+
+    /**
+     * Returns the key of a red circle on a square.
+     *
+     * @param index the index of the square
+     * @return the key of the red circle
+     */
+    public static long head(final int index) {
+        return HEAD[index];
+    }
+
+    /**
+     * Returns the key of a blue circle on a square.
+     *
+     * @param index the index of the square
+     * @return the key of the blue circle
+     */
+    public static long tail(final int index) {
+        return TAIL[index];
+    }
+
+    /**
+     * Returns the key of the blue player being to move.
+     *
+     * @return the side key
+     */
+    public static long side() {
+        return SIDE;
+    }
+
+    /**
+     * Returns the exclusive or of the red keys of the given squares.
+     *
+     * @param squares the mask of the squares
+     * @return the combined key
+     */
+    public static long heads(final long squares) {
+        var key = 0L;
+        for (var s = squares; s != 0; s &= s - 1) {
+            key ^= HEAD[Long.numberOfTrailingZeros(s)];
+        }
+        return key;
+    }
+
+    /**
+     * Returns the exclusive or of the blue keys of the given squares.
+     *
+     * @param squares the mask of the squares
+     * @return the combined key
+     */
+    public static long tails(final long squares) {
+        var key = 0L;
+        for (var s = squares; s != 0; s &= s - 1) {
+            key ^= TAIL[Long.numberOfTrailingZeros(s)];
+        }
+        return key;
+    }
+
+    /**
+     * Computes the hash of a game state from scratch.
+     *
+     * @param state the game state to hash
+     * @return the hash of the state
+     */
+    public static long hash(final GameState state) {
+        var key = heads(state.getHead()) ^ tails(state.getTail());
+        return state.isRedTurn() ? key : key ^ SIDE;
+    }
+}
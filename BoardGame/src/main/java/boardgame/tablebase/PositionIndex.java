@@ -0,0 +1,127 @@
+package boardgame.tablebase;
+
+import boardgame.model.GameState;
+import boardgame.model.RuleSet;
+
+/**
+ * The {@code PositionIndex} class is a perfect hash of the positions of
+ * a rule set. Every square that is not blank is a base three digit,
+ * 0 for an empty square, 1 for a red and 2 for a blue circle, and the
+ * lowest bit of the index is set if blue is to move. Every position has
+ * its own index below {@link #size()} and every index is a position.
+ */
+public class PositionIndex {
+
+    /**
+     * The largest number of positions an index can have.
+     */
+    public static final long MAX_SIZE = 1L << 40;
+
+    /**
+     * The rules of the indexed positions.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The squares that are not blank, in the order of the digits.
+     */
+    private final int[] squares;
+
+    /**
+     * The place value of every digit.
+     */
+    private final long[] powers;
+
+    /**
+     * The number of positions.
+     */
+    private final long size;
+
+    /**
+     * Constructs the index of the positions of a rule set.
+     *
+     * @param ruleSet the rules of the indexed positions
+     * @throws IllegalArgumentException if the board has too many
+     * positions to index
+     */
+    public PositionIndex(final RuleSet ruleSet) {
+        this.rules = ruleSet;
+        var open = ruleSet.getBoardMask() & ~ruleSet.getBlankMask();
+        this.squares = new int[Long.bitCount(open)];
+        this.powers = new long[squares.length];
+        var power = 1L;
+        for (var i = 0; i < squares.length; i++) {
+            squares[i] = Long.numberOfTrailingZeros(open);
+            open &= open - 1;
+            powers[i] = power;
+            power *= 3;
+            if (power > MAX_SIZE) {
+                throw new IllegalArgumentException("Too many positions on a "
+                        + ruleSet.getSize() + "x" + ruleSet.getSize()
+                        + " board");
+            }
+        }
+        this.size = power * 2;
+    }
+
+    /**
+     * Returns the rules of the indexed positions.
+     *
+     * @return the rule set
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of positions.
+     *
+     * @return the number of indexes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of a position.
+     *
+     * @param state the position
+     * @return the index of the position
+     */
+    public long indexOf(final GameState state) {
+        var head = state.getHead();
+        var tail = state.getTail();
+        var index = 0L;
+        for (var i = 0; i < squares.length; i++) {
+            var bit = 1L << squares[i];
+            if ((head & bit) != 0) {
+                index += powers[i];
+            } else if ((tail & bit) != 0) {
+                index += 2 * powers[i];
+            }
+        }
+        return index * 2 + (state.isRedTurn() ? 0 : 1);
+    }
+
+    /**
+     * Loads the position of an index into a state.
+     *
+     * @param index the index of the position
+     * @param state the state to load the position into
+     */
+    public void load(final long index, final GameState state) {
+        var digits = index / 2;
+        var head = 0L;
+        var tail = 0L;
+        for (var i = 0; i < squares.length; i++) {
+            var digit = digits % 3;
+            digits /= 3;
+            if (digit == 1) {
+                head |= 1L << squares[i];
+            } else if (digit == 2) {
+                tail |= 1L << squares[i];
+            }
+        }
+        state.setPosition(head, tail, index % 2 == 0);
+    }
+}
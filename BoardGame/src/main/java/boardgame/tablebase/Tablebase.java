@@ -0,0 +1,243 @@
+package boardgame.tablebase;
+
+import boardgame.model.GameState;
+import boardgame.model.Move;
+import boardgame.model.RuleSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code Tablebase} class looks up the game-theoretic value of
+ * positions in a tablebase file written by {@link TablebaseBuilder}.
+ * The file is memory mapped, so opening it reads only the header and
+ * a lookup touches a single byte.
+ *
+ * <p>The file starts with a {@value #HEADER_BYTES} byte header: the
+ * magic number, the format version, the board size, the move radius,
+ * the mask of the blank squares and the number of positions. It is
+ * followed by the value of every position in two bits, four positions
+ * per byte in the order of their {@link PositionIndex}.
+ */
+public class Tablebase {
+
+    /**
+     * The value of a position that is not reachable from the start.
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * The value of a position the player to move wins.
+     */
+    public static final int WIN = 1;
+
+    /**
+     * The value of a position the player to move loses.
+     */
+    public static final int LOSS = 2;
+
+    /**
+     * The value of a position neither player can force to an end.
+     */
+    public static final int DRAW = 3;
+
+    /**
+     * The magic number at the start of the file.
+     */
+    static final int MAGIC = 0x42475442;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * The index of the positions.
+     */
+    private final PositionIndex index;
+
+    /**
+     * The mapped values.
+     */
+    private final MappedByteBuffer values;
+
+    /**
+     * The state the positions after a move are looked up on.
+     */
+    private final GameState scratch;
+
+    /**
+     * The move buffer of {@link #bestMove(GameState)}.
+     */
+    private final int[] moves;
+
+    /**
+     * Constructs a new tablebase over a mapped file.
+     *
+     * @param positionIndex the index of the positions
+     * @param buffer        the mapped file
+     */
+    private Tablebase(final PositionIndex positionIndex,
+                      final MappedByteBuffer buffer) {
+        this.index = positionIndex;
+        this.values = buffer;
+        this.scratch = new GameState(positionIndex.getRules());
+        this.moves = new int[positionIndex.getRules().getMaxMoves()];
+    }
+
+    /**
+     * Opens a tablebase file.
+     *
+     * @param file  the tablebase file
+     * @param rules the rules the tablebase was built for
+     * @return the opened tablebase
+     * @throws IOException if the file cannot be read, is not a tablebase
+     * or was built for other rules
+     */
+    public static Tablebase open(final Path file, final RuleSet rules)
+            throws IOException {
+        var positionIndex = new PositionIndex(rules);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var length = dataBytes(positionIndex.size());
+            if (channel.size() != HEADER_BYTES + length) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    HEADER_BYTES + length);
+            checkHeader(buffer, rules, positionIndex.size(), file);
+            return new Tablebase(positionIndex, buffer);
+        }
+    }
+
+    /**
+     * Writes the header of a tablebase file.
+     *
+     * @param buffer    the buffer positioned at the start of the file
+     * @param rules     the rules of the tablebase
+     * @param positions the number of positions
+     */
+    static void writeHeader(final ByteBuffer buffer, final RuleSet rules,
+                            final long positions) {
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rules.getSize())
+                .putInt(rules.getMoveRadius())
+                .putLong(rules.getBlankMask())
+                .putLong(positions);
+    }
+
+    /**
+     * Checks that the header of a tablebase file matches the rules.
+     *
+     * @param buffer    the buffer positioned at the start of the file
+     * @param rules     the expected rules
+     * @param positions the expected number of positions
+     * @param file      the file, for the error message
+     * @throws IOException if the header does not match
+     */
+    private static void checkHeader(final ByteBuffer buffer,
+                                    final RuleSet rules,
+                                    final long positions, final Path file)
+            throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a tablebase: " + file);
+        }
+        if (buffer.getInt(8) != rules.getSize()
+                || buffer.getInt(12) != rules.getMoveRadius()
+                || buffer.getLong(16) != rules.getBlankMask()
+                || buffer.getLong(24) != positions) {
+            throw new IOException("Tablebase built for other rules: " + file);
+        }
+    }
+
+    /**
+     * Returns the number of bytes holding the values of the positions.
+     *
+     * @param positions the number of positions
+     * @return the size of the values in bytes
+     */
+    static long dataBytes(final long positions) {
+        return (positions + 3) / 4;
+    }
+
+    /**
+     * Returns the value of a position for the player to move.
+     *
+     * @param state the position
+     * @return {@link #WIN}, {@link #LOSS}, {@link #DRAW}
+     * or {@link #UNKNOWN}
+     */
+    public int value(final GameState state) {
+        return value(index.indexOf(state));
+    }
+
+    /**
+     * Returns the value of the position with the given index.
+     *
+     * @param position the index of the position
+     * @return {@link #WIN}, {@link #LOSS}, {@link #DRAW}
+     * or {@link #UNKNOWN}
+     */
+    public int value(final long position) {
+        var b = values.get((int) (HEADER_BYTES + (position >> 2)));
+        return (b >> (int) ((position & 3) * 2)) & 3;
+    }
+
+    /**
+     * Returns a move keeping the value of the position: a move to a lost
+     * position of the opponent if there is one, otherwise a move to a
+     * drawn one. Placements are preferred among equal moves, since they
+     * fill the board and bring the end of the game closer.
+     *
+     * <p>The tablebase holds no distance to the end of the game, so only
+     * the value is guaranteed to be kept: from a won position the chosen
+     * moves may go round in jumps without ever winning. The tablebase is
+     * not thread-safe, since the move buffer and the looked up state are
+     * shared by the calls.
+     *
+     * @param state the position
+     * @return the chosen move encoded as by {@link Move},
+     * or -1 if there is no legal move
+     */
+    public int bestMove(final GameState state) {
+        var count = state.generateMoves(moves);
+        var best = -1;
+        var bestRank = Integer.MIN_VALUE;
+        for (var i = 0; i < count; i++) {
+            scratch.setPosition(state.getHead(), state.getTail(),
+                    state.isRedTurn());
+            scratch.make(moves[i]);
+            var rank = rank(value(scratch)) * 2
+                    + (Move.isPlacement(moves[i]) ? 1 : 0);
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Ranks a move by the value it leaves the opponent with.
+     *
+     * @param opponentValue the value of the position after the move
+     * @return the higher, the better the move
+     */
+    private static int rank(final int opponentValue) {
+        return switch (opponentValue) {
+            case LOSS -> 2;
+            case DRAW -> 1;
+            case WIN -> 0;
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,297 @@
+package boardgame.tablebase;
+
+import boardgame.model.GameOutcome;
+import boardgame.model.GameState;
+import boardgame.model.Position;
+import boardgame.model.RuleSet;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The {@code TablebaseBuilder} class solves every position reachable
+ * from the starting layout of a small board and writes the values into
+ * a {@link Tablebase} file.
+ * The reachable positions are found by a forward sweep from the start.
+ * Finished games are won or lost by their final score, then the other
+ * positions are resolved by repeated sweeps: a position is won if a move
+ * leads to a lost position of the opponent, and lost if every move leads
+ * to a won one. Positions still open when a sweep changes nothing are
+ * draws, since both players can keep the game going forever with jumps.
+ * The values are kept in memory, one byte per position, while solving.
+ */
+public class TablebaseBuilder {
+
+    /**
+     * The largest number of positions that can be solved in memory.
+     */
+    public static final long MAX_POSITIONS = Integer.MAX_VALUE - 8;
+
+    /**
+     * The index of the positions.
+     */
+    private final PositionIndex index;
+
+    /**
+     * The value of every position, see the constants of {@link Tablebase}.
+     */
+    private final byte[] values;
+
+    /**
+     * The positions reachable from the start, one bit per position.
+     */
+    private final long[] reached;
+
+    /**
+     * The reached positions whose moves are not followed yet.
+     */
+    private final long[] pending;
+
+    /**
+     * The state positions are loaded into.
+     */
+    private final GameState state;
+
+    /**
+     * The move buffer.
+     */
+    private final int[] moves;
+
+    /**
+     * Constructs a new builder for a rule set.
+     *
+     * @param rules the rules of the solved games
+     * @throws IllegalArgumentException if the board has too many positions
+     */
+    public TablebaseBuilder(final RuleSet rules) {
+        this.index = new PositionIndex(rules);
+        if (index.size() > MAX_POSITIONS) {
+            throw new IllegalArgumentException("Too many positions to solve: "
+                    + index.size());
+        }
+        var size = (int) index.size();
+        this.values = new byte[size];
+        this.reached = new long[(size + Long.SIZE - 1) / Long.SIZE];
+        this.pending = new long[reached.length];
+        this.state = new GameState(rules);
+        this.moves = new int[rules.getMaxMoves()];
+    }
+
+    /**
+     * Solves every reachable position and writes the tablebase file.
+     *
+     * @param file the file to write
+     * @return the number of reachable positions
+     * @throws IOException if the file cannot be written
+     */
+    public long build(final Path file) throws IOException {
+        var start = System.nanoTime();
+        var count = findReachable();
+        Logger.info("{} reachable positions", count);
+        var sweeps = resolve();
+        Logger.info("Solved in {} sweeps, {} ms", sweeps,
+                (System.nanoTime() - start) / 1_000_000);
+        write(file);
+        return count;
+    }
+
+    /**
+     * Returns the value of a position after {@link #build(Path)}.
+     *
+     * @param position the index of the position
+     * @return the value of the position
+     */
+    public int value(final long position) {
+        return values[(int) position];
+    }
+
+    /**
+     * Marks every position reachable from the starting layout
+     * and gives the finished games their values.
+     *
+     * @return the number of reachable positions
+     */
+    private long findReachable() {
+        state.setUp();
+        var first = index.indexOf(state);
+        mark(first);
+        var count = 1L;
+        var found = true;
+        while (found) {
+            found = false;
+            for (var w = 0; w < pending.length; w++) {
+                while (pending[w] != 0) {
+                    var bit = Long.numberOfTrailingZeros(pending[w]);
+                    pending[w] &= pending[w] - 1;
+                    var position = (long) w * Long.SIZE + bit;
+                    index.load(position, state);
+                    var moveCount = state.generateMoves(moves);
+                    if (moveCount == 0) {
+                        values[(int) position] = (byte) finalValue(state);
+                    }
+                    for (var i = 0; i < moveCount; i++) {
+                        state.make(moves[i]);
+                        var child = index.indexOf(state);
+                        state.unmake();
+                        if (!isReached(child)) {
+                            mark(child);
+                            count++;
+                            found = true;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resolves the reachable positions by sweeps until nothing changes,
+     * then makes the open positions draws.
+     *
+     * @return the number of sweeps
+     */
+    private int resolve() {
+        var sweeps = 0;
+        var changed = true;
+        while (changed) {
+            changed = false;
+            sweeps++;
+            for (var w = 0; w < reached.length; w++) {
+                for (var bits = reached[w]; bits != 0; bits &= bits - 1) {
+                    var position = w * Long.SIZE
+                            + Long.numberOfTrailingZeros(bits);
+                    if (values[position] == Tablebase.UNKNOWN) {
+                        var value = resolve(position);
+                        if (value != Tablebase.UNKNOWN) {
+                            values[position] = (byte) value;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        for (var w = 0; w < reached.length; w++) {
+            for (var bits = reached[w]; bits != 0; bits &= bits - 1) {
+                var position = w * Long.SIZE
+                        + Long.numberOfTrailingZeros(bits);
+                if (values[position] == Tablebase.UNKNOWN) {
+                    values[position] = Tablebase.DRAW;
+                }
+            }
+        }
+        return sweeps;
+    }
+
+    /**
+     * Tries to resolve an open position from the values of the positions
+     * after its moves.
+     *
+     * @param position the index of the position
+     * @return {@link Tablebase#WIN}, {@link Tablebase#LOSS},
+     * or {@link Tablebase#UNKNOWN} if it is still open
+     */
+    private int resolve(final int position) {
+        index.load(position, state);
+        var moveCount = state.generateMoves(moves);
+        var allWon = true;
+        for (var i = 0; i < moveCount; i++) {
+            state.make(moves[i]);
+            var child = values[(int) index.indexOf(state)];
+            state.unmake();
+            if (child == Tablebase.LOSS) {
+                return Tablebase.WIN;
+            }
+            if (child != Tablebase.WIN) {
+                allWon = false;
+            }
+        }
+        return allWon ? Tablebase.LOSS : Tablebase.UNKNOWN;
+    }
+
+    /**
+     * Returns the value of a finished game for the player to move.
+     * A tie goes to the blue player.
+     *
+     * @param finished the final position
+     * @return {@link Tablebase#WIN} or {@link Tablebase#LOSS}
+     */
+    private static int finalValue(final GameState finished) {
+        var difference = GameOutcome.scoreForSideToMove(finished);
+        var won = difference > 0 || difference == 0 && !finished.isRedTurn();
+        return won ? Tablebase.WIN : Tablebase.LOSS;
+    }
+
+    /**
+     * Writes the header and the packed values into the tablebase file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    private void write(final Path file) throws IOException {
+        var length = Tablebase.HEADER_BYTES
+                + Tablebase.dataBytes(values.length);
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    length);
+            Tablebase.writeHeader(buffer, index.getRules(), values.length);
+            for (var i = 0; i < values.length; i += 4) {
+                var packed = 0;
+                for (var j = 0; j < 4 && i + j < values.length; j++) {
+                    packed |= values[i + j] << (j * 2);
+                }
+                buffer.put((byte) packed);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Marks a position as reached and pending.
+     *
+     * @param position the index of the position
+     */
+    private void mark(final long position) {
+        reached[(int) (position >>> 6)] |= 1L << position;
+        pending[(int) (position >>> 6)] |= 1L << position;
+    }
+
+    /**
+     * Checks if a position is reached.
+     *
+     * @param position the index of the position
+     * @return true if the position is reached
+     */
+    private boolean isReached(final long position) {
+        return (reached[(int) (position >>> 6)] & 1L << position) != 0;
+    }
+
+    /**
+     * Builds the tablebase of a small board with a blank square
+     * in the middle.
+     *
+     * @param args the board size and the file to write,
+     *             4 and {@code tablebase-4x4.bin} if missing
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        var size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        var file = Path.of(args.length > 1
+                ? args[1]
+                : "tablebase-" + size + "x" + size + ".bin");
+        var rules = new RuleSet(size, 2,
+                List.of(new Position(size / 2, size / 2)));
+        var builder = new TablebaseBuilder(rules);
+        builder.build(file);
+        var start = new GameState(rules);
+        start.setUp();
+        Logger.info("Value of the starting position: {}",
+                builder.value(new PositionIndex(rules).indexOf(start)));
+    }
+}
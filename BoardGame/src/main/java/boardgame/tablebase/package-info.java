@@ -0,0 +1,6 @@
+/**
+ * Provides the tablebases of the board game: the game-theoretic value
+ * of every position reachable on a small board, computed once, stored in
+ * a file and read back through a memory mapping.
+ */
+package boardgame.tablebase;
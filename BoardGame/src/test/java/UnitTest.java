@@ -1,12 +1,56 @@
 
 import boardgame.Controllers.BoardGameController;
+import boardgame.data.BinaryStatistics;
+import boardgame.data.Data;
+import boardgame.data.DataHandler;
+import boardgame.data.PagedStatistics;
+import boardgame.data.SegmentedStatistics;
+import boardgame.data.StatisticsColumn;
+import boardgame.data.StatisticsColumns;
+import boardgame.data.StatisticsQuery;
+import boardgame.data.StatisticsSummary;
+import boardgame.data.StatisticsWriter;
+import boardgame.engine.EndgameSolver;
+import boardgame.engine.MonteCarloSearch;
+import boardgame.engine.ParallelSearch;
+import boardgame.engine.Perft;
+import boardgame.engine.SearchEngine;
+import boardgame.engine.TranspositionTable;
 import boardgame.model.BoardGameModel;
+import boardgame.model.BoardState;
+import boardgame.model.GameOutcome;
+import boardgame.model.GameState;
+import boardgame.model.Move;
 import boardgame.model.Position;
+import boardgame.model.RuleSet;
 import boardgame.model.Square;
+import boardgame.model.Symmetry;
+import boardgame.model.WideGameState;
+import boardgame.model.Zobrist;
+import boardgame.tablebase.PositionIndex;
+import boardgame.tablebase.Tablebase;
+import boardgame.tablebase.TablebaseBuilder;
 
 import boardgame.util.BoardGameMoveSelector;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -117,29 +161,34 @@ public class UnitTest {
     }
 
     @Test
-    public void testRedWins() {
+    public void testRedWins(@TempDir Path directory) {
         final int countRed = 5;
         final int countBlue = 3;
-        final String pathOfFile = "data.txt";
+        final String pathOfFile = directory.resolve("data.txt").toString();
 
         BoardGameController myClass = new BoardGameController();
 
         boolean result = myClass.checkAndLogTheWin(countRed, countBlue, pathOfFile);
+        StatisticsWriter.of(pathOfFile).close();
 
         Assertions.assertTrue(result);
     }
 
     @Test
-    public void testBlueWins() {
+    public void testBlueWins(@TempDir Path directory) throws IOException {
         final int countRed = 3;
         final int countBlue = 5;
-        final String pathOfFile = "UnitTest.json";
+        final String pathOfFile = directory.resolve("UnitTest.json").toString();
+        Files.copy(Path.of("UnitTest.json"), Path.of(pathOfFile));
 
         BoardGameController myClass = new BoardGameController();
 
         boolean result = myClass.checkAndLogTheWin(countRed, countBlue, pathOfFile);
+        StatisticsWriter.of(pathOfFile).close();
 
         Assertions.assertFalse(result);
+        Assertions.assertEquals(3,
+                new DataHandler(pathOfFile).readData().size());
     }
 
 
@@ -171,4 +220,909 @@ public class UnitTest {
         boolean hasSpaceBlue = boardGameModel.hasSpaceForCircle(false);
         assertTrue(hasSpaceBlue);
     }
+
+    @Test
+    void testMoveUpdatesStateAndProperties() {
+        BoardGameModel model = new BoardGameModel();
+
+        model.setSquare(new Position(0, 0), Square.HEAD);
+        model.setSquare(new Position(2, 1), Square.TAIL);
+        model.setSquare(new Position(3, 3), Square.BLANK);
+
+        model.move(new Position(0, 0), new Position(2, 2));
+
+        assertEquals(Square.NONE, model.squareProperty(0, 0).get());
+        assertEquals(Square.HEAD, model.squareProperty(2, 2).get());
+        assertEquals(Square.HEAD, model.squareProperty(2, 1).get());
+        assertEquals(Square.BLANK, model.getSquare(3, 3));
+        assertEquals(0, model.getState().countTail());
+        assertFalse(model.isPlayerRedTurn());
+    }
+
+    @Test
+    void testRuleSetTables() {
+        assertTrue(BoardGameModel.isPawnMove(new Position(0, 0), new Position(2, 2)));
+        assertTrue(BoardGameModel.isPawnMove(new Position(3, 3), new Position(3, 5)));
+        assertFalse(BoardGameModel.isPawnMove(new Position(0, 0), new Position(1, 2)));
+        assertFalse(BoardGameModel.isPawnMove(new Position(0, 0), new Position(0, 3)));
+
+        RuleSet rules = new RuleSet(4, 1, List.of(new Position(1, 1)));
+        assertFalse(rules.isJump(rules.index(0, 0), rules.index(0, 2)));
+        assertTrue(rules.isJump(rules.index(0, 0), rules.index(1, 1)));
+        assertEquals(3, Long.bitCount(rules.neighbours(rules.index(3, 3))));
+        assertEquals(1L << rules.index(1, 1), rules.getBlankMask());
+        assertThrows(IllegalArgumentException.class,
+                () -> new RuleSet(4, 1, List.of(new Position(4, 0))));
+    }
+
+    @Test
+    void testGenerateMovesFromStartingLayout() {
+        BoardGameModel model = new BoardGameModel();
+        model.setUpBoard();
+        int[] moves = new int[model.getRules().getMaxMoves()];
+
+        int count = model.generateMoves(moves);
+
+        int placements = 0;
+        for (int i = 0; i < count; i++) {
+            if (Move.isPlacement(moves[i])) {
+                placements++;
+                assertTrue(model.getState().canPlace(Move.to(moves[i])));
+            } else {
+                assertTrue(model.getState().canMove(Move.from(moves[i]), Move.to(moves[i])));
+            }
+        }
+        assertEquals(17, count);
+        assertEquals(6, placements);
+    }
+
+    @Test
+    void testGameOutcome() {
+        BoardGameModel model = new BoardGameModel();
+        model.setUpBoard();
+        assertFalse(GameOutcome.isOver(model.getState()));
+
+        model.setSquare(new Position(0, 0), Square.TAIL);
+        model.setSquare(new Position(5, 5), Square.TAIL);
+        model.setPlayerRedTurn(true);
+
+        assertTrue(GameOutcome.isOver(model.getState()));
+        GameOutcome outcome = GameOutcome.of(model.getState());
+        assertEquals(0, outcome.redScore());
+        assertEquals(35, outcome.blueScore());
+        assertFalse(outcome.isRedWinner());
+        assertEquals("0:35", outcome.toString());
+        assertEquals(-35, GameOutcome.scoreForSideToMove(model.getState()));
+    }
+
+    @Test
+    void testFrontiersAreUpdatedIncrementally() {
+        BoardGameModel model = new BoardGameModel();
+        model.setUpBoard();
+        GameState state = (GameState) model.getState();
+        int[] moves = new int[model.getRules().getMaxMoves()];
+        Random random = new Random(42);
+
+        for (int ply = 0; ply < 200 && state.hasLegalMove(); ply++) {
+            int count = state.generateMoves(moves);
+            state.play(moves[random.nextInt(count)]);
+
+            for (boolean red : new boolean[] {true, false}) {
+                long pieces = red ? state.getHead() : state.getTail();
+                long expected = 0;
+                for (int i = 0; i < 36; i++) {
+                    if (state.isEmpty(i) && (model.getRules().neighbours(i) & pieces) != 0) {
+                        expected |= 1L << i;
+                    }
+                }
+                assertEquals(expected, state.getFrontier(red));
+            }
+        }
+        assertEquals(36 - 1, state.countHead() + state.countTail() + state.countEmpty());
+    }
+
+    @Test
+    void testMakeUnmakeRestoresState() {
+        GameState state = new GameState();
+        state.setUp();
+        GameState initial = new GameState(state);
+        int[] moves = new int[state.getRules().getMaxMoves()];
+        Random random = new Random(7);
+
+        int made = 0;
+        while (made < 300 && state.hasLegalMove()) {
+            int count = state.generateMoves(moves);
+            state.make(moves[random.nextInt(count)]);
+            made++;
+        }
+        assertEquals(made, state.getRedMoves() + state.getBlueMoves());
+        while (state.getHistorySize() > 0) {
+            state.unmake();
+        }
+
+        assertEquals(initial.getHead(), state.getHead());
+        assertEquals(initial.getTail(), state.getTail());
+        assertEquals(initial.getFrontier(true), state.getFrontier(true));
+        assertEquals(initial.getFrontier(false), state.getFrontier(false));
+        assertTrue(state.isRedTurn());
+        assertEquals(0, state.getRedMoves() + state.getBlueMoves());
+    }
+
+    @Test
+    void testUndoRedo() {
+        BoardGameModel model = new BoardGameModel();
+        model.setUpBoard();
+
+        model.move(new Position(0, 0), new Position(2, 2));
+        assertEquals(1, model.getRedPlayerMoveCounter());
+        assertTrue(model.undo());
+        assertEquals(Square.HEAD, model.squareProperty(0, 0).get());
+        assertEquals(Square.NONE, model.squareProperty(2, 2).get());
+        assertEquals(0, model.getRedPlayerMoveCounter());
+        assertTrue(model.isPlayerRedTurn());
+        assertFalse(model.undo());
+
+        assertTrue(model.redo());
+        assertEquals(Square.HEAD, model.squareProperty(2, 2).get());
+        assertFalse(model.isPlayerRedTurn());
+        assertFalse(model.canRedo());
+    }
+
+    @Test
+    void testSearchEngineFindsWinningMove() {
+        GameState state = new GameState();
+        state.set(state.index(0, 0), Square.HEAD);
+        state.set(state.index(2, 2), Square.TAIL);
+        state.set(state.index(3, 3), Square.BLANK);
+        SearchEngine engine = new SearchEngine(state.getRules());
+
+        int move = engine.search(state, 1000, 4);
+        state.make(move);
+
+        assertTrue(GameOutcome.isOver(state));
+        assertTrue(GameOutcome.of(state).isRedWinner());
+        assertTrue(engine.getLastScore() > SearchEngine.WIN - SearchEngine.MAX_PLY);
+    }
+
+    @Test
+    void testSearchEngineStopsWhenInterrupted() {
+        GameState state = new GameState();
+        state.setUp();
+        SearchEngine engine = new SearchEngine(state.getRules());
+
+        long start = System.nanoTime();
+        Thread.currentThread().interrupt();
+        int move = engine.search(state, 60_000, SearchEngine.MAX_PLY);
+        assertTrue(Thread.interrupted());
+
+        assertTrue(move >= 0);
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        assertEquals(0, state.getHistorySize());
+    }
+
+    @Test
+    void testZobristHashIsUpdatedIncrementally() {
+        GameState state = new GameState();
+        state.setUp();
+        long initial = state.getHash();
+        assertEquals(Zobrist.hash(state), initial);
+
+        Random random = new Random(7);
+        int[] moves = new int[state.getRules().getMaxMoves()];
+        for (int i = 0; i < 30 && state.hasLegalMove(); i++) {
+            int count = state.generateMoves(moves);
+            state.make(moves[random.nextInt(count)]);
+            assertEquals(Zobrist.hash(state), state.getHash());
+        }
+        while (state.getHistorySize() > 0) {
+            state.unmake();
+            assertEquals(Zobrist.hash(state), state.getHash());
+        }
+        assertEquals(initial, state.getHash());
+    }
+
+    @Test
+    void testTranspositionTableStoresAndProbes() {
+        TranspositionTable table = new TranspositionTable(4);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+
+        table.store(key, Move.jump(3, 17), -250, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        assertEquals(Move.jump(3, 17), TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(key ^ 1L << 40));
+
+        table.store(key, -1, 0, 1, TranspositionTable.EXACT);
+        assertEquals(-1, TranspositionTable.move(table.probe(key)));
+        table.store(key, Move.placement(255), 0, 1, TranspositionTable.EXACT);
+        assertEquals(Move.placement(255),
+                TranspositionTable.move(table.probe(key)));
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+    }
+
+    @Test
+    void testParallelSearchFindsWinningMove() {
+        GameState state = new GameState();
+        state.set(state.index(0, 0), Square.HEAD);
+        state.set(state.index(2, 2), Square.TAIL);
+        state.set(state.index(3, 3), Square.BLANK);
+        ParallelSearch search = new ParallelSearch(state.getRules(), 3);
+
+        int move = search.search(state, 1000, 4);
+        search.shutdown();
+        assertEquals(0, state.getHistorySize());
+        assertTrue(search.getNodes() > 0);
+        state.make(move);
+
+        assertTrue(GameOutcome.isOver(state));
+        assertTrue(GameOutcome.of(state).isRedWinner());
+    }
+
+    @Test
+    void testPerftFromStartingLayout() {
+        GameState state = new GameState();
+        state.setUp();
+        assertEquals(1, Perft.perft(state, 0));
+        assertEquals(17, Perft.perft(state, 1));
+        assertEquals(306, Perft.perft(state, 2));
+        assertEquals(7304, Perft.perft(state, 3));
+        assertEquals(0, state.getHistorySize());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        assertEquals(Perft.perft(state, 5), Perft.perft(state, 5, pool));
+        Map<Integer, Long> divide = Perft.divide(state, 3, pool);
+        pool.shutdown();
+        assertEquals(17, divide.size());
+        assertEquals(7304, divide.values().stream()
+                .mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testWideStateMatchesCompactState() {
+        RuleSet rules = RuleSet.ofSize(8);
+        GameState compact = new GameState(rules);
+        WideGameState wide = new WideGameState(rules);
+        compact.setUp();
+        wide.setUp();
+        int[] compactMoves = new int[rules.getMaxMoves()];
+        int[] wideMoves = new int[rules.getMaxMoves()];
+        Random random = new Random(7);
+
+        for (int ply = 0; ply < 300; ply++) {
+            int count = compact.generateMoves(compactMoves);
+            assertEquals(count, wide.generateMoves(wideMoves));
+            for (int i = 0; i < count; i++) {
+                assertEquals(compactMoves[i], wideMoves[i]);
+            }
+            assertEquals(compact.getHash(), wide.getHash());
+            assertEquals(compact.countFrontier(false), wide.countFrontier(false));
+            assertEquals(compact.isRepetition(), wide.isRepetition());
+            if (count == 0) {
+                break;
+            }
+            int move = compactMoves[random.nextInt(count)];
+            assertEquals(compact.countFlips(move), wide.countFlips(move));
+            compact.make(move);
+            wide.make(move);
+        }
+        while (compact.getHistorySize() > 0) {
+            assertEquals(compact.unmake(), wide.unmake());
+        }
+        for (int i = 0; i < rules.getSquares(); i++) {
+            assertEquals(compact.get(i), wide.get(i));
+        }
+        assertEquals(compact.getHash(), wide.getHash());
+        assertEquals(compact.countFrontier(true), wide.countFrontier(true));
+    }
+
+    @Test
+    void testPerftOnWideBoards() {
+        BoardState standard = new WideGameState(RuleSet.standard());
+        standard.setUp();
+        assertEquals(7304, Perft.perft(standard, 3));
+
+        BoardState large = BoardState.create(RuleSet.ofSize(16));
+        assertInstanceOf(WideGameState.class, large);
+        large.setUp();
+        assertEquals(18, Perft.perft(large, 1));
+        assertEquals(251, large.countEmpty());
+        assertThrows(IllegalStateException.class,
+                () -> new GameState(RuleSet.ofSize(9)));
+    }
+
+    @Test
+    void testMonteCarloSearchFindsWinningMove() {
+        GameState state = new GameState();
+        state.set(state.index(0, 0), Square.HEAD);
+        state.set(state.index(2, 2), Square.TAIL);
+        state.set(state.index(3, 3), Square.BLANK);
+        MonteCarloSearch search =
+                new MonteCarloSearch(state.getRules(), 2, 4096, 1);
+
+        int move = search.search(state, 10_000, 4000);
+        search.shutdown();
+        assertEquals(0, state.getHistorySize());
+        assertEquals(4000, search.getSimulations());
+        state.make(move);
+
+        assertTrue(GameOutcome.isOver(state));
+        assertTrue(GameOutcome.of(state).isRedWinner());
+    }
+
+    @Test
+    void testEndgameSolverFillsTheBoard() {
+        GameState state = new GameState();
+        for (int i = 0; i < state.getRules().getSquares(); i++) {
+            state.set(i, Square.HEAD);
+        }
+        state.set(state.index(3, 3), Square.BLANK);
+        state.set(state.index(5, 4), Square.TAIL);
+        state.set(state.index(5, 5), Square.NONE);
+
+        EndgameSolver solver = new EndgameSolver(state.getRules());
+        assertTrue(solver.solve(state, 10_000));
+        assertEquals(Move.placement(state.index(5, 5)), solver.getBestMove());
+        assertEquals(70, solver.getValue());
+        assertEquals(new GameOutcome(35, 0),
+                solver.getOutcome(state).orElseThrow());
+        assertEquals(0, state.getHistorySize());
+
+        SearchEngine engine = new SearchEngine(state.getRules());
+        assertEquals(solver.getBestMove(), engine.search(state, 1000, 4));
+        assertTrue(engine.getLastScore() > SearchEngine.WIN);
+    }
+
+    @Test
+    void testRepetitionAfterJumps() {
+        GameState state = new GameState();
+        state.set(state.index(0, 0), Square.HEAD);
+        state.set(state.index(5, 5), Square.TAIL);
+        state.make(Move.jump(state.index(0, 0), state.index(0, 2)));
+        state.make(Move.jump(state.index(5, 5), state.index(5, 3)));
+        state.make(Move.jump(state.index(0, 2), state.index(0, 0)));
+        assertFalse(state.isRepetition());
+        state.make(Move.jump(state.index(5, 3), state.index(5, 5)));
+        assertTrue(state.isRepetition());
+
+        state.make(Move.placement(state.index(0, 1)));
+        assertFalse(state.isRepetition());
+    }
+
+    @Test
+    void testTablebaseOfThreeByThreeBoard() throws IOException {
+        RuleSet rules = new RuleSet(3, 2, List.of(new Position(1, 1)));
+        PositionIndex index = new PositionIndex(rules);
+        assertEquals(2 * 6561, index.size());
+        GameState state = new GameState(rules);
+        state.setUp();
+        GameState loaded = new GameState(rules);
+        index.load(index.indexOf(state), loaded);
+        assertEquals(state.getHead(), loaded.getHead());
+        assertEquals(state.getTail(), loaded.getTail());
+
+        Path file = Files.createTempFile("tablebase", ".bin");
+        try {
+            TablebaseBuilder builder = new TablebaseBuilder(rules);
+            assertTrue(builder.build(file) > 1);
+            Tablebase tablebase = Tablebase.open(file, rules);
+            int value = tablebase.value(state);
+            assertEquals(builder.value(index.indexOf(state)), value);
+            assertNotEquals(Tablebase.UNKNOWN, value);
+
+            int move = tablebase.bestMove(state);
+            state.make(move);
+            int expected = value == Tablebase.WIN ? Tablebase.LOSS
+                    : value == Tablebase.LOSS ? Tablebase.WIN : Tablebase.DRAW;
+            assertEquals(expected, tablebase.value(state));
+
+            assertThrows(IOException.class, () -> Tablebase.open(file,
+                    new RuleSet(3, 2, List.of(new Position(0, 1)))));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testSymmetryGroupAndCanonicalForm() {
+        Symmetry standard = new Symmetry(RuleSet.standard());
+        assertEquals(4, standard.size());
+        assertEquals(8, new Symmetry(
+                new RuleSet(3, 2, List.of(new Position(1, 1)))).size());
+        assertEquals(16, new Symmetry(new RuleSet(3, 2, List.of())).size());
+
+        GameState state = new GameState();
+        state.setUp();
+        Random random = new Random(3);
+        int[] moves = new int[state.getRules().getMaxMoves()];
+        for (int i = 0; i < 8; i++) {
+            state.make(moves[random.nextInt(state.generateMoves(moves))]);
+        }
+        GameState canonical = new GameState(state);
+        standard.canonicalize(canonical);
+
+        for (int t = 0; t < standard.size(); t++) {
+            GameState image = new GameState(state);
+            standard.apply(t, image);
+            assertEquals(state.countEmpty(), image.countEmpty());
+
+            Set<Integer> expected = new TreeSet<>();
+            int count = state.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                expected.add(standard.transformMove(t, moves[i]));
+            }
+            Set<Integer> actual = new TreeSet<>();
+            count = image.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                actual.add(moves[i]);
+            }
+            assertEquals(expected, actual);
+
+            standard.canonicalize(image);
+            assertEquals(canonical.getHash(), image.getHash());
+
+            GameState back = new GameState(state);
+            standard.apply(t, back);
+            standard.apply(standard.inverse(t), back);
+            assertEquals(state.getHash(), back.getHash());
+        }
+    }
+
+    @Test
+    void testStatisticsLogMigratesAndAppends(@TempDir Path directory)
+            throws IOException {
+        Path file = directory.resolve("statistics.json");
+        Files.writeString(file, "[\n  {\"winnerColor\": \"Red\", "
+                + "\"moveCounter\": 12, \"state\": \"20:15\"}\n]");
+        DataHandler handler = new DataHandler(file.toString());
+        assertEquals(1, handler.readData().size());
+
+        handler.extendData("Blue", 9, "16:19");
+        assertEquals(2, Files.readAllLines(file).size());
+        assertEquals(0, handler.migrate());
+
+        Files.writeString(file, "{\"winnerColor\":\"Re",
+                StandardOpenOption.APPEND);
+        assertEquals(2, handler.readData().size());
+        handler.extendData("Red", 14, "19:16");
+        List<Data> dataList = handler.readData();
+        assertEquals(3, dataList.size());
+        assertEquals("Red", dataList.get(0).getWinnerColor());
+        assertEquals("16:19", dataList.get(1).getState());
+        assertEquals(14, dataList.get(2).getMoveCounter());
+    }
+
+    @Test
+    void testBinaryStatisticsImportAndMappedRead(@TempDir Path directory)
+            throws IOException {
+        Path json = directory.resolve("games.json");
+        Path binary = directory.resolve("games.bin");
+        Files.writeString(json, "[{\"winnerColor\": \"Red\", "
+                + "\"moveCounter\": 12, \"state\": \"20:15\"}]");
+        DataHandler handler = new DataHandler(binary.toString());
+        handler.extendData("Blue", 9, "16:19");
+        assertEquals(16 + 2 * 24, Files.size(binary));
+
+        Files.write(binary, new byte[5], StandardOpenOption.APPEND);
+        BinaryStatistics statistics = BinaryStatistics.open(binary);
+        assertEquals(2, statistics.size());
+        assertEquals(BinaryStatistics.RED, statistics.winner(0));
+        assertEquals(0, statistics.timestamp(0));
+        assertEquals(BinaryStatistics.BLUE, statistics.winner(1));
+        assertEquals(9, statistics.moveCounter(1));
+        assertEquals(16, statistics.redScore(1));
+        assertEquals(19, statistics.blueScore(1));
+        assertTrue(statistics.timestamp(1) > 0);
+
+        handler.extendData("Red", 14, "19:16");
+        List<Data> dataList = handler.readData();
+        assertEquals(3, dataList.size());
+        assertEquals("20:15", dataList.get(0).getState());
+        assertEquals("Red", dataList.get(2).getWinnerColor());
+        assertEquals(16 + 3 * 24, Files.size(binary));
+    }
+
+    @Test
+    void testStatisticsAreStreamed(@TempDir Path directory) throws IOException {
+        Path json = directory.resolve("games.json");
+        Path binary = directory.resolve("games.bin");
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            array.append(i == 0 ? "" : ",").append("{\"winnerColor\": \"")
+                    .append(i % 3 == 0 ? "Red" : "Blue")
+                    .append("\", \"moveCounter\": ").append(i % 20)
+                    .append(", \"state\": \"19:16\"}");
+        }
+        Files.writeString(json, array.append("]"));
+        DataHandler handler = new DataHandler(json.toString());
+        try (Stream<Data> records = handler.streamData()) {
+            assertEquals(334, records
+                    .filter(d -> d.getWinnerColor().equals("Red")).count());
+        }
+
+        DataHandler log = new DataHandler(binary.toString());
+        try (Stream<Data> records = log.streamData()) {
+            assertEquals(9500, records
+                    .mapToInt(Data::getMoveCounter).sum());
+        }
+        assertEquals(1000, BinaryStatistics.open(binary).size());
+
+        assertEquals(1000, handler.migrate());
+        Files.writeString(json, "{\"winnerColor\":\"Blu",
+                StandardOpenOption.APPEND);
+        try (Stream<Data> records = handler.streamData()) {
+            assertEquals(1000, records.count());
+        }
+    }
+
+    @Test
+    void testStatisticsWriterCommitsInBatches(@TempDir Path directory)
+            throws Exception {
+        Path binary = directory.resolve("games.bin");
+        StatisticsWriter writer =
+                new StatisticsWriter(binary.toString(), 64, false);
+        AtomicInteger notified = new AtomicInteger();
+        writer.addCommitListener(notified::incrementAndGet);
+        for (int i = 0; i < 1000; i++) {
+            writer.submit(i % 3 == 0 ? "Red" : "Blue", i % 20,
+                    "20:16");
+        }
+        writer.flush();
+        assertEquals(0, writer.getQueueDepth());
+        writer.submit("Red", 7, "19:17");
+        writer.close();
+        assertThrows(IllegalStateException.class,
+                () -> writer.submit("Red", 7, "19:17"));
+
+        assertEquals(1001, writer.getCommittedRecords());
+        assertEquals(0, writer.getFailedRecords());
+        assertTrue(writer.getCommittedBatches() <= 1001);
+        assertEquals(writer.getCommittedBatches(), notified.get());
+        assertTrue(writer.getMaxCommitMillis()
+                >= writer.getAverageCommitMillis());
+        BinaryStatistics statistics = BinaryStatistics.open(binary);
+        assertEquals(1001, statistics.size());
+        assertEquals(BinaryStatistics.RED, statistics.winner(999));
+        assertEquals(19, statistics.moveCounter(999));
+        assertEquals(7, statistics.moveCounter(1000));
+
+        Path raced = directory.resolve("raced.bin");
+        StatisticsWriter racing =
+                new StatisticsWriter(raced.toString(), 4, false);
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] submitters = new Thread[4];
+        for (int t = 0; t < submitters.length; t++) {
+            submitters[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        racing.submit("Red", 1, "20:16");
+                    } catch (IllegalStateException e) {
+                        return;
+                    }
+                    accepted.incrementAndGet();
+                }
+            });
+            submitters[t].start();
+        }
+        Thread.sleep(5);
+        racing.close();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        assertEquals(accepted.get(), racing.getCommittedRecords());
+        assertEquals(accepted.get(), BinaryStatistics.open(raced).size());
+    }
+
+    @Test
+    void testSegmentedStatisticsRollAndCompact(@TempDir Path directory)
+            throws IOException {
+        Path store = directory.resolve("games.segments");
+        long now = System.currentTimeMillis();
+        long old = now - Duration.ofDays(30).toMillis();
+        SegmentedStatistics statistics = new SegmentedStatistics(store,
+                16 + 4 * 24, Duration.ofDays(7));
+        statistics.append(Stream.generate(
+                () -> new Data("Red", 10, "20:16")).limit(6), old, true);
+        statistics.append(Stream.generate(
+                () -> new Data("Blue", 12, "16:20")).limit(7), now, true);
+        assertEquals(13, statistics.size());
+        assertEquals(4, statistics.segmentCount());
+        assertEquals("Blue", statistics.asList().get(12).getWinnerColor());
+
+        assertEquals(6, statistics.compact());
+        assertEquals(0, statistics.compact());
+        assertEquals(7, statistics.size());
+        assertEquals(3, statistics.segmentCount());
+        statistics.close();
+        Files.writeString(store.resolve("segment-999.bin"), "torn");
+
+        statistics = new SegmentedStatistics(store, 16 + 4 * 24,
+                Duration.ofDays(7));
+        List<Data> dataList = statistics.asList();
+        assertEquals(7, dataList.size());
+        assertEquals(12, dataList.get(0).getMoveCounter());
+        assertEquals("16:20", dataList.get(6).getState());
+        assertFalse(Files.exists(store.resolve("segment-999.bin")));
+        statistics.close();
+    }
+
+    @Test
+    void testSegmentsSealedBySingleAppendsAreCompacted(@TempDir Path directory)
+            throws IOException {
+        Path store = directory.resolve("games.segments");
+        long old = System.currentTimeMillis() - Duration.ofDays(30).toMillis();
+        SegmentedStatistics statistics = new SegmentedStatistics(store,
+                16 + 4 * 24, Duration.ofDays(7));
+        for (int i = 0; i < 13; i++) {
+            statistics.append(Stream.of(new Data("Red", i, "20:16")), old,
+                    true);
+        }
+        assertEquals(4, statistics.segmentCount());
+        for (String line : Files.readAllLines(store.resolve(
+                SegmentedStatistics.MANIFEST)).subList(1, 4)) {
+            assertTrue(line.endsWith(" 4 " + old + " " + old), line);
+        }
+
+        assertEquals(12, statistics.compact());
+        assertEquals(1, statistics.size());
+        assertEquals(13, statistics.appended());
+        assertEquals(12, statistics.asList().get(0).getMoveCounter());
+        statistics.close();
+    }
+
+    @Test
+    void testConcurrentWritersLoseNoRecords(@TempDir Path directory)
+            throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString();
+        String classPath = System.getProperty("java.class.path");
+        int writers = 8;
+        int perWriter = 80;
+        for (String name : new String[] {"log.json", "store.segments"}) {
+            String path = directory.resolve(name).toString();
+            Process[] processes = new Process[writers];
+            for (int w = 0; w < writers; w++) {
+                processes[w] = new ProcessBuilder(java, "-cp", classPath,
+                        "UnitTest", path, String.valueOf(w),
+                        String.valueOf(perWriter))
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+            }
+            for (Process process : processes) {
+                assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+                assertEquals(0, process.exitValue());
+            }
+
+            List<Data> dataList = new DataHandler(path).readData();
+            assertEquals(writers * perWriter, dataList.size());
+            int[] perId = new int[writers];
+            for (Data data : dataList) {
+                perId[data.getMoveCounter()]++;
+            }
+            for (int count : perId) {
+                assertEquals(perWriter, count);
+            }
+        }
+    }
+
+    /**
+     * Appends records to the statistics one at a time, as a writer
+     * process of {@link #testConcurrentWritersLoseNoRecords(Path)}.
+     *
+     * @param args the statistics file, the id of the writer, which is
+     *             stored as the move counter, and the number of records
+     * @throws IOException if the statistics cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        DataHandler handler = new DataHandler(args[0]);
+        int id = Integer.parseInt(args[1]);
+        int records = Integer.parseInt(args[2]);
+        for (int i = 0; i < records; i++) {
+            handler.appendData(List.of(new Data("Red", id, i + ":" + id)),
+                    false);
+        }
+    }
+
+    @Test
+    void testStatisticsSummaryIsKeptUpToDate(@TempDir Path directory)
+            throws IOException {
+        Path log = directory.resolve("games.json");
+        Path summaryFile = directory.resolve("games.json.summary");
+        Files.writeString(log, "{\"winnerColor\":\"Red\","
+                + "\"moveCounter\":12,\"state\":\"20:15\"}\n");
+        DataHandler handler = new DataHandler(log.toString());
+        handler.extendData("Blue", 9, "16:19");
+        handler.extendData("Red", 300, "18:17");
+        handler.extendData("Blue", 7, "unknown");
+        long size = Files.size(summaryFile);
+
+        StatisticsSummary summary = handler.readSummary();
+        assertEquals(4, summary.getGames());
+        assertEquals(2, summary.getRedWins());
+        assertEquals(0.5, summary.getRedWinRate());
+        assertEquals(82.0, summary.getAverageMoves());
+        assertEquals(7, summary.getMinMoves());
+        assertEquals(300, summary.getMaxMoves());
+        assertEquals(1, summary.getMoveCount(
+                StatisticsSummary.MOVE_BUCKETS - 1));
+        assertEquals(3, summary.getScoredGames());
+        assertEquals(1.0, summary.getAverageMargin());
+        assertEquals(-3, summary.getMinMargin());
+        assertEquals(5, summary.getMaxMargin());
+        assertEquals(1, summary.getMarginCount(1));
+
+        handler.extendData("Red", 10, "21:14");
+        assertEquals(size, Files.size(summaryFile));
+        Files.delete(summaryFile);
+        summary = handler.readSummary();
+        assertEquals(5, summary.getGames());
+        assertEquals(7, summary.getMaxMargin());
+        assertTrue(Files.exists(summaryFile));
+
+        Files.writeString(log, "{\"winnerColor\":\"Blue\","
+                + "\"moveCounter\":8,\"state\":\"10:25\"}\n",
+                StandardOpenOption.APPEND);
+        summary = handler.readSummary();
+        assertEquals(6, summary.getGames());
+        assertEquals(Files.size(log), summary.getCovered());
+
+        Path store = directory.resolve("store.segments");
+        long old = System.currentTimeMillis()
+                - Duration.ofDays(30).toMillis();
+        SegmentedStatistics statistics = new SegmentedStatistics(store,
+                16 + 4 * 24, Duration.ofDays(7));
+        statistics.append(Stream.generate(
+                () -> new Data("Red", 10, "20:16")).limit(6), old, true);
+        DataHandler segmented = new DataHandler(store.toString());
+        assertEquals(6, segmented.readSummary().getGames());
+        segmented.extendData("Blue", 12, "16:20");
+        assertEquals(4, statistics.compact());
+        assertEquals(3, statistics.size());
+        assertEquals(7, statistics.appended());
+        assertEquals(7, segmented.readSummary().getGames());
+        statistics.append(Stream.of(new Data("Blue", 9, "15:21")),
+                System.currentTimeMillis(), true);
+        summary = segmented.readSummary();
+        assertEquals(8, summary.getGames());
+        assertEquals(6, summary.getRedWins());
+        statistics.close();
+        SegmentedStatistics.of(store).close();
+    }
+
+    @Test
+    void testColumnarQueriesMatchPlainFilters(@TempDir Path directory)
+            throws IOException {
+        Random random = new Random(24);
+        int size = 100_003;
+        long[] blueWins = new long[(size + 63) / 64];
+        int[] moves = new int[size];
+        int[] red = new int[size];
+        int[] blue = new int[size];
+        for (int i = 0; i < size; i++) {
+            moves[i] = random.nextInt(40);
+            red[i] = random.nextInt(36);
+            blue[i] = 35 - red[i];
+            if (blue[i] > red[i]) {
+                blueWins[i / 64] |= 1L << i;
+            }
+        }
+        StatisticsColumns columns =
+                new StatisticsColumns(blueWins, moves, red, blue);
+
+        long expected = 0;
+        long moveSum = 0;
+        for (int i = 0; i < size; i++) {
+            if (blue[i] > red[i] && moves[i] < 15 && blue[i] - red[i] > 5) {
+                expected++;
+                moveSum += moves[i];
+            }
+        }
+        StatisticsQuery query = columns.select()
+                .where(StatisticsColumn.WINNER,
+                        w -> w == BinaryStatistics.BLUE)
+                .where(StatisticsColumn.MOVES, m -> m < 15)
+                .where(StatisticsColumn.WIN_MARGIN, m -> m > 5);
+        assertEquals(expected, query.count());
+        assertEquals(expected, query.rows().length);
+        assertEquals(moveSum, query.aggregate(StatisticsColumn.MOVES).getSum());
+        assertEquals(size, columns.select().count());
+
+        Map<Integer, IntSummaryStatistics> byMoves = columns.select()
+                .groupBy(StatisticsColumn.MOVES, StatisticsColumn.MARGIN);
+        assertEquals(40, byMoves.size());
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == 7) {
+                total += red[i] - blue[i];
+            }
+        }
+        assertEquals(total, byMoves.get(7).getSum());
+
+        for (String name : new String[] {"log.json", "file.bin",
+                "store.segments"}) {
+            DataHandler handler =
+                    new DataHandler(directory.resolve(name).toString());
+            handler.extendData("Red", 12, "20:15");
+            handler.extendData("Blue", 9, "16:19");
+            StatisticsColumns loaded = handler.readColumns();
+            assertEquals(2, loaded.size());
+            assertEquals(BinaryStatistics.BLUE,
+                    loaded.get(StatisticsColumn.WINNER, 1));
+            assertEquals(3, loaded.get(StatisticsColumn.WIN_MARGIN, 1));
+            assertEquals(5, loaded.get(StatisticsColumn.MARGIN, 0));
+        }
+    }
+
+    @Test
+    void testStatisticsArePagedAndSortedByTheStore(@TempDir Path directory)
+            throws IOException {
+        long[] blueWins = {0b10110L};
+        int[] moves = {12, 9, 30, 9, 15};
+        int[] red = {20, 16, 18, 17, 21};
+        int[] blue = {15, 19, 17, 18, 14};
+        StatisticsColumns columns =
+                new StatisticsColumns(blueWins, moves, red, blue);
+
+        assertArrayEquals(new int[] {1, 3, 0, 4, 2}, columns.select()
+                .sortedRows(StatisticsColumn.MOVES, false));
+        assertArrayEquals(new int[] {2, 4, 0, 1, 3}, columns.select()
+                .sortedRows(StatisticsColumn.MOVES, true));
+        assertArrayEquals(new int[] {4, 1}, columns.select()
+                .where(StatisticsColumn.WINNER,
+                        w -> w == BinaryStatistics.BLUE)
+                .where(StatisticsColumn.MOVES, m -> m != 30)
+                .sortedRows(StatisticsColumn.MARGIN, true));
+        assertEquals("Blue", columns.getData(4).getWinnerColor());
+        assertEquals("21:14", columns.getData(4).getState());
+
+        Path store = directory.resolve("games.segments");
+        SegmentedStatistics statistics = new SegmentedStatistics(store,
+                16 + 2 * 24, Duration.ofDays(7));
+        statistics.append(Stream.of(new Data("Red", 12, "20:15"),
+                new Data("Blue", 9, "16:19"), new Data("Blue", 30, "18:17"),
+                new Data("Blue", 9, "17:18"), new Data("Red", 15, "21:14")),
+                System.currentTimeMillis(), true);
+        assertEquals(3, statistics.segmentCount());
+        DataHandler handler = new DataHandler(store.toString());
+        StatisticsColumns view = handler.openColumns();
+        StatisticsColumns loaded = handler.readColumns();
+        for (StatisticsColumn column : StatisticsColumn.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                assertArrayEquals(loaded.select()
+                                .sortedRows(column, descending),
+                        view.select().sortedRows(column, descending));
+            }
+        }
+        assertArrayEquals(new int[] {3, 1}, view.select()
+                .where(StatisticsColumn.WINNER,
+                        w -> w == BinaryStatistics.BLUE)
+                .where(StatisticsColumn.MOVES, m -> m != 30)
+                .sortedRows(StatisticsColumn.MARGIN, true));
+        assertEquals("16:19", view.getData(1).getState());
+        assertEquals(30, view.get(StatisticsColumn.MOVES, 2));
+        statistics.close();
+        SegmentedStatistics.of(store).close();
+
+        int[] reads = new int[1];
+        PagedStatistics paged = new PagedStatistics(1_000_000, index -> {
+            reads[0]++;
+            return new Data("Red", index, "20:16");
+        });
+        assertEquals(0, reads[0]);
+        assertEquals(999_999, paged.get(999_999).getMoveCounter());
+        assertEquals(5, paged.get(5).getMoveCounter());
+        assertEquals(6, paged.get(6).getMoveCounter());
+        assertEquals(2, paged.getPageLoads());
+        assertEquals(1_000_000 % PagedStatistics.PAGE_SIZE
+                + PagedStatistics.PAGE_SIZE, reads[0]);
+        for (int i = 0; i <= PagedStatistics.CACHED_PAGES; i++) {
+            paged.get(i * PagedStatistics.PAGE_SIZE);
+        }
+        paged.get(999_999);
+        assertEquals(PagedStatistics.CACHED_PAGES + 3, paged.getPageLoads());
+    }
 }